@@ -2,7 +2,11 @@ package controller;
 
 
 import controller.commands.AdjustBrightness;
+import controller.commands.AutoLevels;
 import controller.commands.Blur;
+import controller.commands.ContrastStretch;
+import controller.commands.Crop;
+import controller.commands.Equalize;
 import controller.commands.GreyscaleBlue;
 import controller.commands.GreyscaleGreen;
 import controller.commands.GreyscaleIntensity;
@@ -12,6 +16,7 @@ import controller.commands.GreyscaleValue;
 import controller.commands.HorizontalFlipImage;
 import controller.commands.ImageCommands;
 import controller.commands.LoadImage;
+import controller.commands.Rotate;
 import controller.commands.SaveImage;
 import controller.commands.Sepia;
 import controller.commands.Sharpen;
@@ -23,9 +28,16 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import javax.swing.SwingUtilities;
+import model.BandExecutor;
 import model.ImageModel;
+import model.Progress;
 import view.ImageView;
 
 /**
@@ -36,6 +48,15 @@ import view.ImageView;
  * controller because it is designed to work with ActionListeners as the source of input from the
  * user, rather than the InputStream from the previous submission. That is why this class implements
  * ActionListener, as it needs to be able to detect user actions.
+ * <p>
+ * ADDITION: commands from the buttons run one at a time on a background thread, so the window
+ * keeps painting while a large image is processed. The inputs of the command are read from the
+ * view on the event thread, the operations of the model report the rows they have done to the
+ * progress bar of the view, and the Cancel button stops the command between rows. The model
+ * computes the pixels of the new image on the background thread before it stores the image, so a
+ * cancelled command stores nothing, and the view is only updated on the event thread once the
+ * command is done.
+ * </p>
  */
 public class ControllerGUI implements ImageController, ActionListener {
 
@@ -64,6 +85,18 @@ public class ControllerGUI implements ImageController, ActionListener {
    */
   private final ImageView view;
 
+  /**
+   * ADDITION: the thread commands from the buttons run on. Set to private and final to avoid
+   * outside access and reassignment.
+   */
+  private final ExecutorService worker;
+
+  /**
+   * ADDITION: the progress of the command running on the worker, null when none is. Set to
+   * private to avoid outside access, not final as each command has its own.
+   */
+  private volatile CommandProgress running;
+
   /**
    * Construct a controller GUI that takes a model and view. If either of parameters are null, then
    * throw IllegalArgumentException. In this contructor, the commands will be put into the commands
@@ -79,6 +112,11 @@ public class ControllerGUI implements ImageController, ActionListener {
     }
     this.model = model;
     this.view = view;
+    this.worker = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "command-worker");
+      thread.setDaemon(true); // the worker never keeps the program open
+      return thread;
+    });
 
     this.commandHistory = new Stack<>();
     this.commands = new HashMap<>();
@@ -98,12 +136,25 @@ public class ControllerGUI implements ImageController, ActionListener {
     commands.put("sepia", (Scanner s) -> new Sepia(s.next(), s.next()));
     commands.put("blur", (Scanner s) -> new Blur(s.next(), s.next()));
     commands.put("sharpen", (Scanner s) -> new Sharpen(s.next(), s.next()));
+    commands.put("crop", (Scanner s) ->
+        new Crop(s.nextInt(), s.nextInt(), s.nextInt(), s.nextInt(), s.next(), s.next()));
+    commands.put("rotate", (Scanner s) -> new Rotate(s.nextInt(), s.next(), s.next()));
+    commands.put("equalize", (Scanner s) -> new Equalize(s.next(), s.next()));
+    commands.put("auto-levels", (Scanner s) -> new AutoLevels(s.next(), s.next()));
+    commands.put("contrast-stretch", (Scanner s) ->
+        new ContrastStretch(s.nextDouble(), s.nextDouble(), s.next(), s.next()));
 
   }
 
   @Override
   public void run() throws IllegalStateException {
     this.view.setListeners(this);
+    this.view.setCancelListener(e -> {
+      CommandProgress progress = this.running;
+      if (progress != null) {
+        progress.cancelled = true;
+      }
+    });
     this.view.refresh();
     this.view.makeVisible();
   }
@@ -159,6 +210,7 @@ public class ControllerGUI implements ImageController, ActionListener {
    * options. This string will then be passed into the processCommand() method as the command and
    * this method will perform the command on the model. The view is then refreshed to properly
    * reflect the currentImage that is to be displayed.
+   * CHANGE: commands run on the worker, and the view is refreshed once they are done.
    * @param e - the event to be processed
    */
   @Override
@@ -194,14 +246,13 @@ public class ControllerGUI implements ImageController, ActionListener {
         break;
       case "display":
         this.view.setPhoto(this.view.getDisplaySelection());
+        this.view.refresh(); // refresh the view to show the selected image
         break;
       default:
         this.view.showErrorMessage("Command not found");
         break;
     }
 
-    this.view.refresh(); // refresh the view after each actionEvent to update accordingly
-
   }
 
   /**
@@ -209,6 +260,8 @@ public class ControllerGUI implements ImageController, ActionListener {
    * sends this string command to the processCommand() method which will perform the actual
    * operations on the image. if an exception is caught, the view will show an error message box
    * and then view sets the displayed photo to be the savedImage.
+   * CHANGE: the command runs on the worker while the view shows its progress. Once it is done the
+   * view is updated on the event thread, unless it was cancelled, which leaves the view as it was.
    * @param command - the command being passed into processCommand as the command for controller
    * @param savedImage - the name of the image being operated on
    * @param displayedImage - the current displayed image
@@ -216,14 +269,70 @@ public class ControllerGUI implements ImageController, ActionListener {
   private void actionProcessor(String command, String savedImage, String displayedImage) {
     if (savedImage.equals("")) {
       this.view.showErrorMessage("Give your modified image a name");
-    } else {
+      return;
+    }
+    CommandProgress progress = new CommandProgress();
+    this.running = progress;
+    this.view.setBusy(true);
+    this.worker.execute(() -> {
+      String error = null;
+      boolean cancelled = false;
+      BandExecutor.setProgress(progress);
       try {
         processCommand(command + " " + displayedImage + " " + savedImage);
+      } catch (CancellationException ex) {
+        cancelled = true;
       } catch (Exception ex) {
-        view.showErrorMessage(ex.getMessage()); // show error message if exception caught
+        error = ex.getMessage();
+      } finally {
+        BandExecutor.setProgress(null);
       }
-      this.view.setPhoto(savedImage); // set the photo in view to the savedImage which will make the
-      // displayed image whatever was just created.
+      String message = error;
+      boolean stopped = cancelled;
+      SwingUtilities.invokeLater(() -> {
+        this.running = null;
+        this.view.setBusy(false);
+        if (message != null) {
+          view.showErrorMessage(message); // show error message if exception caught
+        }
+        if (!stopped) {
+          this.view.setPhoto(savedImage); // set the photo in view to the savedImage which will
+          // make the displayed image whatever was just created.
+        }
+        this.view.refresh();
+      });
+    });
+  }
+
+  /**
+   * ADDITION: the progress of a command running on the worker. The percentage done is handed to
+   * the view on the event thread, only when it grows so the event queue is not flooded. A command
+   * that makes more than one pass over the image keeps the bar where it is until the next pass
+   * gets past it, instead of moving it back.
+   */
+  private final class CommandProgress implements Progress {
+
+    /**
+     * Set once the Cancel button is clicked, read by the threads running the command.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Largest percentage handed to the view.
+     */
+    private final AtomicInteger percent = new AtomicInteger();
+
+    @Override
+    public void update(long done, long total) {
+      int current = (int) (100 * done / Math.max(1, total));
+      if (percent.getAndAccumulate(current, Math::max) < current) {
+        SwingUtilities.invokeLater(() -> view.setProgress(current));
+      }
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return this.cancelled;
     }
   }
 }
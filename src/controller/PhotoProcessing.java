@@ -10,6 +10,7 @@ import java.io.InputStreamReader;
 
 import model.ImageModel;
 import model.ImageModelImpl;
+import model.ImageStorage;
 import view.ImageView;
 import view.PhotoProcessingView;
 
@@ -28,7 +29,8 @@ public class PhotoProcessing {
       throw new IllegalArgumentException("null input");
     }
 
-    ImageModel model = new ImageModelImpl("smile.png","smile");
+    // images are kept in BufferedImages the view draws without converting them
+    ImageModel model = new ImageModelImpl("smile.png", "smile", ImageStorage.BUFFERED);
     Readable in;
     ImageView view = new PhotoProcessingView(model);
     ImageController controller = new ControllerGUI(model, view);
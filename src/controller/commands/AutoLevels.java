@@ -0,0 +1,51 @@
+package controller.commands;
+
+import model.ImageModel;
+
+/**
+ * ADDITION: Class represents a command to stretch each channel of an image from its lowest to its
+ * highest value.
+ * See the autoLevels method in the model for additional documentation.
+ * <p>
+ * The model will be passed in to the method and autoLevels method will be called on the model
+ * with the given filename and a new name and add it to the model map as the newName.
+ * Given as "auto-levels filename newName".
+ * </p>
+ */
+public class AutoLevels implements ImageCommands {
+
+  /**
+   * the filename being operated on. Set to private and final to restrict outside access
+   * and reassignment.
+   */
+  private final String filename;
+
+  /**
+   * the new filename of the image being operated on. Set to private and final to restrict
+   * outside access and reassignment.
+   */
+  private final String newName;
+
+  /**
+   * Create instance of an auto-levels object that will be used to delegate the autoLevels
+   * method onto our model.
+   *
+   * @param filename - file to be operated on
+   * @param newName  - the newName of the file
+   */
+  public AutoLevels(String filename, String newName) {
+    this.filename = filename;
+    this.newName = newName;
+  }
+
+  @Override
+  public void edit(ImageModel model) {
+    model.autoLevels(filename, newName);
+    System.out.println(this.toString());
+  }
+
+  @Override
+  public String toString() {
+    return "Auto-leveled";
+  }
+}
@@ -0,0 +1,62 @@
+package controller.commands;
+
+import model.ImageModel;
+
+/**
+ * ADDITION: Class represents a command to stretch the contrast of an image between two percentiles.
+ * See the contrastStretch method in the model for additional documentation.
+ * <p>
+ * The model will be passed in to the method and contrastStretch method will be called on the model
+ * with the given filename and a new name and the percentiles and add it to the model map as the
+ * newName.
+ * Given as "contrast-stretch low high filename newName".
+ * </p>
+ */
+public class ContrastStretch implements ImageCommands {
+
+  /**
+   * the filename being operated on. Set to private and final to restrict outside access
+   * and reassignment.
+   */
+  private final String filename;
+
+  /**
+   * the new filename of the image being operated on. Set to private and final to restrict
+   * outside access and reassignment.
+   */
+  private final String newName;
+
+  /**
+   * the percentages of the values that become 0 and at or below the max value. Set to private and
+   * final to restrict outside access and reassignment.
+   */
+  private final double low;
+  private final double high;
+
+  /**
+   * Create instance of a contrast stretch object that will be used to delegate the contrastStretch
+   * method onto our model.
+   *
+   * @param low      - percentage of the values that become 0
+   * @param high     - percentage of the values at or below the value that becomes the max value
+   * @param filename - file to be operated on
+   * @param newName  - the newName of the file
+   */
+  public ContrastStretch(double low, double high, String filename, String newName) {
+    this.low = low;
+    this.high = high;
+    this.filename = filename;
+    this.newName = newName;
+  }
+
+  @Override
+  public void edit(ImageModel model) {
+    model.contrastStretch(filename, newName, low, high);
+    System.out.println(this.toString());
+  }
+
+  @Override
+  public String toString() {
+    return "Contrast stretched " + low + "% to " + high + "%";
+  }
+}
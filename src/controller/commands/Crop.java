@@ -0,0 +1,72 @@
+package controller.commands;
+
+import model.ImageModel;
+
+/**
+ * ADDITION: Class represents a command to crop a rectangle out of an image.
+ * See the crop method in the model for additional documentation.
+ * <p>
+ * The model will be passed in to the method and crop method will be called on the model with the
+ * given filename and a new name and the rectangle to crop and add it to the model map as the
+ * newName. Given as "crop x y width height filename newName".
+ * </p>
+ */
+public class Crop implements ImageCommands {
+
+  /**
+   * the filename being operated on. Set to private and final to restrict outside access
+   * and reassignment.
+   */
+  private final String filename;
+
+  /**
+   * the new filename of the image being operated on. Set to private and final to restrict
+   * outside access and reassignment.
+   */
+  private final String newName;
+
+  /**
+   * the column and row the rectangle starts at. Set to private and final to restrict outside
+   * access and reassignment.
+   */
+  private final int x;
+  private final int y;
+
+  /**
+   * the size of the rectangle. Set to private and final to restrict outside access and
+   * reassignment.
+   */
+  private final int width;
+  private final int height;
+
+  /**
+   * Create instance of a crop object that will be used to delegate the crop method onto our
+   * model.
+   *
+   * @param x        - column the rectangle starts at
+   * @param y        - row the rectangle starts at
+   * @param width    - width of the rectangle
+   * @param height   - height of the rectangle
+   * @param filename - file to be operated on
+   * @param newName  - the newName of the file
+   */
+  public Crop(int x, int y, int width, int height, String filename, String newName) {
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+    this.filename = filename;
+    this.newName = newName;
+  }
+
+  @Override
+  public void edit(ImageModel model) {
+    model.crop(filename, newName, x, y, width, height);
+    System.out.println(this.toString());
+  }
+
+  @Override
+  public String toString() {
+    return "Cropped " + width + "x" + height + " at " + x + " " + y;
+  }
+}
@@ -0,0 +1,58 @@
+package controller.commands;
+
+import model.ImageModel;
+
+/**
+ * ADDITION: Class represents a command to rotate an image clockwise by a multiple of 90 degrees.
+ * See the rotate method in the model for additional documentation.
+ * <p>
+ * The model will be passed in to the method and rotate method will be called on the model with
+ * the given filename and a new name and the degrees to rotate by and add it to the model map as
+ * the newName. Given as "rotate degrees filename newName".
+ * </p>
+ */
+public class Rotate implements ImageCommands {
+
+  /**
+   * the filename being operated on. Set to private and final to restrict outside access
+   * and reassignment.
+   */
+  private final String filename;
+
+  /**
+   * the new filename of the image being operated on. Set to private and final to restrict
+   * outside access and reassignment.
+   */
+  private final String newName;
+
+  /**
+   * the clockwise rotation in degrees. Set to private and final to restrict outside access and
+   * reassignment.
+   */
+  private final int degrees;
+
+  /**
+   * Create instance of a rotate object that will be used to delegate the rotate method onto our
+   * model.
+   *
+   * @param degrees  - clockwise rotation, a multiple of 90
+   * @param filename - file to be operated on
+   * @param newName  - the newName of the file
+   */
+  public Rotate(int degrees, String filename, String newName) {
+    this.degrees = degrees;
+    this.filename = filename;
+    this.newName = newName;
+  }
+
+  @Override
+  public void edit(ImageModel model) {
+    model.rotate(filename, newName, degrees);
+    System.out.println(this.toString());
+  }
+
+  @Override
+  public String toString() {
+    return "Rotated by " + degrees;
+  }
+}
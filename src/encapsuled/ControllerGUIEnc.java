@@ -3,7 +3,11 @@ package encapsuled;
 
 import controller.ImageController;
 import controller.commands.AdjustBrightness;
+import controller.commands.AutoLevels;
 import controller.commands.Blur;
+import controller.commands.ContrastStretch;
+import controller.commands.Crop;
+import controller.commands.Equalize;
 import controller.commands.GreyscaleBlue;
 import controller.commands.GreyscaleGreen;
 import controller.commands.GreyscaleIntensity;
@@ -13,6 +17,7 @@ import controller.commands.GreyscaleValue;
 import controller.commands.HorizontalFlipImage;
 import controller.commands.ImageCommands;
 import controller.commands.LoadImage;
+import controller.commands.Rotate;
 import controller.commands.SaveImage;
 import controller.commands.Sepia;
 import controller.commands.Sharpen;
@@ -97,6 +102,13 @@ public class ControllerGUIEnc implements ImageController, ActionListener {
     commands.put("sepia", (Scanner s) -> new Sepia(s.next(), s.next()));
     commands.put("blur", (Scanner s) -> new Blur(s.next(), s.next()));
     commands.put("sharpen", (Scanner s) -> new Sharpen(s.next(), s.next()));
+    commands.put("crop", (Scanner s) ->
+        new Crop(s.nextInt(), s.nextInt(), s.nextInt(), s.nextInt(), s.next(), s.next()));
+    commands.put("rotate", (Scanner s) -> new Rotate(s.nextInt(), s.next(), s.next()));
+    commands.put("equalize", (Scanner s) -> new Equalize(s.next(), s.next()));
+    commands.put("auto-levels", (Scanner s) -> new AutoLevels(s.next(), s.next()));
+    commands.put("contrast-stretch", (Scanner s) ->
+        new ContrastStretch(s.nextDouble(), s.nextDouble(), s.next(), s.next()));
     commands.put("mosaic", (Scanner s) -> new Mosaic(s.next(), s.next(), s.nextInt()));
   }
 
@@ -7,11 +7,16 @@ import java.util.Map;
 import java.util.Random;
 import java.util.TreeMap;
 
+import model.BandExecutor;
 import model.Image;
+import model.ImageHistogram;
 import model.ImageImpl;
 import model.ImageUtil;
+import model.OrientedImage;
+import model.RegionImage;
 import model.filter.Filter;
 import model.transform.Histogram;
+import model.transform.LookupTable;
 import model.transform.Transform;
 
 /**
@@ -21,6 +26,12 @@ import model.transform.Transform;
 public class ImageModelMosaicImpl implements ImageModelMosaic {
   private final Map<String, Image> images;
 
+  /**
+   * ADDITION: runs filters on bands of rows in parallel for large images. Set to private and
+   * final to avoid outside access and reassignment.
+   */
+  private final BandExecutor executor;
+
   /**
    * Constructor for ImageModelImpl. Initializes the images map.
    *
@@ -29,6 +40,7 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
    */
   public ImageModelMosaicImpl(String path, String filename) {
     this.images = new HashMap<>();
+    this.executor = new BandExecutor();
     this.images.put(filename, ImageUtil.readImage(path, filename));
   }
 
@@ -44,7 +56,7 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
     for (int[] seedVal : seeds) {
       temp = colorCloud(seedVal, clouts, temp);
     }
-    this.images.put(newName, new ImageImpl(newName, temp));
+    this.images.put(newName, new ImageImpl(newName, temp, img.getMaxValue()));
   }
 
   private List<int[]> createSeeds(Image img, List<int[]> seeds, int seed) {
@@ -213,7 +225,7 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
     // put the temp as a new PPM image in the images map.
     // use the newName as the file name, temp as the pixel array, and then the max value
     // from the img as the new max value.
-    this.images.put(newName, new ImageImpl(newName, temp));
+    this.images.put(newName, new ImageImpl(newName, temp, img.getMaxValue()));
   }
 
   @Override
@@ -249,23 +261,16 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
         temp[i][j] = checkMax(filename, option.edit(current));
       }
     }
-    this.images.put(newName, new ImageImpl(newName, temp));
+    this.images.put(newName, new ImageImpl(newName, temp, img.getMaxValue()));
   }
 
   @Override
   public void filter(String filename, String newName, Filter option) {
     Image img = images.get(filename);
-    int[][][] temp = new int[img.getHeight()][img.getWidth()][3];
-
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {            // for each pixel in the image
-        temp[i][j] = checkMax(filename, option.edit(i, j, img.getImage()));     // apply the filter
-        System.out.println("infant loop?");
-        System.out.println(i);
-        System.out.println(j);
-      }
-    }
-    this.images.put(newName, new ImageImpl(newName, temp));
+    Image filtered = new ImageImpl(newName, new int[img.getHeight()][img.getWidth()][3],
+        img.getMaxValue());
+    option.apply(img, filtered, this.executor); // filters the whole image in one pass
+    this.images.put(newName, filtered);
   }
 
   @Override
@@ -289,7 +294,73 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
     }
 
     // image gets overwritten to the new adjusted image
-    this.images.put(newName, new ImageImpl(newName, temp));
+    this.images.put(newName, new ImageImpl(newName, temp, img.getMaxValue()));
+  }
+
+  @Override
+  public void equalize(String filename, String newName)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = histogramImage(filename);
+    lookUp(img, newName, LookupTable.equalize(ImageHistogram.countChannels(img, this.executor),
+        img.getMaxValue()));
+  }
+
+  @Override
+  public void autoLevels(String filename, String newName)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = histogramImage(filename);
+    lookUp(img, newName, LookupTable.autoLevels(ImageHistogram.countChannels(img, this.executor),
+        img.getMaxValue()));
+  }
+
+  @Override
+  public void contrastStretch(String filename, String newName, double low, double high)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = histogramImage(filename);
+    lookUp(img, newName, LookupTable.contrastStretch(
+        ImageHistogram.countChannels(img, this.executor), img.getMaxValue(), low, high));
+  }
+
+  /**
+   * Get an image a histogram-driven operation runs on, checking its values fit a lookup table.
+   *
+   * @param filename - name of the image
+   * @return the image
+   * @throws IllegalStateException    - no image with that name
+   * @throws IllegalArgumentException - max value above LookupTable.MAX_TABLE_VALUE
+   */
+  private Image histogramImage(String filename)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = this.images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("No Images Found in Map");
+    }
+    if (img.getMaxValue() > LookupTable.MAX_TABLE_VALUE) {
+      throw new IllegalArgumentException("Max value too large: " + img.getMaxValue());
+    }
+    return img;
+  }
+
+  /**
+   * Run every pixel of an image through a lookup table and add the result to the map.
+   *
+   * @param img     - the image being operated on
+   * @param newName - name of the new image
+   * @param table   - the lookup table
+   */
+  private void lookUp(Image img, String newName, LookupTable table) {
+    int width = img.getWidth();
+    ImageImpl result = new ImageImpl(newName, new int[img.getHeight()][width][3],
+        img.getMaxValue());
+    this.executor.run(width, img.getHeight(), (start, end) -> {
+      int[] row = new int[3 * width];
+      for (int i = start; i < end; i++) {
+        img.readRow(i, row);
+        table.applyInterleaved(row, width);
+        result.writeRow(i, row);
+      }
+    });
+    this.images.put(newName, result);
   }
 
   /**
@@ -328,6 +399,27 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
 
   }
 
+  @Override
+  public void rotate(String filename, String newName, int degrees)
+      throws IllegalArgumentException {
+    this.images.put(newName, OrientedImage.rotated(newName, images.get(filename), degrees));
+  }
+
+  @Override
+  public void crop(String filename, String newName, int x, int y, int width, int height)
+      throws IllegalArgumentException, IllegalStateException {
+    Image img = images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("Cannot find image.");
+    }
+    this.images.put(newName, RegionImage.cropped(newName, img, x, y, width, height));
+  }
+
+  @Override
+  public void removeImage(String filename) {
+    this.images.remove(filename);
+  }
+
   @Override
   public int getHeight(String filename) throws IllegalStateException {
     try {
@@ -366,28 +458,72 @@ public class ImageModelMosaicImpl implements ImageModelMosaic {
 
   @Override
   public Map<Integer, Integer> getHistData(String filename, Histogram type) {
+    boolean counted = ImageHistogram.channelOf(type) >= 0;
+    return histData(filename, type, counted ? getHistogram(filename) : null);
+  }
+
+  @Override
+  public Map<Integer, Integer> getHistData(String filename, Histogram type, long budget) {
+    boolean counted = ImageHistogram.channelOf(type) >= 0;
+    return histData(filename, type, counted ? getHistogram(filename, budget) : null);
+  }
+
+  @Override
+  public ImageHistogram getHistogram(String filename) throws IllegalStateException {
+    Image img = this.images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("No Images Found in Map");
+    }
+    return ImageHistogram.of(img, this.executor);
+  }
+
+  @Override
+  public ImageHistogram getHistogram(String filename, long budget)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = this.images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("No Images Found in Map");
+    }
+    return ImageHistogram.sample(img, budget, this.executor);
+  }
+
+  /**
+   * Make the frequency distribution map of a histogram type from the histograms of an image, or
+   * by counting the type when the histograms do not have it.
+   *
+   * @param filename  - name of the image
+   * @param type      - type of histogram
+   * @param histogram - the histograms of the image, null if they do not have the type
+   * @return Frequency distribution map
+   */
+  private Map<Integer, Integer> histData(String filename, Histogram type,
+                                         ImageHistogram histogram) {
     Image img = images.get(filename);
     Map<Integer, Integer> frequencyDistribution = new TreeMap<>(); // treemap -> distribution rep
-    int total = img.getHeight() * img.getWidth();
     int max = 0;
 
-    frequencyDistribution.put(-1, total);
-    for (int i = 0; i < 256; i++) {
-      frequencyDistribution.put(i, 0);
-    }
-
-    // nested for loop to iterate through image
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {
-        int pixelValue = type.value(img.getImage()[i][j]);
-        int newFrequency = frequencyDistribution.get(pixelValue) + 1;
-        frequencyDistribution.put(pixelValue, newFrequency);
-        if (newFrequency > max) {
-          max = newFrequency;
+    int channel = ImageHistogram.channelOf(type);
+    int[] counts = new int[ImageHistogram.BINS];
+    if (channel >= 0) {
+      counts = histogram.getCounts(channel);
+    } else {
+      // iterate through image a row at a time
+      int[] row = new int[3 * img.getWidth()];
+      int[] current = new int[3];
+      for (int i = 0; i < img.getHeight(); i++) {
+        img.readRow(i, row);
+        for (int j = 0; j < row.length; j += 3) {
+          System.arraycopy(row, j, current, 0, 3);
+          counts[Math.max(0, Math.min(ImageHistogram.BINS - 1, type.value(current)))]++;
         }
       }
     }
 
+    frequencyDistribution.put(-1, img.getHeight() * img.getWidth());
+    for (int i = 0; i < counts.length; i++) {
+      frequencyDistribution.put(i, counts[i]);
+      max = Math.max(max, counts[i]);
+    }
     frequencyDistribution.put(-2, max);
 
     return frequencyDistribution;
@@ -104,6 +104,21 @@ public class ImageViewEnc extends JFrame implements ImageViewEncInt {
     this.repaint();
   }
 
+  @Override
+  public void setBusy(boolean busy) {
+    this.controlPanel.setButtonsEnabled(!busy);
+  }
+
+  @Override
+  public void setProgress(int percent) {
+    // the mosaic controller runs its commands on the event thread, so there is no progress to show
+  }
+
+  @Override
+  public void setCancelListener(ActionListener actionEvent) {
+    // the mosaic controller runs its commands on the event thread, so they cannot be cancelled
+  }
+
   @Override
   public Map<String, String> getButtonMap() {
     return this.controlPanel.getButtonMap();
@@ -0,0 +1,338 @@
+package model;
+
+/**
+ * ADDITION: This is an abstract class that implements the Image interface for images whose max
+ * value is at most 255, so every channel of a pixel fits in 8 bits. These images can hand out a
+ * pixel as one int packed as 0xRRGGBB, regardless of how the pixels are actually stored.
+ * <p>
+ * Each class that extends this class chooses its own storage (one packed int[], three byte[]
+ * planes, ...). The model only talks to the storage a row at a time through readRGB() and
+ * writeRGB(), so every operation in the model works on every storage without knowing about it,
+ * and an operation on an image creates its result in the same storage through blank().
+ * </p>
+ * <p>
+ * getPixel() and getImage() are implemented here for older callers by unpacking the pixels into
+ * new arrays. readRow(), readRegion() and writeRow() unpack and pack into the caller's arrays
+ * without allocating.
+ * </p>
+ */
+public abstract class AbstractRgbImage implements Image {
+
+  /**
+   * Largest max value that fits in the 8 bits each channel is given in a packed pixel.
+   */
+  public static final int MAX_RGB_VALUE = 255;
+
+  /**
+   * Height of image. Set to protected and final so only classes that extend can read it and it
+   * cannot be reassigned.
+   */
+  protected final int height;
+
+  /**
+   * Width of image. Set to protected and final so only classes that extend can read it and it
+   * cannot be reassigned.
+   */
+  protected final int width;
+
+  /**
+   * Max value of pixel channel of image. Set to protected and final so only classes that extend
+   * can read it and it cannot be reassigned.
+   */
+  protected final int max;
+
+  /**
+   * Filename is the name where image will be saved in the model map. Set to protected and final so
+   * only classes that extend can read it and it cannot be reassigned.
+   */
+  protected final String filename;
+
+  /**
+   * Scratch row writeRow() packs pixels into, one per thread and grown to the widest row written,
+   * so bands of rows written in parallel never share it or wait on each other. Set to private and
+   * final to avoid outside access and reassignment.
+   */
+  private static final ThreadLocal<int[]> PACKED_ROW = ThreadLocal.withInitial(() -> new int[0]);
+
+  /**
+   * Construct the shared fields of an 8-bit image.
+   * @param filename - the file name of object in the model.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null name, bad dimensions or max too large for 8 bits
+   */
+  protected AbstractRgbImage(String filename, int width, int height, int max)
+      throws IllegalArgumentException {
+    if (filename == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image size");
+    }
+    if (max < 0 || max > MAX_RGB_VALUE) {
+      throw new IllegalArgumentException("Max value does not fit in 8 bits: " + max);
+    }
+    this.filename = filename;
+    this.width = width;
+    this.height = height;
+    this.max = max;
+  }
+
+  /**
+   * Pack the three channels of a pixel into one int. Channels are expected to already be in the
+   * range 0 to 255.
+   * @param r - red channel
+   * @param g - green channel
+   * @param b - blue channel
+   * @return packed pixel as 0xRRGGBB
+   */
+  public static int pack(int r, int g, int b) {
+    return (r << 16) | (g << 8) | b;
+  }
+
+  /**
+   * Get the red channel of a packed pixel.
+   * @param rgb - packed pixel
+   * @return red channel
+   */
+  public static int red(int rgb) {
+    return (rgb >> 16) & 0xff;
+  }
+
+  /**
+   * Get the green channel of a packed pixel.
+   * @param rgb - packed pixel
+   * @return green channel
+   */
+  public static int green(int rgb) {
+    return (rgb >> 8) & 0xff;
+  }
+
+  /**
+   * Get the blue channel of a packed pixel.
+   * @param rgb - packed pixel
+   * @return blue channel
+   */
+  public static int blue(int rgb) {
+    return rgb & 0xff;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getMaxValue() {
+    return this.max;
+  }
+
+  @Override
+  public String getFilename() {
+    return this.filename;
+  }
+
+  @Override
+  public int[] getPixel(int r, int c) throws IllegalStateException {
+    int rgb = getRGB(r, c);
+    return new int[]{red(rgb), green(rgb), blue(rgb)};
+  }
+
+  /**
+   * Get the packed pixel at a given position in the image.
+   * @param r - row of the pixel
+   * @param c - column of the pixel
+   * @return packed pixel as 0xRRGGBB
+   * @throws IllegalStateException - position is outside the image
+   */
+  public int getRGB(int r, int c) throws IllegalStateException {
+    if (r < 0 || r >= this.height || c < 0 || c >= this.width) {
+      throw new IllegalStateException("Invalid pixel request.");
+    }
+    return rgb(r, c);
+  }
+
+  @Override
+  public int[][][] getImage() {
+    int[][][] copy = new int[this.height][this.width][];
+    int[] row = new int[this.width];
+    for (int i = 0; i < this.height; i++) {
+      readRGB(i, row);
+      for (int j = 0; j < this.width; j++) {
+        int rgb = row[j];
+        copy[i][j] = new int[]{red(rgb), green(rgb), blue(rgb)};
+      }
+    }
+    return copy;
+  }
+
+  @Override
+  public void readRow(int r, int[] dst) throws IllegalStateException, IllegalArgumentException {
+    readRegion(0, r, this.width, 1, dst);
+  }
+
+  @Override
+  public void readRegion(int x, int y, int width, int height, int[] dst)
+      throws IllegalStateException, IllegalArgumentException {
+    if (x < 0 || y < 0 || width < 0 || height < 0 || (long) x + width > this.width
+        || (long) y + height > this.height) {
+      throw new IllegalStateException("Invalid pixel request.");
+    }
+    if (dst == null || dst.length < 3L * width * height) {
+      throw new IllegalArgumentException("Array too small for " + width + "x" + height);
+    }
+    for (int i = 0; i < height; i++) {
+      int start = 3 * width * i;
+      // read the packed pixels into the start of the row's slot, then unpack them from the end so
+      // no packed pixel is overwritten before it is unpacked
+      readRGB(y + i, x, width, dst, start);
+      for (int j = width - 1; j >= 0; j--) {
+        int rgb = dst[start + j];
+        dst[start + 3 * j] = red(rgb);
+        dst[start + 3 * j + 1] = green(rgb);
+        dst[start + 3 * j + 2] = blue(rgb);
+      }
+    }
+  }
+
+  /**
+   * CHANGE: a channel outside 0 to the max value is rejected instead of being cut to its low 8
+   * bits, so a row is stored exactly like in an ImageImpl or not at all.
+   */
+  @Override
+  public void writeRow(int r, int[] src)
+      throws IllegalStateException, IllegalArgumentException {
+    if (r < 0 || r >= this.height) {
+      throw new IllegalStateException("Invalid pixel request.");
+    }
+    if (src == null || src.length < 3 * this.width) {
+      throw new IllegalArgumentException("Array too small for a row of " + this.width);
+    }
+    int[] packed = PACKED_ROW.get();
+    if (packed.length < this.width) {
+      packed = new int[this.width];
+      PACKED_ROW.set(packed);
+    }
+    for (int j = 0; j < this.width; j++) {
+      int red = src[3 * j];
+      int green = src[3 * j + 1];
+      int blue = src[3 * j + 2];
+      if ((red | green | blue) < 0 || Math.max(red, Math.max(green, blue)) > this.max) {
+        throw new IllegalArgumentException("Channel of pixel " + j + " is not between 0 and "
+            + this.max);
+      }
+      packed[j] = pack(red, green, blue);
+    }
+    writeRGB(r, packed);
+  }
+
+  /**
+   * Get the packed pixel at a given position without checking that it is inside the image.
+   * @param r - row of the pixel
+   * @param c - column of the pixel
+   * @return packed pixel as 0xRRGGBB
+   */
+  abstract int rgb(int r, int c);
+
+  /**
+   * Read a whole row of packed pixels into the given array.
+   * @param r - row being read
+   * @param dst - array of at least width ints the row is written to
+   */
+  void readRGB(int r, int[] dst) {
+    readRGB(r, 0, this.width, dst, 0);
+  }
+
+  /**
+   * Read part of a row of packed pixels into the given array.
+   * @param r - row being read
+   * @param c - first column being read
+   * @param length - number of pixels read, c + length is at most width
+   * @param dst - array the pixels are written to
+   * @param offset - index of dst the first pixel is written to
+   */
+  abstract void readRGB(int r, int c, int length, int[] dst, int offset);
+
+  /**
+   * Write a whole row of packed pixels into this image. Only used by the model while it fills in
+   * an image created by blank(), images are never written to once they are in the model map.
+   * @param r - row being written
+   * @param src - array of at least width packed pixels
+   */
+  void writeRGB(int r, int[] src) {
+    writeRGB(r, 0, this.width, src, 0);
+  }
+
+  /**
+   * ADDITION: Write part of a row of packed pixels into this image, like writeRGB(r, src).
+   * @param r - row being written
+   * @param c - first column being written
+   * @param length - number of pixels written, c + length is at most width
+   * @param src - array the pixels are read from
+   * @param offset - index of src the first pixel is read from
+   */
+  abstract void writeRGB(int r, int c, int length, int[] src, int offset);
+
+  /**
+   * Create a new image with the same storage, size and max value as this image, with every pixel
+   * set to 0. The model fills it in with writeRGB().
+   * @param filename - name of the new image
+   * @return the blank image
+   */
+  AbstractRgbImage blank(String filename) {
+    return blank(filename, this.width, this.height);
+  }
+
+  /**
+   * Create a new image with the same storage and max value as this image and the given size, with
+   * every pixel set to 0.
+   * @param filename - name of the new image
+   * @param width - width of the new image
+   * @param height - height of the new image
+   * @return the blank image
+   */
+  abstract AbstractRgbImage blank(String filename, int width, int height);
+
+  /**
+   * Compute the pixels of a view whose rows cannot be read straight from the image it is a view
+   * of, like a chain of point operations or a rotation, and get the image holding them. Does
+   * nothing for an image with its own storage or a view that reads its rows directly.
+   * @return the image rows of this image are read from, this image if it is not a lazy view
+   */
+  AbstractRgbImage materialize() {
+    return this;
+  }
+
+  /**
+   * Does this image read its pixels from the storage of the given image, either because it is
+   * that image or because it is a view over it. The model does not release an image while another
+   * image in its map still uses it.
+   * @param other - another image
+   * @return true if this image uses the storage of other
+   */
+  boolean uses(AbstractRgbImage other) {
+    return this == other;
+  }
+
+  /**
+   * The image whose storage this image is a view over.
+   * @return the parent image, or null if this image has its own storage
+   */
+  AbstractRgbImage source() {
+    return null;
+  }
+
+  /**
+   * Called by the model once this image has been removed from or replaced in its map, so storage
+   * that is not managed by the garbage collector can be freed. Does nothing by default.
+   */
+  void release() {
+    // heap storage is freed by the garbage collector
+  }
+}
@@ -0,0 +1,234 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ADDITION: This class runs an operation on an image by splitting the image into bands of rows and
+ * running the bands on a ForkJoinPool. Each output row is computed exactly as it would be by a
+ * single loop over the image, only by a different thread, so the output is bit-identical to the
+ * serial path.
+ * <p>
+ * Splitting an image has a cost, so images with fewer pixels than the threshold (and every image
+ * when the parallelism is 1) run on the calling thread in one band. Larger images are split into
+ * about 4 bands per thread, so a slow band does not leave the other threads idle.
+ * </p>
+ * <p>
+ * A thread that runs operations in the background, like a command of the GUI, can set a Progress
+ * for itself with setProgress(). Every band its operations run is then done a few rows at a time,
+ * reporting the rows done after each and throwing a CancellationException before the next once
+ * the Progress is cancelled, so the operation stops before its image is stored. Operations run by
+ * any other thread, like the histograms painted by the view, are not affected.
+ * </p>
+ */
+public class BandExecutor {
+
+  /**
+   * Default number of pixels an image needs before it is split into bands.
+   */
+  public static final long DEFAULT_THRESHOLD = 256 * 256;
+
+  /**
+   * Number of bands made for each thread of the pool.
+   */
+  private static final int BANDS_PER_THREAD = 4;
+
+  /**
+   * Number of pixels done between two checks of the Progress of a thread, rounded to whole rows.
+   */
+  private static final int PROGRESS_PIXELS = 1 << 16;
+
+  /**
+   * The Progress of each thread that set one. Operations run by a thread read its own.
+   */
+  private static final ThreadLocal<Progress> PROGRESS = new ThreadLocal<>();
+
+  /**
+   * Pool the bands run on. Set to private and final to avoid outside access and reassignment.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Number of pixels an image needs before it is split into bands. Set to private and final to
+   * avoid outside access and reassignment.
+   */
+  private final long threshold;
+
+  /**
+   * Is the pool shared with the rest of the program, so shutdown() must not shut it down. Set to
+   * private and final to avoid outside access and reassignment.
+   */
+  private final boolean shared;
+
+  /**
+   * Construct an executor that runs bands on the common ForkJoinPool, with the default threshold.
+   */
+  public BandExecutor() {
+    this.pool = ForkJoinPool.commonPool();
+    this.threshold = DEFAULT_THRESHOLD;
+    this.shared = true;
+  }
+
+  /**
+   * Construct an executor with its own pool of the given parallelism and the default threshold.
+   * @param parallelism - number of threads bands run on, 1 to always run serially
+   * @throws IllegalArgumentException - parallelism less than 1
+   */
+  public BandExecutor(int parallelism) throws IllegalArgumentException {
+    this(parallelism, DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Construct an executor with its own pool of the given parallelism.
+   * @param parallelism - number of threads bands run on, 1 to always run serially
+   * @param threshold - number of pixels an image needs before it is split into bands
+   * @throws IllegalArgumentException - parallelism less than 1 or negative threshold
+   */
+  public BandExecutor(int parallelism, long threshold) throws IllegalArgumentException {
+    if (parallelism < 1 || threshold < 0) {
+      throw new IllegalArgumentException("Invalid parallelism or threshold");
+    }
+    this.pool = new ForkJoinPool(parallelism);
+    this.threshold = threshold;
+    this.shared = false;
+  }
+
+  /**
+   * Number of threads bands run on.
+   * @return the parallelism of the pool
+   */
+  public int getParallelism() {
+    return this.pool.getParallelism();
+  }
+
+  /**
+   * Run an operation on every row of an image of the given size, serially for small images and
+   * in parallel bands otherwise. Returns once every row is done. An exception thrown by a band is
+   * thrown again here.
+   * If the calling thread set a Progress, the rows done are reported to it.
+   * @param width - width of the image
+   * @param height - height of the image
+   * @param band - the work for a band of rows
+   * @throws CancellationException - the Progress of the calling thread was cancelled
+   */
+  public void run(int width, int height, RowBand band) {
+    Progress progress = PROGRESS.get();
+    if (progress != null) {
+      band = reporting(width, height, band, progress);
+    }
+    int parallelism = this.pool.getParallelism();
+    if (parallelism == 1 || height < 2 || (long) width * height < this.threshold) {
+      band.apply(0, height);
+      return;
+    }
+    int bandRows = Math.max(1, height / (parallelism * BANDS_PER_THREAD));
+    this.pool.invoke(new Split(band, 0, height, bandRows));
+  }
+
+  /**
+   * Set the Progress of the calling thread, which every operation it runs through a BandExecutor
+   * reports to and checks between rows, until it is set to null.
+   * @param progress - the Progress, or null for operations that are not reported or cancelled
+   */
+  public static void setProgress(Progress progress) {
+    if (progress == null) {
+      PROGRESS.remove();
+    } else {
+      PROGRESS.set(progress);
+    }
+  }
+
+  /**
+   * Has the calling thread set a Progress, so the operations it runs are reported and cancelled.
+   * @return true if a Progress is set for the calling thread
+   */
+  static boolean hasProgress() {
+    return PROGRESS.get() != null;
+  }
+
+  /**
+   * Report the rows done so far by a loop of the calling thread that does not run through an
+   * executor, and stop it by throwing once its Progress is cancelled. Does nothing on a thread
+   * without a Progress.
+   * @param done - number of rows done so far
+   * @param total - number of rows of the loop
+   * @throws CancellationException - the Progress of the calling thread was cancelled
+   */
+  static void report(long done, long total) {
+    Progress progress = PROGRESS.get();
+    if (progress == null) {
+      return;
+    }
+    if (progress.isCancelled()) {
+      throw new CancellationException("Operation cancelled");
+    }
+    progress.update(done, total);
+  }
+
+  /**
+   * Wrap the work for a band so it is done a few rows at a time, checking for cancellation before
+   * and reporting the rows done after each part. Every row is still done exactly once.
+   * @param width - width of the image
+   * @param height - height of the image
+   * @param band - the work for a band of rows
+   * @param progress - the Progress of the thread running the operation
+   * @return the work for a band of rows, reported to the Progress
+   */
+  private static RowBand reporting(int width, int height, RowBand band, Progress progress) {
+    int rows = Math.max(1, PROGRESS_PIXELS / Math.max(1, width));
+    AtomicLong done = new AtomicLong();
+    return (start, end) -> {
+      for (int i = start; i < end; i += rows) {
+        if (progress.isCancelled()) {
+          throw new CancellationException("Operation cancelled");
+        }
+        int stop = Math.min(end, i + rows);
+        band.apply(i, stop);
+        progress.update(done.addAndGet(stop - i), height);
+      }
+    };
+  }
+
+  /**
+   * Shut down the pool of this executor once its running bands are done. Does nothing for an
+   * executor on the common pool.
+   */
+  public void shutdown() {
+    if (!this.shared) {
+      this.pool.shutdown();
+    }
+  }
+
+  /**
+   * Task that splits a range of rows in half until it is at most one band, then runs the band.
+   */
+  private static final class Split extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RowBand band;
+    private final int start;
+    private final int end;
+    private final int bandRows;
+
+    private Split(RowBand band, int start, int end, int bandRows) {
+      this.band = band;
+      this.start = start;
+      this.end = end;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.end - this.start <= this.bandRows) {
+        this.band.apply(this.start, this.end);
+        return;
+      }
+      int middle = (this.start + this.end) >>> 1;
+      invokeAll(new Split(this.band, this.start, middle, this.bandRows),
+          new Split(this.band, middle, this.end, this.bandRows));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * ADDITION: This class extends the packed image class and represents an image whose packed pixels
+ * are the raster of a BufferedImage of TYPE_INT_RGB. That type keeps one 0xRRGGBB int per pixel
+ * in row-major order, exactly the layout of a packed image, so the model reads and writes the
+ * DataBufferInt of the BufferedImage as the storage of the image.
+ * <p>
+ * Because the pixels already are a BufferedImage, saving the image with ImageIO or drawing it in
+ * the view hands over getBufferedImage() without converting or copying any pixel.
+ * </p>
+ */
+public class BufferedRgbImage extends PackedImage {
+
+  /**
+   * The BufferedImage whose raster holds the pixels. Set to private and final to avoid outside
+   * access and reassignment.
+   */
+  private final BufferedImage image;
+
+  /**
+   * Construct a new image with every pixel set to 0, stored in a new TYPE_INT_RGB BufferedImage.
+   * @param filename - the file name of object in the model.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null input, bad dimensions or max too large to pack
+   */
+  public BufferedRgbImage(String filename, int width, int height, int max)
+      throws IllegalArgumentException {
+    this(filename, new BufferedImage(size(width), size(height), BufferedImage.TYPE_INT_RGB), max);
+  }
+
+  /**
+   * Construct an image stored in a BufferedImage of TYPE_INT_RGB. The BufferedImage is used as the
+   * storage of the image and is not copied, so it must not be written to once the image is in a
+   * model.
+   * @param filename - the file name of object in the model.
+   * @param image - the BufferedImage, of TYPE_INT_RGB with no gaps between its rows.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null input, another layout or max too large to pack
+   */
+  public BufferedRgbImage(String filename, BufferedImage image, int max)
+      throws IllegalArgumentException {
+    super(filename, pixels(image), image.getWidth(), image.getHeight(), max);
+    this.image = image;
+  }
+
+  /**
+   * Get the BufferedImage holding the pixels, to save or draw it without a copy. Callers must not
+   * write to it.
+   * @return the BufferedImage of TYPE_INT_RGB
+   */
+  public BufferedImage getBufferedImage() {
+    return this.image;
+  }
+
+  @Override
+  BufferedRgbImage blank(String filename, int width, int height) {
+    return new BufferedRgbImage(filename, width, height, this.max);
+  }
+
+  /**
+   * Get the packed pixels of a BufferedImage, checking they are laid out like a packed image.
+   * @param image - the BufferedImage
+   * @return the array of its DataBufferInt
+   * @throws IllegalArgumentException - null image or another layout
+   */
+  private static int[] pixels(BufferedImage image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (image.getType() != BufferedImage.TYPE_INT_RGB
+        || !(image.getSampleModel() instanceof SinglePixelPackedSampleModel)
+        || ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride()
+        != image.getWidth()
+        || image.getRaster().getSampleModelTranslateX() != 0
+        || image.getRaster().getSampleModelTranslateY() != 0
+        || image.getRaster().getDataBuffer().getOffset() != 0) {
+      throw new IllegalArgumentException("BufferedImage is not a whole TYPE_INT_RGB image");
+    }
+    return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+  }
+
+  /**
+   * Check a side of a new image before a BufferedImage is made with it, so a bad size is reported
+   * like for the other images.
+   * @param side - width or height
+   * @return the side
+   * @throws IllegalArgumentException - side not above 0
+   */
+  private static int size(int side) throws IllegalArgumentException {
+    if (side <= 0) {
+      throw new IllegalArgumentException("Invalid image size");
+    }
+    return side;
+  }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * ADDITION: This class frees the memory of direct and memory-mapped buffers right away, for the
+ * images that keep their pixels outside the Java heap (OffHeapImage and TiledImage). The JDK only
+ * offers that through Unsafe.invokeCleaner, which is looked up once by reflection. If it is not
+ * available the memory is freed by the garbage collector once the buffer is unreachable.
+ */
+final class DirectBuffers {
+
+  /**
+   * The Unsafe instance and its invokeCleaner method, null if they could not be found.
+   */
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafe = theUnsafe.get(null);
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // leave every buffer to the garbage collector
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private DirectBuffers() {
+    // only static helpers
+  }
+
+  /**
+   * Free the memory of a direct buffer, or unmap a mapped one. The buffer must not be used again.
+   * @param buffer - direct or mapped buffer, not a slice or duplicate of one
+   */
+  static void free(ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null) {
+      return;
+    }
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buffer);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // leave it to the garbage collector
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package model;
 
 /**
- * NO CHANGES to report for this interface or any classes that implement the interface.
+ * CHANGE: added readRow(), readRegion() and writeRow() to read and write many pixels at once
+ * into arrays the caller allocates once and reuses, instead of getPixel() for every pixel or a new
+ * getImage() copy. Pixels in those arrays are interleaved, 3 ints per pixel: red, green, blue.
  * <p>
  * Interface that represents an image object. Can be implemented as different
  * image types. This design decision came down to being able to read in and store different
@@ -61,4 +63,44 @@ public interface Image {
    */
   int[][][] getImage() throws IllegalStateException;
 
+  /**
+   * Read a whole row of the image into the given array, as red, green and blue of the first pixel,
+   * then of the second pixel, and so on.
+   *
+   * @param r - row being read
+   * @param dst - array of at least 3 * width ints the row is written to
+   * @throws IllegalStateException - row is outside the image
+   * @throws IllegalArgumentException - dst is null or too short
+   */
+  void readRow(int r, int[] dst) throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Read a rectangle of the image into the given array, row after row, with the pixels of each
+   * row interleaved like readRow().
+   *
+   * @param x - column the rectangle starts at
+   * @param y - row the rectangle starts at
+   * @param width - width of the rectangle
+   * @param height - height of the rectangle
+   * @param dst - array of at least 3 * width * height ints the rectangle is written to
+   * @throws IllegalStateException - rectangle is not inside the image
+   * @throws IllegalArgumentException - dst is null or too short
+   */
+  void readRegion(int x, int y, int width, int height, int[] dst)
+      throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Write a whole row of the image from the given array, interleaved like readRow(). Only meant
+   * for filling in an image that was just created, an image stored in a model is never written to
+   * and views of other images (regions, flips and rotations) cannot be written to at all.
+   * Channels must already be between 0 and the max value of the image.
+   *
+   * @param r - row being written
+   * @param src - array of at least 3 * width ints
+   * @throws IllegalStateException - row is outside the image or the image cannot be written to
+   * @throws IllegalArgumentException - src is null or too short, or a channel is outside 0 to the
+   *                                    max value
+   */
+  void writeRow(int r, int[] src) throws IllegalStateException, IllegalArgumentException;
+
 }
@@ -0,0 +1,612 @@
+package model;
+
+import java.util.SplittableRandom;
+
+import model.transform.GreyscaleBlue;
+import model.transform.GreyscaleGreen;
+import model.transform.GreyscaleIntensity;
+import model.transform.GreyscaleLuma;
+import model.transform.GreyscaleRed;
+import model.transform.Histogram;
+
+/**
+ * ADDITION: This class holds the histograms of an image, the frequency of each value from 0 to 255
+ * of its red, green and blue channels and of its intensity, luma and value, each in an array of
+ * ints.
+ * <p>
+ * The six histograms are counted together in one pass over the rows of the image, instead of one
+ * pass and a map of boxed counts per histogram. Rows are split into bands run by a BandExecutor,
+ * so a large image is counted in parallel: each band counts into its own arrays, which are added
+ * together once the band is done, so threads never share a count while counting.
+ * </p>
+ * <p>
+ * Intensity, luma and value are computed exactly like GreyscaleIntensity, GreyscaleLuma and
+ * GreyscaleValue. Values above 255, in images with a larger max value, are counted as 255.
+ * </p>
+ * <p>
+ * The summary statistics of each histogram, its mean, lowest and highest value and percentiles,
+ * are computed from the counts without reading the image again. Histograms never change once
+ * counted, so a model can keep them for as long as the image they were counted for.
+ * </p>
+ * <p>
+ * For very large images the histograms can be estimated from a sample of the pixels instead, with
+ * sample(). The image is split into a grid of about as many cells as the sample budget, and one
+ * pixel at a random place in each cell is counted for the whole cell, so every part of the image
+ * is sampled evenly. The estimated counts still add up to the number of pixels, getError() is the
+ * standard error of each estimated count, and the statistics are those of the estimate. The
+ * random places are the same every time, so sampling the same image gives the same histograms.
+ * </p>
+ */
+public final class ImageHistogram {
+
+  /**
+   * Channel of the histogram of the red channel.
+   */
+  public static final int RED = 0;
+
+  /**
+   * Channel of the histogram of the green channel.
+   */
+  public static final int GREEN = 1;
+
+  /**
+   * Channel of the histogram of the blue channel.
+   */
+  public static final int BLUE = 2;
+
+  /**
+   * Channel of the histogram of the intensity, the average of the three channels.
+   */
+  public static final int INTENSITY = 3;
+
+  /**
+   * Channel of the histogram of the luma, the weighted sum of the three channels.
+   */
+  public static final int LUMA = 4;
+
+  /**
+   * Channel of the histogram of the value, the largest of the three channels.
+   */
+  public static final int VALUE = 5;
+
+  /**
+   * Number of histograms.
+   */
+  public static final int CHANNELS = 6;
+
+  /**
+   * Number of values of each histogram, 0 to 255.
+   */
+  public static final int BINS = 256;
+
+  /**
+   * Seed of the random place of the sample in each cell.
+   */
+  private static final long SAMPLE_SEED = 0x5eed;
+
+  /**
+   * Computes the luma of pixels exactly like the transformation.
+   */
+  private static final GreyscaleLuma LUMA_TRANSFORM = new GreyscaleLuma();
+
+  /**
+   * Frequency of each value of each histogram. Set to private and final to avoid outside access
+   * and reassignment.
+   */
+  private final int[][] counts;
+
+  /**
+   * Largest frequency of each histogram. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final int[] max;
+
+  /**
+   * Number of pixels counted. Set to private and final to avoid outside access and reassignment.
+   */
+  private final long total;
+
+  /**
+   * Mean value of each histogram. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final double[] mean;
+
+  /**
+   * Lowest and highest value counted of each histogram. Set to private and final to avoid outside
+   * access and reassignment.
+   */
+  private final int[] lowest;
+  private final int[] highest;
+
+  /**
+   * Number of pixels read, the number of pixels of the image if every pixel was counted. Set to
+   * private and final to avoid outside access and reassignment.
+   */
+  private final long samples;
+
+  /**
+   * Sum of the squares of the number of pixels each sample was counted for, which the variance
+   * of an estimated count is proportional to. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final double squaredWeights;
+
+  /**
+   * Largest number of pixels the histograms were allowed to read, the number of pixels of the
+   * image if every pixel was counted. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final long budget;
+
+  /**
+   * Construct the histograms from their counts.
+   * @param counts - frequency of each value of each histogram, kept without copying
+   * @param total - number of pixels of the image
+   * @param samples - number of pixels read
+   * @param squaredWeights - sum of the squares of the number of pixels each sample stands for
+   * @param budget - largest number of pixels that could be read
+   */
+  private ImageHistogram(int[][] counts, long total, long samples, double squaredWeights,
+                         long budget) {
+    this.counts = counts;
+    this.total = total;
+    this.samples = samples;
+    this.squaredWeights = squaredWeights;
+    this.budget = budget;
+    this.max = new int[CHANNELS];
+    this.mean = new double[CHANNELS];
+    this.lowest = new int[CHANNELS];
+    this.highest = new int[CHANNELS];
+    for (int channel = 0; channel < CHANNELS; channel++) {
+      long sum = 0;
+      this.lowest[channel] = -1;
+      this.highest[channel] = -1;
+      for (int v = 0; v < BINS; v++) {
+        int count = counts[channel][v];
+        this.max[channel] = Math.max(this.max[channel], count);
+        sum += (long) v * count;
+        if (count > 0) {
+          this.lowest[channel] = this.lowest[channel] < 0 ? v : this.lowest[channel];
+          this.highest[channel] = v;
+        }
+      }
+      this.mean[channel] = total == 0 ? 0 : (double) sum / total;
+    }
+  }
+
+  /**
+   * Count the histograms of an image, splitting large images into bands run on the common pool.
+   * @param image - the image being counted
+   * @return the histograms of the image
+   * @throws IllegalArgumentException - null image
+   */
+  public static ImageHistogram of(Image image) throws IllegalArgumentException {
+    return of(image, new BandExecutor());
+  }
+
+  /**
+   * Count the histograms of an image in one pass over its rows.
+   * @param image - the image being counted
+   * @param executor - runs bands of rows, possibly in parallel
+   * @return the histograms of the image
+   * @throws IllegalArgumentException - null input
+   */
+  public static ImageHistogram of(Image image, BandExecutor executor)
+      throws IllegalArgumentException {
+    if (image == null || executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    int[][] counts = new int[CHANNELS][BINS];
+    executor.run(image.getWidth(), image.getHeight(), (start, end) -> {
+      int[][] partial = new int[CHANNELS][BINS];
+      if (image instanceof AbstractRgbImage) {
+        countRgb((AbstractRgbImage) image, start, end, partial);
+      } else {
+        countRows(image, start, end, partial);
+      }
+      synchronized (counts) {
+        for (int channel = 0; channel < CHANNELS; channel++) {
+          for (int v = 0; v < BINS; v++) {
+            counts[channel][v] += partial[channel][v];
+          }
+        }
+      }
+    });
+    long total = (long) image.getWidth() * image.getHeight();
+    return new ImageHistogram(counts, total, total, total, total);
+  }
+
+  /**
+   * Count the red, green and blue channels of an image of any max value, with a bin for every
+   * value from 0 to the max value, in one pass over its rows split into bands like of(). Values
+   * outside 0 to the max value are counted in the first or last bin.
+   * @param image - the image being counted
+   * @param executor - runs bands of rows, possibly in parallel
+   * @return frequency of each value of the red, green and blue channels
+   * @throws IllegalArgumentException - null input, or a max value above 65535
+   */
+  public static int[][] countChannels(Image image, BandExecutor executor)
+      throws IllegalArgumentException {
+    if (image == null || executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    int max = image.getMaxValue();
+    if (max < 0 || max > 65535) {
+      throw new IllegalArgumentException("Max value cannot be counted: " + max);
+    }
+    int[][] counts = new int[3][max + 1];
+    executor.run(image.getWidth(), image.getHeight(), (start, end) -> {
+      int[][] partial = new int[3][max + 1];
+      int[] row = new int[3 * image.getWidth()];
+      for (int i = start; i < end; i++) {
+        image.readRow(i, row);
+        for (int j = 0; j < row.length; j += 3) {
+          partial[0][Math.max(0, Math.min(max, row[j]))]++;
+          partial[1][Math.max(0, Math.min(max, row[j + 1]))]++;
+          partial[2][Math.max(0, Math.min(max, row[j + 2]))]++;
+        }
+      }
+      synchronized (counts) {
+        for (int k = 0; k < 3; k++) {
+          for (int v = 0; v <= max; v++) {
+            counts[k][v] += partial[k][v];
+          }
+        }
+      }
+    });
+    return counts;
+  }
+
+  /**
+   * Estimate the histograms of an image from at most budget of its pixels, one at a random place
+   * in each cell of a grid over the image. An image with no more pixels than the budget is counted
+   * exactly.
+   * @param image - the image being sampled
+   * @param budget - largest number of pixels read, at least 1
+   * @param executor - runs bands of rows of cells, possibly in parallel
+   * @return the estimated histograms of the image
+   * @throws IllegalArgumentException - null input or a budget less than 1
+   */
+  public static ImageHistogram sample(Image image, long budget, BandExecutor executor)
+      throws IllegalArgumentException {
+    if (image == null || executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (budget < 1) {
+      throw new IllegalArgumentException("Sample budget must be at least 1");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    long total = (long) width * height;
+    if (total <= budget) {
+      return of(image, executor);
+    }
+
+    // as many rows and columns of cells as keeps the cells about square
+    int rows = (int) Math.max(1, Math.min(height, height * Math.sqrt((double) budget / total)));
+    int columns = (int) Math.max(1, Math.min(width, budget / rows));
+    long[][] weights = new long[CHANNELS][BINS];
+    double[] squaredWeights = new double[1];
+    executor.run(columns, rows, (start, end) -> {
+      long[][] partial = new long[CHANNELS][BINS];
+      double squared = 0;
+      int[] pixel = new int[3];
+      int[] luma = new int[3];
+      for (int a = start; a < end; a++) {
+        SplittableRandom random = new SplittableRandom(SAMPLE_SEED + a);
+        int top = (int) ((long) a * height / rows);
+        int cellHeight = (int) ((long) (a + 1) * height / rows) - top;
+        for (int b = 0; b < columns; b++) {
+          int left = (int) ((long) b * width / columns);
+          int cellWidth = (int) ((long) (b + 1) * width / columns) - left;
+          int r = top + random.nextInt(cellHeight);
+          int c = left + random.nextInt(cellWidth);
+          if (image instanceof AbstractRgbImage) {
+            int rgb = ((AbstractRgbImage) image).rgb(r, c);
+            pixel[0] = AbstractRgbImage.red(rgb);
+            pixel[1] = AbstractRgbImage.green(rgb);
+            pixel[2] = AbstractRgbImage.blue(rgb);
+          } else {
+            System.arraycopy(image.getPixel(r, c), 0, pixel, 0, 3);
+          }
+          long weight = (long) cellHeight * cellWidth;
+          countPixel(pixel, luma, weight, partial);
+          squared += (double) weight * weight;
+        }
+      }
+      synchronized (weights) {
+        for (int channel = 0; channel < CHANNELS; channel++) {
+          for (int v = 0; v < BINS; v++) {
+            weights[channel][v] += partial[channel][v];
+          }
+        }
+        squaredWeights[0] += squared;
+      }
+    });
+
+    int[][] counts = new int[CHANNELS][BINS];
+    for (int channel = 0; channel < CHANNELS; channel++) {
+      for (int v = 0; v < BINS; v++) {
+        counts[channel][v] = (int) weights[channel][v];
+      }
+    }
+    return new ImageHistogram(counts, total, (long) rows * columns, squaredWeights[0],
+        budget);
+  }
+
+  /**
+   * Find the histogram counted for a histogram type: the red, green and blue greyscales and the
+   * intensity greyscale.
+   * @param type - type of histogram
+   * @return the channel of its histogram, or -1 if it is not counted here
+   */
+  public static int channelOf(Histogram type) {
+    if (type == null) {
+      return -1;
+    } else if (type.getClass() == GreyscaleRed.class) {
+      return RED;
+    } else if (type.getClass() == GreyscaleGreen.class) {
+      return GREEN;
+    } else if (type.getClass() == GreyscaleBlue.class) {
+      return BLUE;
+    } else if (type.getClass() == GreyscaleIntensity.class) {
+      return INTENSITY;
+    }
+    return -1;
+  }
+
+  /**
+   * Get a copy of the frequency of each value of a histogram.
+   * @param channel - the histogram, RED to VALUE
+   * @return array of BINS frequencies
+   * @throws IllegalArgumentException - invalid channel
+   */
+  public int[] getCounts(int channel) throws IllegalArgumentException {
+    return counts(channel).clone();
+  }
+
+  /**
+   * Get the frequency of one value of a histogram.
+   * @param channel - the histogram, RED to VALUE
+   * @param value - the value, 0 to 255
+   * @return the number of pixels with that value
+   * @throws IllegalArgumentException - invalid channel or value
+   */
+  public int getCount(int channel, int value) throws IllegalArgumentException {
+    if (value < 0 || value >= BINS) {
+      throw new IllegalArgumentException("Invalid histogram value");
+    }
+    return counts(channel)[value];
+  }
+
+  /**
+   * Get the largest frequency of a histogram, the height it is drawn to.
+   * @param channel - the histogram, RED to VALUE
+   * @return the largest frequency
+   * @throws IllegalArgumentException - invalid channel
+   */
+  public int getMax(int channel) throws IllegalArgumentException {
+    counts(channel);
+    return this.max[channel];
+  }
+
+  /**
+   * Get the number of pixels counted, the sum of the frequencies of each histogram.
+   * @return width times height of the image
+   */
+  public long getTotal() {
+    return this.total;
+  }
+
+  /**
+   * Get the number of pixels read to make the histograms.
+   * @return the number of samples, getTotal() if every pixel was counted
+   */
+  public long getSamples() {
+    return this.samples;
+  }
+
+  /**
+   * Get the largest number of pixels the histograms were allowed to read. Sampling the same image
+   * with the same budget gives the same histograms.
+   * @return the sample budget, getTotal() if every pixel was counted
+   */
+  long getBudget() {
+    return this.budget;
+  }
+
+  /**
+   * Was every pixel counted, so the counts are exact.
+   * @return true if the histograms were not sampled
+   */
+  public boolean isExact() {
+    return this.samples == this.total;
+  }
+
+  /**
+   * Get the standard error of the count of one value of a histogram: the spread of the estimate
+   * around the true count if the image were sampled again at other random places, so most
+   * estimates are within two standard errors of the true count. The fraction of pixels with the
+   * value is estimated with one more sample of it and one more of another value, so a value no
+   * sample had, which may still be in a few cells, has an error of about one cell and not 0.
+   * @param channel - the histogram, RED to VALUE
+   * @param value - the value, 0 to 255
+   * @return the standard error, 0 if every pixel was counted
+   * @throws IllegalArgumentException - invalid channel or value
+   */
+  public double getError(int channel, int value) throws IllegalArgumentException {
+    int count = getCount(channel, value);
+    if (isExact()) {
+      return 0;
+    }
+    double cell = (double) this.total / this.samples;
+    double fraction = (count + cell) / (this.total + 2 * cell);
+    return Math.sqrt(this.squaredWeights * fraction * (1 - fraction));
+  }
+
+  /**
+   * Get the mean value of a histogram, the average of the values of every pixel.
+   * @param channel - the histogram, RED to VALUE
+   * @return the mean, 0 for an empty image
+   * @throws IllegalArgumentException - invalid channel
+   */
+  public double getMean(int channel) throws IllegalArgumentException {
+    counts(channel);
+    return this.mean[channel];
+  }
+
+  /**
+   * Get the lowest value of a histogram that a pixel has.
+   * @param channel - the histogram, RED to VALUE
+   * @return the lowest value, -1 for an empty image
+   * @throws IllegalArgumentException - invalid channel
+   */
+  public int getLowest(int channel) throws IllegalArgumentException {
+    counts(channel);
+    return this.lowest[channel];
+  }
+
+  /**
+   * Get the highest value of a histogram that a pixel has.
+   * @param channel - the histogram, RED to VALUE
+   * @return the highest value, -1 for an empty image
+   * @throws IllegalArgumentException - invalid channel
+   */
+  public int getHighest(int channel) throws IllegalArgumentException {
+    counts(channel);
+    return this.highest[channel];
+  }
+
+  /**
+   * Get a percentile of a histogram, the lowest value that at least the given fraction of the
+   * pixels are at or below. A fraction of 0.5 is the median.
+   * @param channel - the histogram, RED to VALUE
+   * @param fraction - fraction of the pixels, 0 to 1
+   * @return the value, -1 for an empty image
+   * @throws IllegalArgumentException - invalid channel or fraction
+   */
+  public int getPercentile(int channel, double fraction) throws IllegalArgumentException {
+    int[] hist = counts(channel);
+    if (!(fraction >= 0 && fraction <= 1)) {
+      throw new IllegalArgumentException("Invalid percentile");
+    }
+    if (this.total == 0) {
+      return -1;
+    }
+    double rank = Math.max(1, Math.ceil(fraction * this.total));
+    long seen = 0;
+    for (int v = 0; v < BINS; v++) {
+      seen += hist[v];
+      if (seen >= rank) {
+        return v;
+      }
+    }
+    return this.highest[channel];
+  }
+
+  /**
+   * Get the frequencies of a histogram, checking the channel.
+   * @param channel - the histogram, RED to VALUE
+   * @return the frequencies, not copied
+   * @throws IllegalArgumentException - invalid channel
+   */
+  private int[] counts(int channel) throws IllegalArgumentException {
+    if (channel < 0 || channel >= CHANNELS) {
+      throw new IllegalArgumentException("Invalid histogram channel");
+    }
+    return this.counts[channel];
+  }
+
+  /**
+   * Count a band of rows of an 8-bit image, read as packed pixels. The luma of a row is computed
+   * at once by the transformation, into a copy of the row.
+   * @param image - the image being counted
+   * @param start - first row of the band
+   * @param end - row after the last row of the band
+   * @param counts - frequencies of the band
+   */
+  private static void countRgb(AbstractRgbImage image, int start, int end, int[][] counts) {
+    int width = image.getWidth();
+    int[] row = new int[width];
+    int[] luma = new int[width];
+    int[] red = counts[RED];
+    int[] green = counts[GREEN];
+    int[] blue = counts[BLUE];
+    int[] intensity = counts[INTENSITY];
+    int[] value = counts[VALUE];
+    for (int i = start; i < end; i++) {
+      image.readRGB(i, row);
+      for (int j = 0; j < width; j++) {
+        int rgb = row[j];
+        int r = AbstractRgbImage.red(rgb);
+        int g = AbstractRgbImage.green(rgb);
+        int b = AbstractRgbImage.blue(rgb);
+        red[r]++;
+        green[g]++;
+        blue[b]++;
+        intensity[(r + g + b) / 3]++;
+        value[Math.max(r, Math.max(g, b))]++;
+      }
+      System.arraycopy(row, 0, luma, 0, width);
+      LUMA_TRANSFORM.applyPacked(luma, width, 255);
+      for (int j = 0; j < width; j++) {
+        counts[LUMA][luma[j] & 0xff]++;
+      }
+    }
+  }
+
+  /**
+   * Count a band of rows of any image, read as 3 ints per pixel.
+   * @param image - the image being counted
+   * @param start - first row of the band
+   * @param end - row after the last row of the band
+   * @param counts - frequencies of the band
+   */
+  private static void countRows(Image image, int start, int end, int[][] counts) {
+    int[] row = new int[3 * image.getWidth()];
+    int[] pixel = new int[3];
+    int[] luma = new int[3];
+    long[][] pixelCounts = new long[CHANNELS][BINS];
+    for (int i = start; i < end; i++) {
+      image.readRow(i, row);
+      for (int j = 0; j < row.length; j += 3) {
+        System.arraycopy(row, j, pixel, 0, 3);
+        countPixel(pixel, luma, 1, pixelCounts);
+      }
+    }
+    for (int channel = 0; channel < CHANNELS; channel++) {
+      for (int v = 0; v < BINS; v++) {
+        counts[channel][v] += (int) pixelCounts[channel][v];
+      }
+    }
+  }
+
+  /**
+   * Add a pixel of any image to every histogram.
+   * @param pixel - the pixel, 3 ints
+   * @param luma - scratch array of 3 ints the luma is computed into
+   * @param weight - number of pixels the pixel is counted for
+   * @param counts - frequencies being added to
+   */
+  private static void countPixel(int[] pixel, int[] luma, long weight, long[][] counts) {
+    int r = pixel[0];
+    int g = pixel[1];
+    int b = pixel[2];
+    counts[RED][bin(r)] += weight;
+    counts[GREEN][bin(g)] += weight;
+    counts[BLUE][bin(b)] += weight;
+    counts[INTENSITY][bin((int) (((long) r + g + b) / 3))] += weight;
+    counts[LUMA][bin(LUMA_TRANSFORM.edit(pixel, luma)[0])] += weight;
+    counts[VALUE][bin(Math.max(r, Math.max(g, b)))] += weight;
+  }
+
+  /**
+   * Get the bin a value is counted in, values above 255 in the last one.
+   * @param value - the value
+   * @return the bin, 0 to 255
+   */
+  private static int bin(int value) {
+    return Math.max(0, Math.min(BINS - 1, value));
+  }
+}
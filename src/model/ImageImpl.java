@@ -126,4 +126,63 @@ public class ImageImpl implements Image {
     }
     return copy;
   }
+
+  @Override
+  public void readRow(int r, int[] dst) throws IllegalStateException, IllegalArgumentException {
+    readRegion(0, r, this.width, 1, dst);
+  }
+
+  @Override
+  public void readRegion(int x, int y, int width, int height, int[] dst)
+      throws IllegalStateException, IllegalArgumentException {
+    if (x < 0 || y < 0 || width < 0 || height < 0 || (long) x + width > this.width
+        || (long) y + height > this.height) {
+      throw new IllegalStateException("Invalid pixel request.");
+    }
+    if (dst == null || dst.length < 3L * width * height) {
+      throw new IllegalArgumentException("Array too small for " + width + "x" + height);
+    }
+    int index = 0;
+    for (int i = y; i < y + height; i++) {
+      int[][] row = this.image[i];
+      for (int j = x; j < x + width; j++) {
+        int[] pixel = row[j];
+        dst[index++] = pixel[0];
+        dst[index++] = pixel[1];
+        dst[index++] = pixel[2];
+      }
+    }
+  }
+
+  /**
+   * Write a whole row of the image. The channels are copied into the pixel arrays of this image,
+   * so the pixel array given to the constructor must not be shared with another image. CHANGE:
+   * the row is rejected if a channel is outside 0 to the max value, like in every other image.
+   * @param r - row being written
+   * @param src - array of at least 3 * width ints
+   * @throws IllegalStateException - row is outside the image
+   * @throws IllegalArgumentException - src is null or too short, or a channel is out of range
+   */
+  @Override
+  public void writeRow(int r, int[] src) throws IllegalStateException, IllegalArgumentException {
+    if (r < 0 || r >= this.height) {
+      throw new IllegalStateException("Invalid pixel request.");
+    }
+    if (src == null || src.length < 3 * this.width) {
+      throw new IllegalArgumentException("Array too small for a row of " + this.width);
+    }
+    for (int k = 0; k < 3 * this.width; k++) {
+      if (src[k] < 0 || src[k] > this.max) {
+        throw new IllegalArgumentException("Channel " + src[k] + " is not between 0 and "
+            + this.max);
+      }
+    }
+    int[][] row = this.image[r];
+    for (int j = 0; j < this.width; j++) {
+      int[] pixel = row[j];
+      pixel[0] = src[3 * j];
+      pixel[1] = src[3 * j + 1];
+      pixel[2] = src[3 * j + 2];
+    }
+  }
 }
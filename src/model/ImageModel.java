@@ -43,6 +43,18 @@ public interface ImageModel {
    */
   void flip(String filename, String newName, boolean axis);
 
+  /**
+   * Rotate an image clockwise by a multiple of 90 degrees and add the rotated image to the photo
+   * map as the "newName" string. An image with a max value of at most 255 is rotated as a view of
+   * the original image, its pixels are only copied once an operation needs its rows.
+   *
+   * @param filename - name of the image being rotated
+   * @param newName - name of the rotated image
+   * @param degrees - clockwise rotation, may be negative
+   * @throws IllegalArgumentException - degrees is not a multiple of 90
+   */
+  void rotate(String filename, String newName, int degrees) throws IllegalArgumentException;
+
 
   /**
    * Is the map of images in the model empty.
@@ -93,6 +105,61 @@ public interface ImageModel {
    */
   void brightness(String filename, String newName, int adjustment);
 
+  /**
+   * Crop a rectangle out of an image and add it to the model map as "newName". An image with a max
+   * value of at most 255 is cropped as a view of the original image that does not copy any pixels.
+   * @param filename - name of the image being cropped
+   * @param newName - name of the cropped image
+   * @param x - column the rectangle starts at
+   * @param y - row the rectangle starts at
+   * @param width - width of the rectangle
+   * @param height - height of the rectangle
+   * @throws IllegalArgumentException - the rectangle is empty or not inside the image
+   * @throws IllegalStateException - there is no image with that filename
+   */
+  void crop(String filename, String newName, int x, int y, int width, int height)
+      throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * ADDITION: equalize the histogram of each channel of an image and add the result to the model
+   * map as "newName", spreading the values of each channel evenly from 0 to the max value. The
+   * image is counted once and then every pixel is run through a lookup table built from the
+   * counts.
+   * @param filename - name of the image being equalized
+   * @param newName - name of the equalized image
+   * @throws IllegalStateException - there is no image with that filename
+   * @throws IllegalArgumentException - the max value of the image is above 65535
+   */
+  void equalize(String filename, String newName)
+      throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * ADDITION: stretch each channel of an image so its lowest value becomes 0 and its highest value
+   * becomes the max value, and add the result to the model map as "newName".
+   * @param filename - name of the image being adjusted
+   * @param newName - name of the adjusted image
+   * @throws IllegalStateException - there is no image with that filename
+   * @throws IllegalArgumentException - the max value of the image is above 65535
+   */
+  void autoLevels(String filename, String newName)
+      throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * ADDITION: stretch the contrast of an image so the values at the low and high percentiles of
+   * its channels counted together become 0 and the max value, and add the result to the model map
+   * as "newName". Every channel is stretched the same way.
+   * @param filename - name of the image being stretched
+   * @param newName - name of the stretched image
+   * @param low - percentage of the values that become 0, at least 0
+   * @param high - percentage of the values at or below the value that becomes the max value, above
+   *             low and at most 100
+   * @throws IllegalStateException - there is no image with that filename
+   * @throws IllegalArgumentException - invalid percentages, or the max value of the image is above
+   *                                  65535
+   */
+  void contrastStretch(String filename, String newName, double low, double high)
+      throws IllegalStateException, IllegalArgumentException;
+
   /**
    * Add an image to the model's map of images. Add will take a filename and array of ints that
    * represent the photo.
@@ -101,6 +168,13 @@ public interface ImageModel {
    */
   void addImage(String filename, String array);
 
+  /**
+   * Remove an image from the model's map of images. Does nothing if there is no image with that
+   * name.
+   * @param filename - the name of the image
+   */
+  void removeImage(String filename);
+
   /**
    * Get the pixel array of an image from the model map, when given a string representing the
    * filename.
@@ -127,6 +201,46 @@ public interface ImageModel {
    */
   Map<Integer, Integer> getHistData(String filename, Histogram type);
 
+  /**
+   * ADDITION: get the red, green, blue, intensity, luma and value histograms of an image, counted
+   * together in one pass over the image into arrays of ints, with the largest frequency of each
+   * histogram and the number of pixels. getHistData() is built from these for the types they
+   * cover. An implementation may keep the histograms of an image and return them again for as
+   * long as the same image is stored under the name.
+   * @param filename - name of file
+   * @return the histograms of the image
+   * @throws IllegalStateException - no image with that name
+   */
+  ImageHistogram getHistogram(String filename) throws IllegalStateException;
+
+  /**
+   * ADDITION: get the histograms of an image estimated from at most budget of its pixels, sampled
+   * evenly over the image (see ImageHistogram.sample()), with the standard error of each count. An
+   * image with no more pixels than the budget is counted exactly. This is much faster for very
+   * large images when an estimate is enough, like for drawing the histograms.
+   * @param filename - name of file
+   * @param budget - largest number of pixels read, at least 1
+   * @return the estimated histograms of the image
+   * @throws IllegalStateException - no image with that name
+   * @throws IllegalArgumentException - budget less than 1
+   */
+  ImageHistogram getHistogram(String filename, long budget)
+      throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * ADDITION: get the image histogram data of an image with a certain histogram type like
+   * getHistData(filename, type), with the frequencies estimated from at most budget pixels of the
+   * image for the types getHistogram() counts. The standard error of each frequency is given by
+   * getHistogram(filename, budget).
+   * @param filename - name of file
+   * @param type - type of histogram
+   * @param budget - largest number of pixels read, at least 1
+   * @return Frequency distribution map
+   * @throws IllegalArgumentException - budget less than 1
+   */
+  Map<Integer, Integer> getHistData(String filename, Histogram type, long budget)
+      throws IllegalArgumentException;
+
 
   /**
    * Return an array of the image filenames in the model.
@@ -1,12 +1,16 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import java.util.TreeMap;
 import model.filter.Filter;
+import model.transform.AbstractTransform;
 import model.transform.Histogram;
+import model.transform.LookupTable;
 import model.transform.Transform;
 
 /**
@@ -20,6 +24,11 @@ import model.transform.Transform;
  * ADDITION: checkMax is a private helper method made to make sure that RGB values stay between 0
  * and the max of an image.
  * </p>
+ * <p>
+ * CHANGE: checkMax() was replaced by clamp(), which clamps one channel at a time. Every operation
+ * now reads its image with readRow() into a reused array and writes its result with writeRow(),
+ * instead of calling getPixel() or getImage() for every pixel.
+ * </p>
  *<p>
  * ADDITION: Added a method called filter() that will apply a filter object to an image.
  *</p>
@@ -38,6 +47,29 @@ import model.transform.Transform;
  * histogram of the image pixel color frequencies in the GUI. getImages() primary usage is in the
  * dropdown menu of available images in the model in the GUI.
  * </p>
+ * <p>
+ * ADDITION: images with a max value of at most 255 are stored as an AbstractRgbImage (packed,
+ * planar, off-heap or tiled storage). flip, transform, filter, brightness and getHistData read
+ * and write those images a row of packed pixels at a time, and the images they create use the
+ * same storage as the image they were made from. Greyscales of a single channel of a PlanarImage
+ * only touch that channel's plane. Since rows are visited from top to bottom, a
+ * TiledImage is walked one tile at a time. flip, rotate and crop of those images create views
+ * (OrientedImage, RegionImage) of the original storage instead of copies. transform, filter and
+ * brightness run on bands of rows in parallel through a BandExecutor once an image is large enough.
+ * filter hands the whole image to the filter's apply(), which for a kernel is one Convolution.
+ * brightness and transformations that are point operations are compiled into a LookupTable and
+ * run without calling edit() or clamping for each pixel. On 8-bit images they make a PointImage
+ * view, so a chain of them is fused and runs as one pass when its last image is read.
+ * </p>
+ * <p>
+ * ADDITION: getHistogram() counts every histogram of an image into arrays of ints in one pass (see
+ * ImageHistogram), and getHistData() is the map of one of them. The histograms and statistics of
+ * an image are kept by the identity of the image, so asking again, like every repaint of the
+ * view, does not read the image again. Images in the map are never changed in place, so the
+ * histograms stay valid until their image is no longer stored under any name, when overwriting
+ * or removing its last name drops them. Histograms sampled from an image with a budget are kept
+ * the same way, until the exact histograms or a larger sample are asked for.
+ * </p>
  */
 public class ImageModelImpl implements ImageModel {
 
@@ -45,10 +77,29 @@ public class ImageModelImpl implements ImageModel {
    * Images will hold the photo objects that have been uploaded and saved by the user. The string
    * will represent the filename and Image object contains the actual contents of the image. Make
    * images field private and final because we will need to reassign image pointers.
-   *
+   * ADDITION: the map is synchronized, so the view can read it on the event thread while a
+   * command of the GUI runs on a background thread.
    */
   private final Map<String, Image> images;
 
+  /**
+   * ADDITION: storage used for the pixels of images with a max value of at most 255 that are
+   * loaded into this model. Set to private and final to avoid outside access and reassignment.
+   */
+  private final ImageStorage storage;
+
+  /**
+   * ADDITION: runs transform and brightness on bands of rows in parallel for large images. Set to
+   * private and final to avoid outside access and reassignment.
+   */
+  private final BandExecutor executor;
+
+  /**
+   * ADDITION: histograms already counted, by the identity of the image they were counted for,
+   * synchronized like the images. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final Map<Image, ImageHistogram> histograms;
 
   /**
    * Construct an implementation of this class. Will receive a filename as a string. The constructor
@@ -59,20 +110,67 @@ public class ImageModelImpl implements ImageModel {
    * @throws IllegalArgumentException - cannot construct image
    */
   public ImageModelImpl(String path, String filename) throws IllegalArgumentException {
+    this(path, filename, ImageStorage.PLANAR);
+  }
 
-    this.images = new HashMap<>();
-    this.images.put(filename, ImageUtil.readImage(path, filename));
+  /**
+   * ADDITION: Construct an implementation of this class like ImageModelImpl(path, filename), with
+   * images of a max value of at most 255 stored in the given storage.
+   *
+   * @param path     - the filename/path
+   * @param filename - the name of the image in the model
+   * @param storage  - how the pixels of images are stored
+   * @throws IllegalArgumentException - cannot construct image, or null storage
+   */
+  public ImageModelImpl(String path, String filename, ImageStorage storage)
+      throws IllegalArgumentException {
+    this(storage);
+    this.images.put(filename, ImageUtil.readImage(path, filename, this.storage));
   }
 
   /**
    * An empty constructor used to start the controller when no images have been loaded yet.
    */
   public ImageModelImpl() {
-    this.images = new HashMap<>();
+    this(ImageStorage.PLANAR);
+  }
+
+  /**
+   * ADDITION: An empty constructor that loads images with a max value of at most 255 into the
+   * given storage, for example OFF_HEAP for batch jobs holding many large images at once.
+   *
+   * @param storage - how the pixels of loaded images are stored
+   * @throws IllegalArgumentException - null storage
+   */
+  public ImageModelImpl(ImageStorage storage) throws IllegalArgumentException {
+    this(storage, new BandExecutor());
+  }
+
+  /**
+   * ADDITION: An empty constructor that loads images into the given storage and runs operations
+   * on large images with the given executor, for example new BandExecutor(32) to use every core
+   * of a render host, or new BandExecutor(1) to always run serially.
+   *
+   * @param storage  - how the pixels of loaded images are stored
+   * @param executor - runs operations on bands of rows
+   * @throws IllegalArgumentException - null input
+   */
+  public ImageModelImpl(ImageStorage storage, BandExecutor executor)
+      throws IllegalArgumentException {
+    if (storage == null || executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    this.images = Collections.synchronizedMap(new HashMap<>());
+    this.storage = storage;
+    this.executor = executor;
+    this.histograms = Collections.synchronizedMap(new IdentityHashMap<>());
   }
 
   public ImageModelImpl(Image image) {
-    this.images = new HashMap<>();
+    this.images = Collections.synchronizedMap(new HashMap<>());
+    this.storage = ImageStorage.PLANAR;
+    this.executor = new BandExecutor();
+    this.histograms = Collections.synchronizedMap(new IdentityHashMap<>());
     this.images.put(image.getFilename(), image);
   }
 
@@ -81,25 +179,42 @@ public class ImageModelImpl implements ImageModel {
     // boolean parameter: false = horizontal, true = vertical
 
     Image img = images.get(filename);
-    // temp represents essentially an empty image that will be filled in and returned as flipped
-    // image at end of method. Size is set to the
-    int[][][] temp = new int[img.getHeight()][img.getWidth()][3];
-
-    // double for loop to iterate through image
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {
-        if (axis) { // if vertical flip
-          temp[i][img.getWidth() - j - 1] = img.getPixel(i, j);
-        } else { // if horizontal flip
-          temp[img.getHeight() - i - 1][j] = img.getPixel(i, j);
+    if (img instanceof AbstractRgbImage) { // a view that remaps coordinates, nothing is copied
+      store(newName, new OrientedImage(newName, (AbstractRgbImage) img, axis));
+      return;
+    }
+    // flipped is essentially an empty image that will be filled in a row at a time and stored as
+    // the flipped image at end of method.
+    int height = img.getHeight();
+    int width = img.getWidth();
+    ImageImpl flipped = new ImageImpl(newName, new int[height][width][3], img.getMaxValue());
+    int[] row = new int[3 * width];
+
+    for (int i = 0; i < height; i++) {
+      img.readRow(i, row);
+      if (axis) { // if vertical flip, reverse the pixels of the row
+        for (int j = 0; j < width / 2; j++) {
+          int mirror = width - j - 1;
+          for (int k = 0; k < 3; k++) {
+            int temp = row[3 * j + k];
+            row[3 * j + k] = row[3 * mirror + k];
+            row[3 * mirror + k] = temp;
+          }
         }
+        flipped.writeRow(i, row);
+      } else { // if horizontal flip, move the whole row to the mirrored row
+        flipped.writeRow(height - i - 1, row);
       }
     }
 
-    // put the temp as a new PPM image in the images map.
-    // use the newName as the file name, temp as the pixel array, and then the max value
-    // from the img as the new max value.
-    this.images.put(newName, new ImageImpl(newName, temp));
+    // put the flipped image in the images map.
+    store(newName, flipped);
+  }
+
+  @Override
+  public void rotate(String filename, String newName, int degrees)
+      throws IllegalArgumentException {
+    store(newName, OrientedImage.rotated(newName, images.get(filename), degrees));
   }
 
   @Override
@@ -123,35 +238,64 @@ public class ImageModelImpl implements ImageModel {
     // temp represents essentially an empty image that will be filled in and returned as flipped
     // image at end of method.
     Image img = images.get(filename);
-
-    int[][][] temp = new int[img.getHeight()][img.getWidth()][3];
-    int[] current;
-
-    // iterate through image using nested for loop
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {
-        current = img.getPixel(i, j);// current pixel
-        // call edit on the option type and it will delegate
-        temp[i][j] = checkMax(filename, option.edit(current));
+    if (img instanceof PlanarImage && option instanceof AbstractTransform) {
+      int channel = ((AbstractTransform) option).getChannel();
+      if (channel >= 0) {
+        store(newName, ((PlanarImage) img).greyscale(newName, channel));
+        return;
       }
     }
-    this.images.put(newName, new ImageImpl(newName, temp));
+    LookupTable table = img.getMaxValue() <= LookupTable.MAX_TABLE_VALUE
+        ? LookupTable.of(option, img.getMaxValue()) : null;
+    if (img instanceof AbstractRgbImage && (table != null || option instanceof AbstractTransform)) {
+      // a point operation, chained onto the image and fused with the operations before it
+      store(newName, new PointImage(newName, (AbstractRgbImage) img,
+          table != null ? table : option, this.executor));
+      return;
+    }
+    if (table != null) { // a point operation, compiled into tables once
+      store(newName, lookUp(img, newName, table));
+      return;
+    }
+    if (img instanceof AbstractRgbImage) {
+      store(newName, transformRgb((AbstractRgbImage) img, newName, option));
+      return;
+    }
+
+    int max = img.getMaxValue();
+    int width = img.getWidth();
+    ImageImpl transformed = new ImageImpl(newName, new int[img.getHeight()][width][3], max);
+
+    // iterate through a band of the image a row at a time
+    RowBand band = (start, end) -> {
+      int[] row = new int[3 * width];
+      int[] current = new int[3];
+      for (int i = start; i < end; i++) {
+        img.readRow(i, row);
+        for (int j = 0; j < width; j++) {
+          System.arraycopy(row, 3 * j, current, 0, 3); // current pixel
+          // call edit on the option type and it will delegate, into current for a matrix
+          int[] edited = option instanceof AbstractTransform
+              ? ((AbstractTransform) option).edit(current, current) : option.edit(current);
+          for (int k = 0; k < 3; k++) {
+            row[3 * j + k] = clamp(edited[k], max);
+          }
+        }
+        transformed.writeRow(i, row);
+      }
+    };
+    runBands(img, option, band);
+    store(newName, transformed);
   }
 
   @Override
   public void filter(String filename, String newName, Filter option) {
     Image img = images.get(filename);
-    int[][][] temp = new int[img.getHeight()][img.getWidth()][3];
-
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {            // for each pixel in the image
-        temp[i][j] = checkMax(filename, option.edit(i, j, img.getImage()));     // apply the filter
-        System.out.println("infant loop?");
-        System.out.println(i);
-        System.out.println(j);
-      }
-    }
-    this.images.put(newName, new ImageImpl(newName, temp));
+    Image filtered = img instanceof AbstractRgbImage ? ((AbstractRgbImage) img).blank(newName)
+        : new ImageImpl(newName, new int[img.getHeight()][img.getWidth()][3],
+            img.getMaxValue());
+    option.apply(img, filtered, this.executor); // filters the whole image in one pass
+    store(newName, filtered);
   }
 
   @Override
@@ -159,42 +303,203 @@ public class ImageModelImpl implements ImageModel {
     // temp represents essentially an empty image that will be filled in and returned as flipped
     // image at end of method.
     Image img = images.get(filename);
+    if (img.getMaxValue() <= LookupTable.MAX_TABLE_VALUE) { // the clamp is baked into the table
+      LookupTable table = new LookupTable(img.getMaxValue(), v -> v + adjustment);
+      store(newName, img instanceof AbstractRgbImage
+          ? new PointImage(newName, (AbstractRgbImage) img, table, this.executor)
+          : lookUp(img, newName, table));
+      return;
+    }
 
-    int[][][] temp = new int[img.getHeight()][img.getWidth()][3];
+    int max = img.getMaxValue();
+    int width = img.getWidth();
+    ImageImpl adjusted = new ImageImpl(newName, new int[img.getHeight()][width][3], max);
+
+    // iterate through a band of the image a row at a time
+    this.executor.run(width, img.getHeight(), (start, end) -> {
+      int[] row = new int[3 * width];
+      for (int i = start; i < end; i++) {
+        img.readRow(i, row);
+        // alter each channel by the given adjustment and keep it between 0 and max
+        for (int k = 0; k < row.length; k++) {
+          row[k] = clamp(row[k] + adjustment, max);
+        }
+        adjusted.writeRow(i, row);
+      }
+    });
 
-    // nested for loop to iterate through image
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {
+    // image gets overwritten to the new adjusted image
+    store(newName, adjusted);
+  }
 
-        // alter each pixel value by the given adjustment and call checkMax on the new pixel
-        temp[i][j] = checkMax(filename,
-            new int[]{img.getPixel(i, j)[0] + adjustment,
-                img.getPixel(i, j)[1] + adjustment,
-                img.getPixel(i, j)[2] + adjustment});
-      }
+  @Override
+  public void equalize(String filename, String newName)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = histogramImage(filename);
+    storeLookUp(img, newName,
+        LookupTable.equalize(channelCounts(filename, img), img.getMaxValue()));
+  }
+
+  @Override
+  public void autoLevels(String filename, String newName)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = histogramImage(filename);
+    storeLookUp(img, newName,
+        LookupTable.autoLevels(channelCounts(filename, img), img.getMaxValue()));
+  }
+
+  @Override
+  public void contrastStretch(String filename, String newName, double low, double high)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = histogramImage(filename);
+    if (!(low >= 0 && low < high && high <= 100)) { // checked before the image is counted
+      throw new IllegalArgumentException("Invalid percentiles: " + low + " " + high);
     }
+    storeLookUp(img, newName, LookupTable.contrastStretch(channelCounts(filename, img),
+        img.getMaxValue(), low, high));
+  }
 
-    // image gets overwritten to the new adjusted image
-    this.images.put(newName, new ImageImpl(newName, temp));
+  /**
+   * Get an image a histogram-driven operation runs on, checking its values fit a lookup table.
+   *
+   * @param filename - name of the image
+   * @return the image
+   * @throws IllegalStateException    - no image with that name
+   * @throws IllegalArgumentException - max value above LookupTable.MAX_TABLE_VALUE
+   */
+  private Image histogramImage(String filename)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = this.images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("No Images Found in Map");
+    }
+    if (img.getMaxValue() > LookupTable.MAX_TABLE_VALUE) {
+      throw new IllegalArgumentException("Max value too large: " + img.getMaxValue());
+    }
+    return img;
+  }
+
+  /**
+   * Count the red, green and blue channels of an image. An image with a max value of at most 255
+   * reuses its cached histograms, so operating on an image whose histogram is shown reads it only
+   * once more, to look it up.
+   *
+   * @param filename - name of the image
+   * @param img      - the image
+   * @return frequency of each value of the red, green and blue channels
+   */
+  private int[][] channelCounts(String filename, Image img) {
+    if (img.getMaxValue() < ImageHistogram.BINS) {
+      ImageHistogram histogram = getHistogram(filename);
+      return new int[][]{histogram.getCounts(ImageHistogram.RED),
+          histogram.getCounts(ImageHistogram.GREEN), histogram.getCounts(ImageHistogram.BLUE)};
+    }
+    return ImageHistogram.countChannels(img, this.executor);
+  }
+
+  /**
+   * Run every pixel of an image through a lookup table and store the result: a PointImage
+   * streamed from the 8-bit image, or a new image for any other image.
+   *
+   * @param img     - the image being operated on
+   * @param newName - name of the new image
+   * @param table   - the lookup table
+   */
+  private void storeLookUp(Image img, String newName, LookupTable table) {
+    store(newName, img instanceof AbstractRgbImage
+        ? new PointImage(newName, (AbstractRgbImage) img, table, this.executor)
+        : lookUp(img, newName, table));
+  }
+
+  /**
+   * Apply a transformation that mixes channels to every pixel of an 8-bit image. Pixels are
+   * unpacked into one scratch array that is reused for each band.
+   *
+   * @param img     - the image being transformed
+   * @param newName - name of the new image
+   * @param option  - the transformation
+   * @return the transformed image
+   */
+  private AbstractRgbImage transformRgb(AbstractRgbImage img, String newName, Transform option) {
+    int max = img.getMaxValue();
+    AbstractRgbImage transformed = img.blank(newName);
+
+    RowBand band = (start, end) -> {
+      int[] row = new int[img.getWidth()];
+      int[] current = new int[3];
+      for (int i = start; i < end; i++) {
+        img.readRGB(i, row);
+        for (int j = 0; j < row.length; j++) {
+          int rgb = row[j];
+          current[0] = AbstractRgbImage.red(rgb);
+          current[1] = AbstractRgbImage.green(rgb);
+          current[2] = AbstractRgbImage.blue(rgb);
+          int[] edited = option.edit(current);
+          row[j] = AbstractRgbImage.pack(clamp(edited[0], max), clamp(edited[1], max),
+              clamp(edited[2], max));
+        }
+        transformed.writeRGB(i, row);
+      }
+    };
+    runBands(img, option, band);
+    return transformed;
   }
 
   /**
-   * Check that the given pixel of a file adheres to its max pixel value and does not go below 0.
+   * Run every pixel of an image that is not 8-bit through a compiled point operation, in bands of
+   * rows of 3 ints per pixel. 8-bit images get a PointImage instead.
    *
-   * @param filename - the image being references
-   * @param pixel    - the pixel
-   * @return - a new pixel based on adhering to max and min pixel rules (0 < pixel channel < max)
+   * @param img     - the image being operated on
+   * @param newName - name of the new image
+   * @param table   - the compiled point operation
+   * @return the new image
    */
-  private int[] checkMax(String filename, int[] pixel) {
-    int max = getMax(filename);
-    for (int i = 0; i < 3; i++) {
-      if (pixel[i] > max) {
-        pixel[i] = max;
-      } else if (pixel[i] < 0) {
-        pixel[i] = 0;
+  private Image lookUp(Image img, String newName, LookupTable table) {
+    int width = img.getWidth();
+    ImageImpl result = new ImageImpl(newName, new int[img.getHeight()][width][3],
+        img.getMaxValue());
+    this.executor.run(width, img.getHeight(), (start, end) -> {
+      int[] row = new int[3 * width];
+      for (int i = start; i < end; i++) {
+        img.readRow(i, row);
+        table.applyInterleaved(row, width);
+        result.writeRow(i, row);
       }
+    });
+    return result;
+  }
+
+  /**
+   * Run the bands of a transformation with the executor. Only the transformations of this program
+   * (AbstractTransform) are known to keep no state between pixels, so any other Transform runs
+   * serially in one band.
+   *
+   * @param img    - the image being transformed
+   * @param option - the transformation
+   * @param band   - the work for a band of rows
+   */
+  private void runBands(Image img, Transform option, RowBand band) {
+    if (option instanceof AbstractTransform) {
+      this.executor.run(img.getWidth(), img.getHeight(), band);
+    } else {
+      band.apply(0, img.getHeight());
     }
-    return pixel;
+  }
+
+  /**
+   * Keep a single channel value between 0 and the max value of the image it came from.
+   *
+   * @param value - channel value
+   * @param max   - max value of the image
+   * @return the value clamped to 0 and max
+   */
+  private static int clamp(int value, int max) {
+    if (value > max) {
+      return max;
+    } else if (value < 0) {
+      return 0;
+    }
+    return value;
   }
 
   @Override
@@ -202,6 +507,16 @@ public class ImageModelImpl implements ImageModel {
     return images.isEmpty();
   }
 
+  @Override
+  public void crop(String filename, String newName, int x, int y, int width, int height)
+      throws IllegalArgumentException, IllegalStateException {
+    Image img = images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("Cannot find image.");
+    }
+    store(newName, RegionImage.cropped(newName, img, x, y, width, height));
+  }
+
   /**
    * Add an image to our images list.
    *
@@ -210,8 +525,87 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public void addImage(String path, String filename) {
-    this.images.put(filename, ImageUtil.readImage(path, filename));
+    store(filename, ImageUtil.readImage(path, filename, this.storage));
+
+  }
+
+  @Override
+  public void removeImage(String filename) {
+    Image removed = this.images.remove(filename);
+    release(removed);
+  }
+
+  /**
+   * Put an image in the map under the given name. If that replaces another image, the replaced
+   * image is released so off-heap storage is freed right away, unless a region still uses it, and
+   * its histograms are dropped unless it is still stored under another name.
+   * ADDITION: on a thread that set a Progress, like a command of the GUI, a lazy view is
+   * materialized before it is stored. The view is about to be shown, so its pixels are computed
+   * on that thread where they are reported, and a cancelled command stores nothing.
+   *
+   * @param filename - the name of the image
+   * @param image    - the image being stored
+   */
+  private void store(String filename, Image image) {
+    if (image instanceof AbstractRgbImage && BandExecutor.hasProgress()) {
+      ((AbstractRgbImage) image).materialize();
+    }
+    Image replaced = this.images.put(filename, image);
+    if (replaced != image) {
+      release(replaced);
+    }
+  }
+
+  /**
+   * Release the storage of an image that was taken out of the map, unless it is still stored
+   * under another name or a region in the map still reads from it. Releasing a region also
+   * releases the image it was cropped from, if that image is no longer used either. The histograms
+   * of an image no longer stored under any name are dropped.
+   *
+   * @param image - the image taken out of the map, may be null
+   */
+  private void release(Image image) {
+    if (image != null && !isStored(image)) {
+      this.histograms.remove(image);
+    }
+    while (image instanceof AbstractRgbImage && !inUse((AbstractRgbImage) image)) {
+      ((AbstractRgbImage) image).release();
+      image = ((AbstractRgbImage) image).source();
+    }
+  }
+
+  /**
+   * Is an image stored in the map under any name.
+   *
+   * @param image - the image being checked
+   * @return true if the very same image is in the map
+   */
+  private boolean isStored(Image image) {
+    synchronized (this.images) {
+      for (Image stored : this.images.values()) {
+        if (stored == image) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
 
+  /**
+   * Is the storage of an image used by any image in the map.
+   *
+   * @param image - the image being checked
+   * @return true if an image in the map is or is a view over the image
+   */
+  private boolean inUse(AbstractRgbImage image) {
+    synchronized (this.images) {
+      for (Image stored : this.images.values()) {
+        if (stored instanceof AbstractRgbImage && ((AbstractRgbImage) stored).uses(image)) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   @Override
@@ -253,35 +647,101 @@ public class ImageModelImpl implements ImageModel {
   @Override
   public  Map<Integer, Integer> getHistData(String filename, Histogram type) {
     Image img = images.get(filename);
-    Map<Integer, Integer> frequencyDistribution = new TreeMap<>(); // treemap -> distribution rep
-    int total = img.getHeight() * img.getWidth();
-    int max = 0;
+    int channel = ImageHistogram.channelOf(type);
+    return histData(img, channel >= 0 ? getHistogram(filename).getCounts(channel)
+        : countValues(img, type));
+  }
 
-    frequencyDistribution.put(-1, total);
-    for (int i = 0; i < 256; i++) {
-      frequencyDistribution.put(i, 0);
+  @Override
+  public Map<Integer, Integer> getHistData(String filename, Histogram type, long budget)
+      throws IllegalArgumentException {
+    Image img = images.get(filename);
+    int channel = ImageHistogram.channelOf(type);
+    return histData(img, channel >= 0 ? getHistogram(filename, budget).getCounts(channel)
+        : countValues(img, type));
+  }
+
+  @Override
+  public ImageHistogram getHistogram(String filename) throws IllegalStateException {
+    Image img = this.images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("No Images Found in Map");
+    }
+    ImageHistogram histogram = this.histograms.get(img);
+    if (histogram == null || !histogram.isExact()) {
+      histogram = ImageHistogram.of(img, this.executor);
+      this.histograms.put(img, histogram);
     }
+    return histogram;
+  }
 
-    // nested for loop to iterate through image
-    for (int i = 0; i < img.getHeight(); i++) {
-      for (int j = 0; j < img.getWidth(); j++) {
-        int pixelValue = type.value(img.getImage()[i][j]);
-        int newFrequency = frequencyDistribution.get(pixelValue) + 1;
-        frequencyDistribution.put(pixelValue, newFrequency);
-        if (newFrequency > max) {
-          max = newFrequency;
-        }
-      }
+  @Override
+  public ImageHistogram getHistogram(String filename, long budget)
+      throws IllegalStateException, IllegalArgumentException {
+    Image img = this.images.get(filename);
+    if (img == null) {
+      throw new IllegalStateException("No Images Found in Map");
     }
+    if (budget < 1) {
+      throw new IllegalArgumentException("Sample budget must be at least 1");
+    }
+    // an exact histogram, or one sampled with at least this budget, is as good
+    ImageHistogram histogram = this.histograms.get(img);
+    if (histogram == null || !histogram.isExact() && histogram.getBudget() < budget) {
+      histogram = ImageHistogram.sample(img, budget, this.executor);
+      this.histograms.put(img, histogram);
+    }
+    return histogram;
+  }
+
+  /**
+   * Make the frequency distribution map of getHistData(): the frequency of each value 0 to 255,
+   * with the number of pixels under -1 and the largest frequency under -2.
+   *
+   * @param img    - the image counted
+   * @param counts - frequency of each value 0 to 255
+   * @return Frequency distribution map
+   */
+  private static Map<Integer, Integer> histData(Image img, int[] counts) {
+    Map<Integer, Integer> frequencyDistribution = new TreeMap<>(); // treemap -> distribution rep
+    int max = 0;
 
+    frequencyDistribution.put(-1, img.getHeight() * img.getWidth());
+    for (int i = 0; i < counts.length; i++) {
+      frequencyDistribution.put(i, counts[i]);
+      max = Math.max(max, counts[i]);
+    }
     frequencyDistribution.put(-2, max);
 
     return frequencyDistribution;
   }
 
+  /**
+   * Count the values of a histogram type that ImageHistogram does not count, a row at a time.
+   * Values above 255 are counted as 255.
+   *
+   * @param img  - the image being counted
+   * @param type - type of histogram
+   * @return frequency of each value 0 to 255
+   */
+  private static int[] countValues(Image img, Histogram type) {
+    int[] counts = new int[ImageHistogram.BINS];
+    int[] row = new int[3 * img.getWidth()];
+    int[] current = new int[3];
+    for (int i = 0; i < img.getHeight(); i++) {
+      img.readRow(i, row);
+      for (int j = 0; j < row.length; j += 3) {
+        System.arraycopy(row, j, current, 0, 3);
+        counts[Math.max(0, Math.min(ImageHistogram.BINS - 1, type.value(current)))]++;
+      }
+    }
+    return counts;
+  }
+
   @Override
   public ArrayList<String> getImages() {
-    ArrayList<String> imageList = new ArrayList<>(this.images.keySet());
-    return imageList;
+    synchronized (this.images) {
+      return new ArrayList<>(this.images.keySet());
+    }
   }
 }
@@ -0,0 +1,87 @@
+package model;
+
+/**
+ * ADDITION: Enumeration of the ways the pixels of an image with a max value of at most 255 can be
+ * stored. ImageUtil creates the images it reads in the storage it is given, and the model creates
+ * the result of an operation in the same storage as the image it operates on.
+ * <p>
+ * PLANAR is the default, it takes the least memory (3 bytes per pixel) and lets single channel
+ * operations touch only one channel. PACKED keeps one 0xRRGGBB int per pixel, the layout
+ * BufferedImage uses. OFF_HEAP keeps packed pixels outside the Java heap, so many large images in
+ * one model do not cause long garbage collection pauses. TILED keeps packed pixels in a
+ * memory-mapped scratch file, for images larger than the heap. BUFFERED keeps packed pixels in
+ * the raster of a TYPE_INT_RGB BufferedImage, so they are saved and displayed without a copy.
+ * </p>
+ * <p>
+ * ImageUtil asks for the storage fitting an image before it reads it, which switches to TILED
+ * when the image would not fit the heap or a single array in the requested storage.
+ * </p>
+ */
+public enum ImageStorage {
+
+  PLANAR {
+    @Override
+    AbstractRgbImage create(String filename, int width, int height, int max) {
+      return new PlanarImage(filename, width, height, max);
+    }
+  },
+
+  PACKED {
+    @Override
+    AbstractRgbImage create(String filename, int width, int height, int max) {
+      return new PackedImage(filename, new int[width * height], width, height, max);
+    }
+  },
+
+  OFF_HEAP {
+    @Override
+    AbstractRgbImage create(String filename, int width, int height, int max) {
+      return new OffHeapImage(filename, width, height, max);
+    }
+  },
+
+  TILED {
+    @Override
+    AbstractRgbImage create(String filename, int width, int height, int max) {
+      return new TiledImage(filename, width, height, max);
+    }
+  },
+
+  BUFFERED {
+    @Override
+    AbstractRgbImage create(String filename, int width, int height, int max) {
+      return new BufferedRgbImage(filename, width, height, max);
+    }
+  };
+
+  /**
+   * Get the storage an image of the given size should be read into: this storage, or TILED when
+   * the pixels would not fit in one array or buffer, or would take more than half of the heap.
+   * @param width - width of the image
+   * @param height - height of the image
+   * @return this storage or TILED
+   */
+  public ImageStorage fitting(int width, int height) {
+    long pixels = (long) width * height;
+    if (this == TILED) {
+      return this;
+    }
+    if (pixels > Integer.MAX_VALUE / Integer.BYTES) {
+      return TILED;
+    }
+    if (this != OFF_HEAP && pixels * Integer.BYTES > Runtime.getRuntime().maxMemory() / 2) {
+      return TILED;
+    }
+    return this;
+  }
+
+  /**
+   * Create a new image in this storage with every pixel set to 0.
+   * @param filename - name of the image
+   * @param width - width of the image
+   * @param height - height of the image
+   * @param max - max value of a pixel channel, at most 255
+   * @return the blank image
+   */
+  abstract AbstractRgbImage create(String filename, int width, int height, int max);
+}
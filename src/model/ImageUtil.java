@@ -1,195 +1,492 @@
-package model;
-
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.Scanner;
-import java.io.FileNotFoundException;
-import java.io.FileInputStream;
-
-import javax.imageio.ImageIO;
-import javax.swing.ImageIcon;
-
-
-/**
- * This class contains utility methods to be used on images.
- */
-public class ImageUtil {
-
-  /**
-   * CHANGE: added readImage to support different image types in Java ImageIO library.
-   * readImage will take a path, which is the location of file in computer, and a filename, which
-   * will be the name of the file in the model map.
-   * @param path - location of image in computer
-   * @param filename - name of image to be stored in ImageModel implementation's map
-   * @return Image
-   * @throws RuntimeException - cannot read file using ImageIO
-   */
-  // NEW IMAGE UTILS
-  public static Image readImage(String path, String filename) {
-    File file = new File(path);
-    BufferedImage buff = null;
-    try {
-      buff = ImageIO.read(file);
-    } catch (IOException e) { // if imageIO cant read it, we will try to read as PPM, if that fails
-      // exception will be thrown
-      return readPPM(path, filename);
-    }
-
-    int width;
-    int height;
-    try {
-      width = buff.getWidth();
-      height = buff.getHeight();
-    } catch (NullPointerException e) { // try to read as PPM if exception caught
-      return readPPM(path, filename);
-    }
-
-    int[][][] arr = new int[height][width][3];
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int pixel = buff.getRGB(j, i);
-        int r = (pixel & 0xff0000) >> 16;
-        int g = (pixel & 0x00ff00) >> 8;
-        int b = pixel & 0x0000ff;
-        arr[i][j] = new int[]{r, g, b};
-      }
-    }
-    return new ImageImpl(filename, arr); // return new ImageImpl from filename and new array formed
-  }
-
-
-
-  /**
-   * read in a PPM image with a given path name and filename. path is the location of file in
-   * computer and filename is the name of the image to be stored in our map.
-   * @param path - location of image in computer
-   * @param filename - name of image to be stored in ImageModel implemenation's map
-   * @return Image - PPM format
-   * @throws IllegalArgumentException -if it is not a PPM file
-   */
-  public static Image readPPM(String path, String filename) throws IllegalArgumentException {
-    Scanner sc;
-
-    try {
-      sc = new Scanner(new FileInputStream(path));
-    } catch (FileNotFoundException e) {
-      System.out.println("File " + path + " not found!");
-      throw new IllegalArgumentException("File not found");
-    }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s).append(System.lineSeparator());
-      }
-    }
-
-    //now set up the scanner to read from the string we just built
-    sc = new Scanner(builder.toString());
-
-    String token;
-
-    token = sc.next();
-    if (!token.equals("P3")) {
-      throw new IllegalArgumentException("Invalid PPM file: plain RAW file should begin with P3");
-    }
-
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    int maxValue = sc.nextInt();
-
-    int[][][] arr = new int[height][width][3];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        arr[i][j] = new int[]{r, g, b};
-      }
-    }
-    return new ImageImpl(filename, arr, maxValue); // return new Image will be PPM format.
-  }
-
-  /**
-   * Save image takes a path (file location in computer) and image writes the file to a new file.
-   * @param path - file location in computer
-   * @param image - Image to be saved
-   * @throws RuntimeException - if cannot write image to file
-   */
-  public static void saveImage(String path, Image image) throws RuntimeException {
-    int height = image.getHeight();
-    int width = image.getWidth();
-    String type = path.substring(path.length() - 3, path.length());
-    if (type.equals("ppm")) {
-      try {
-        savePPM(path, image);
-        return;
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
-    }
-
-    File out = new File(path);
-    BufferedImage buff = new BufferedImage(width,
-        height,
-        BufferedImage.TYPE_INT_RGB);
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = image.getPixel(i, j)[0] << 16;
-        int g = image.getPixel(i, j)[1] << 8;
-        int b = image.getPixel(i, j)[2];
-        buff.setRGB(j, i, r + g + b);
-      }
-    }
-
-    try {
-      System.out.println(path + " " + image);
-      ImageIO.write(buff, type, out);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-
-  /**
-   * SavePPMimage takes a path (file location in computer) and image writes the file to a new file.
-   * @param path - file location in computer
-   * @param image - Image to be saved
-   * @throws IOException - if issues arise
-   */
-  public static void savePPM(String path, Image image)
-      throws IOException {
-    int imageHeight = image.getHeight();
-    int imageWidth = image.getWidth();
-    int max = image.getMaxValue();
-    FileOutputStream out = new FileOutputStream(path);
-    out.write(("P3" + System.lineSeparator()).getBytes());
-    out.write(("# Created by controller.PhotoProcessing" + System.lineSeparator()).getBytes());
-    out.write((imageWidth + " " + imageHeight + System.lineSeparator()).getBytes());
-    out.write((max + System.lineSeparator()).getBytes());
-    for (int i = 0; i < imageHeight; i++) {
-      for (int j = 0; j < imageWidth; j++) {
-        out.write((image.getPixel(i, j)[0] + System.lineSeparator()).getBytes());
-        out.write((image.getPixel(i, j)[1] + System.lineSeparator()).getBytes());
-        out.write((image.getPixel(i, j)[2] + System.lineSeparator()).getBytes());
-      }
-    }
-    out.close();
-  }
-
-  /**
-   * Display an image as ImageIcon to be showed in view when given an Image object.
-   * @param image - image to be displayed
-   * @return ImageIcon
-   */
-  public static ImageIcon displayImage(Image image) {
-    saveImage("display/display.png", image);
-    return new ImageIcon("display/display.png");
-  }
-
-}
-
+package model;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.ImageIcon;
+
+
+/**
+ * This class contains utility methods to be used on images.
+ * <p>
+ * ADDITION: besides plain P3 files, PPM files are read and saved as raw P6 (RGB) and P5 (grey)
+ * files, with 8-bit samples or 16-bit big-endian samples when the max value is above 255. Raw
+ * samples move between the file and a direct buffer through a FileChannel a block of rows at a
+ * time, and are unpacked from the buffer straight into the rows of the image.
+ * </p>
+ */
+public class ImageUtil {
+
+  /**
+   * Largest max value of a raw PPM file, whose samples are at most 2 bytes.
+   */
+  public static final int MAX_RAW_VALUE = 65535;
+
+  /**
+   * Number of bytes of raw samples read from a file into its buffer at a time, rounded down to
+   * whole rows.
+   */
+  private static final int RAW_BLOCK = 1 << 20;
+
+  /**
+   * Number of pixels of a file ImageIO reads decoded at a time into a TILED image, rounded down
+   * to whole rows.
+   */
+  private static final int STRIP_PIXELS = 1 << 24;
+
+
+  /**
+   * CHANGE: added readImage to support different image types in Java ImageIO library.
+   * readImage will take a path, which is the location of file in computer, and a filename, which
+   * will be the name of the file in the model map.
+   * @param path - location of image in computer
+   * @param filename - name of image to be stored in ImageModel implementation's map
+   * @return Image
+   * @throws RuntimeException - cannot read file using ImageIO
+   */
+  // NEW IMAGE UTILS
+  public static Image readImage(String path, String filename) {
+    return readImage(path, filename, ImageStorage.PLANAR);
+  }
+
+  /**
+   * ADDITION: read an image like readImage(path, filename), storing its pixels in the given
+   * storage, or in TILED storage if it is too large for it. Every image ImageIO can read has a max
+   * value of 255, so it always fits the storage.
+   * <p>
+   * The size of the image is read from its header first. An image read into TILED storage is
+   * decoded a strip of about STRIP_PIXELS pixels at a time through the source region of its
+   * ImageReader, so it never has to fit the heap. Formats that cannot seek to a row, like PNG and
+   * JPEG, decode the rows above each strip again, which is the price of reading a file larger
+   * than the heap.
+   * </p>
+   * @param path - location of image in computer
+   * @param filename - name of image to be stored in ImageModel implementation's map
+   * @param storage - how the pixels of the image are stored
+   * @return Image
+   * @throws RuntimeException - cannot read file using ImageIO
+   */
+  public static Image readImage(String path, String filename, ImageStorage storage) {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new File(path))) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) { // not a format ImageIO reads, try it as PPM
+        return readPPM(path, filename, storage);
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, false, true);
+        return readImage(reader, filename, storage);
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException e) { // if imageIO cant read it, we will try to read as PPM, if that fails
+      // exception will be thrown
+      return readPPM(path, filename, storage);
+    }
+  }
+
+  /**
+   * Read the first image of an ImageReader into the storage fitting it, a strip of rows at a time
+   * for TILED storage and in one piece otherwise.
+   * @param reader - the reader, its input set
+   * @param filename - name of image to be stored in ImageModel implementation's map
+   * @param storage - how the pixels of the image are stored
+   * @return Image
+   * @throws IOException - the file cannot be decoded
+   */
+  private static Image readImage(ImageReader reader, String filename, ImageStorage storage)
+      throws IOException {
+    int width = reader.getWidth(0);
+    int height = reader.getHeight(0);
+    ImageStorage fitting = storage.fitting(width, height);
+    AbstractRgbImage image = fitting.create(filename, width, height, 255);
+    int strip = fitting == ImageStorage.TILED
+        ? Math.max(1, Math.min(height, STRIP_PIXELS / width)) : height;
+
+    // read a row at a time as packed pixels, from the raster arrays for the common layouts
+    ImageReadParam param = reader.getDefaultReadParam();
+    int[] row = new int[width];
+    for (int y = 0; y < height; y += strip) {
+      int rows = Math.min(strip, height - y);
+      if (rows < height) {
+        param.setSourceRegion(new Rectangle(0, y, width, rows));
+      }
+      RasterRows pixels = new RasterRows(reader.read(0, param));
+      for (int i = 0; i < rows; i++) {
+        pixels.read(i, row, 0);
+        image.writeRGB(y + i, row);
+      }
+    }
+    return image;
+  }
+
+
+
+  /**
+   * read in a PPM image with a given path name and filename. path is the location of file in
+   * computer and filename is the name of the image to be stored in our map.
+   * @param path - location of image in computer
+   * @param filename - name of image to be stored in ImageModel implemenation's map
+   * @return Image - PPM format
+   * @throws IllegalArgumentException -if it is not a PPM file
+   */
+  public static Image readPPM(String path, String filename) throws IllegalArgumentException {
+    return readPPM(path, filename, ImageStorage.PLANAR);
+  }
+
+  /**
+   * ADDITION: read in a PPM image like readPPM(path, filename). If its max value is at most 255
+   * the pixels are stored in the given storage, or in TILED storage if the image is too large for
+   * it, otherwise they are stored in an ImageImpl.
+   * @param path - location of image in computer
+   * @param filename - name of image to be stored in ImageModel implemenation's map
+   * @param storage - how the pixels of the image are stored
+   * @return Image - PPM format
+   * @throws IllegalArgumentException -if it is not a PPM file
+   */
+  public static Image readPPM(String path, String filename, ImageStorage storage)
+      throws IllegalArgumentException {
+    try (PpmReader reader = new PpmReader(path)) {
+      return readPPM(reader, filename, storage);
+    } catch (NoSuchFileException e) {
+      System.out.println("File " + path + " not found!");
+      throw new IllegalArgumentException("File not found");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot read file " + path, e);
+    }
+  }
+
+  /**
+   * Read the header and pixels of a plain P3 PPM file, writing each row of pixels straight into
+   * the storage of the image. CHANGE: the samples of an 8-bit image are checked against its max
+   * value before they are packed, as a sample out of range would spill into the other channels.
+   * @param reader - the tokens of the file
+   * @param filename - name of image to be stored in ImageModel implemenation's map
+   * @param storage - how the pixels of the image are stored
+   * @return Image - PPM format
+   * @throws IOException - the file cannot be read
+   * @throws IllegalArgumentException - if it is not a PPM file, or a sample is out of range
+   */
+  private static Image readPPM(PpmReader reader, String filename, ImageStorage storage)
+      throws IOException, IllegalArgumentException {
+    String magic = reader.nextToken();
+    if (!magic.equals("P3") && !magic.equals("P5") && !magic.equals("P6")) {
+      throw new IllegalArgumentException("Invalid PPM file: should begin with P3, P5 or P6");
+    }
+
+    int width = reader.nextInt();
+    int height = reader.nextInt();
+    int maxValue = reader.nextInt();
+    if (!magic.equals("P3")) {
+      return readRaw(reader, filename, storage, width, height, maxValue, magic.equals("P5"));
+    }
+
+    if (maxValue <= AbstractRgbImage.MAX_RGB_VALUE) { // channels fit in 8 bits
+      if (maxValue < 1) {
+        throw new IllegalArgumentException("Invalid PPM file: max value " + maxValue);
+      }
+      AbstractRgbImage image = storage.fitting(width, height)
+          .create(filename, width, height, maxValue);
+      int[] row = new int[width];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          int r = sample(reader, maxValue);
+          int g = sample(reader, maxValue);
+          int b = sample(reader, maxValue);
+          row[j] = AbstractRgbImage.pack(r, g, b);
+        }
+        image.writeRGB(i, row);
+      }
+      return image;
+    }
+
+    // return new Image will be PPM format.
+    ImageImpl image = new ImageImpl(filename, new int[height][width][3], maxValue);
+    int[] row = new int[3 * width];
+    for (int i = 0; i < height; i++) {
+      for (int k = 0; k < row.length; k++) {
+        row[k] = reader.nextInt();
+      }
+      image.writeRow(i, row);
+    }
+    return image;
+  }
+
+  /**
+   * Read the next sample of a plain file and check it is between 0 and the max value.
+   * @param reader - the tokens of the file
+   * @param maxValue - max value of the image
+   * @return the sample
+   * @throws IOException - the file cannot be read
+   * @throws IllegalArgumentException - the sample is out of range
+   */
+  private static int sample(PpmReader reader, int maxValue)
+      throws IOException, IllegalArgumentException {
+    return sample(reader.nextInt(), maxValue);
+  }
+
+  /**
+   * Check a sample of a plain or raw file is between 0 and the max value.
+   * @param value - the sample
+   * @param maxValue - max value of the image
+   * @return the sample
+   * @throws IllegalArgumentException - the sample is out of range
+   */
+  private static int sample(int value, int maxValue) throws IllegalArgumentException {
+    if (value < 0 || value > maxValue) {
+      throw new IllegalArgumentException("Invalid PPM file: sample " + value
+          + " is not between 0 and " + maxValue);
+    }
+    return value;
+  }
+
+  /**
+   * Read the samples of a raw P6 or P5 file a block of rows at a time into a direct buffer and
+   * unpack them into the rows of the image. 8-bit images are stored like plain files. CHANGE: each
+   * sample is checked against the max value like the samples of a plain file, and the storage of
+   * an 8-bit image is released if the file is rejected part way.
+   * @param reader - the file, read up to the samples
+   * @param filename - name of image to be stored in ImageModel implemenation's map
+   * @param storage - how the pixels of 8-bit images are stored
+   * @param width - width of the image
+   * @param height - height of the image
+   * @param maxValue - max value of the image, 2 byte samples when above 255
+   * @param grey - whether each pixel is one grey sample (P5) instead of 3 (P6)
+   * @return Image - PPM format
+   * @throws IOException - the file cannot be read
+   * @throws IllegalArgumentException - invalid max value, a sample above it, or the file ends
+   *                                    early
+   */
+  private static Image readRaw(PpmReader reader, String filename, ImageStorage storage,
+                               int width, int height, int maxValue, boolean grey)
+      throws IOException, IllegalArgumentException {
+    if (maxValue < 1 || maxValue > MAX_RAW_VALUE) {
+      throw new IllegalArgumentException("Invalid PPM file: max value " + maxValue);
+    }
+    int samples = grey ? 1 : 3;
+    boolean wide = maxValue > AbstractRgbImage.MAX_RGB_VALUE;
+    int rowBytes = width * samples * (wide ? 2 : 1);
+    int rows = Math.max(1, Math.min(height, RAW_BLOCK / Math.max(1, rowBytes)));
+    ByteBuffer block = ByteBuffer.allocateDirect(rows * rowBytes);
+
+    AbstractRgbImage packed = wide ? null
+        : storage.fitting(width, height).create(filename, width, height, maxValue);
+    ImageImpl deep = wide ? new ImageImpl(filename, new int[height][width][3], maxValue) : null;
+    int[] row = new int[wide ? 3 * width : width];
+    try {
+      for (int i = 0; i < height; i += rows) {
+        int count = Math.min(rows, height - i);
+        block.clear();
+        block.limit(count * rowBytes);
+        reader.readRaw(block);
+        for (int r = 0; r < count; r++) {
+          int start = r * rowBytes;
+          if (wide) { // 2 byte big-endian samples
+            for (int k = 0; k < row.length; k++) {
+              row[k] = sample(block.getShort(start + 2 * (grey ? k / 3 : k)) & 0xffff, maxValue);
+            }
+            deep.writeRow(i + r, row);
+          } else if (grey) {
+            for (int j = 0; j < width; j++) {
+              int v = sample(block.get(start + j) & 0xff, maxValue);
+              row[j] = AbstractRgbImage.pack(v, v, v);
+            }
+            packed.writeRGB(i + r, row);
+          } else {
+            for (int j = 0; j < width; j++) {
+              int p = start + 3 * j;
+              row[j] = AbstractRgbImage.pack(sample(block.get(p) & 0xff, maxValue),
+                  sample(block.get(p + 1) & 0xff, maxValue),
+                  sample(block.get(p + 2) & 0xff, maxValue));
+            }
+            packed.writeRGB(i + r, row);
+          }
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      if (packed != null) {
+        packed.release();
+      }
+      throw e;
+    }
+    return wide ? deep : packed;
+  }
+
+  /**
+   * Save image takes a path (file location in computer) and image writes the file to a new file.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @throws RuntimeException - if cannot write image to file
+   */
+  public static void saveImage(String path, Image image) throws RuntimeException {
+    String type = path.substring(path.length() - 3, path.length());
+    if (type.equals("ppm")) {
+      try {
+        savePPM(path, image);
+        return;
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    if (type.equals("pgm")) { // ImageIO has no writer for PGM
+      try {
+        savePGM(path, image);
+        return;
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    File out = new File(path);
+    BufferedImage buff = toBufferedImage(image); // no copy for an image in a BufferedImage
+    try {
+      System.out.println(path + " " + image);
+      ImageIO.write(buff, type, out);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * ADDITION: get a BufferedImage of TYPE_INT_RGB with the pixels of an image, to save it with
+   * ImageIO or draw it. An image stored in a BufferedImage hands over its own without a copy,
+   * which callers must not write to, any other image is copied into a new one. A lazy view, like
+   * the result of brightness or a rotation, is materialized first and hands over the BufferedImage
+   * of its copy when that copy is stored in one.
+   * @param image - the image
+   * @return the BufferedImage
+   * @throws IllegalArgumentException - null image
+   */
+  public static BufferedImage toBufferedImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (image instanceof AbstractRgbImage) { // the image the rows of a view are read from
+      image = ((AbstractRgbImage) image).materialize();
+    }
+    if (image instanceof BufferedRgbImage) {
+      return ((BufferedRgbImage) image).getBufferedImage();
+    }
+    int height = image.getHeight();
+    int width = image.getWidth();
+    BufferedImage buff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    // a new TYPE_INT_RGB image has one int per pixel and no gaps between rows
+    int[] data = ((DataBufferInt) buff.getRaster().getDataBuffer()).getData();
+    if (image instanceof PackedImage) { // packed pixels are already in the TYPE_INT_RGB layout
+      System.arraycopy(((PackedImage) image).pixels(), 0, data, 0, width * height);
+    } else if (image instanceof AbstractRgbImage) { // copy rows straight into the raster
+      for (int i = 0; i < height; i++) {
+        ((AbstractRgbImage) image).readRGB(i, 0, width, data, i * width);
+      }
+    } else {
+      writePixels(data, image);
+    }
+    return buff;
+  }
+
+  /**
+   * Copy the pixels of an image into the raster of a TYPE_INT_RGB BufferedImage one row at a time.
+   * @param data - the pixels of the BufferedImage being written to
+   * @param image - Image being copied
+   */
+  private static void writePixels(int[] data, Image image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[] row = new int[3 * width];
+    for (int i = 0; i < height; i++) {
+      image.readRow(i, row);
+      for (int j = 0; j < width; j++) {
+        int r = row[3 * j] << 16;
+        int g = row[3 * j + 1] << 8;
+        int b = row[3 * j + 2];
+        data[i * width + j] = (r + g + b) & 0xffffff; // the bits setRGB() would keep
+      }
+    }
+  }
+
+
+  /**
+   * SavePPMimage takes a path (file location in computer) and image writes the file to a new file.
+   * CHANGE: the values are formatted into large reused buffers that are written a block at a time,
+   * instead of a String and a write for every value.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @throws IOException - if issues arise
+   */
+  public static void savePPM(String path, Image image)
+      throws IOException {
+    PpmWriter.plain(path, image, null);
+  }
+
+  /**
+   * ADDITION: save an image as a plain P3 file like savePPM(path, image), formatting the rows of
+   * each block in parallel bands run by the executor. The file is the same.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @param executor - runs bands of rows, possibly in parallel
+   * @throws IOException - if issues arise
+   * @throws IllegalArgumentException - null executor
+   */
+  public static void savePPM(String path, Image image, BandExecutor executor)
+      throws IOException, IllegalArgumentException {
+    if (executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    PpmWriter.plain(path, image, executor);
+  }
+
+  /**
+   * ADDITION: save an image as a PPM file, a raw P6 file when raw is true and a plain P3 file like
+   * savePPM(path, image) otherwise. A raw file has 2 byte samples when the max value is above 255.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @param raw - whether to save a raw P6 file
+   * @throws IOException - if issues arise
+   * @throws IllegalArgumentException - a raw file with a max value above 65535
+   */
+  public static void savePPM(String path, Image image, boolean raw)
+      throws IOException, IllegalArgumentException {
+    if (raw) {
+      PpmWriter.raw(path, image, false);
+    } else {
+      savePPM(path, image);
+    }
+  }
+
+  /**
+   * ADDITION: save an image as a raw P5 PGM file of the luma of each pixel, which is the value of
+   * every channel of a greyscale image. The file has 2 byte samples when the max value is above
+   * 255.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @throws IOException - if issues arise
+   * @throws IllegalArgumentException - a max value above 65535
+   */
+  public static void savePGM(String path, Image image)
+      throws IOException, IllegalArgumentException {
+    PpmWriter.raw(path, image, true);
+  }
+
+  /**
+   * Display an image as ImageIcon to be showed in view when given an Image object. CHANGE: the
+   * icon is made from toBufferedImage() in memory instead of saving display/display.png and
+   * reading it back.
+   * @param image - image to be displayed
+   * @return ImageIcon
+   */
+  public static ImageIcon displayImage(Image image) {
+    return new ImageIcon(toBufferedImage(image)); // in memory, no file is written or read
+  }
+
+}
+
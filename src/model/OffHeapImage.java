@@ -0,0 +1,154 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents an image whose pixels
+ * live outside the Java heap, in a direct ByteBuffer. Pixels are packed as 0xRRGGBB ints in
+ * row-major order, the same layout as a PackedImage.
+ * <p>
+ * Because the pixels are not on the heap, the garbage collector never has to scan or move them,
+ * which keeps GC pauses short when the model holds many large images. The memory is freed
+ * explicitly by free(), which the model calls as soon as an image is removed from or replaced in
+ * its map. Any use of an image after it was freed throws an IllegalStateException.
+ * </p>
+ * <p>
+ * Reads and writes of pixels hold the read lock of the image, so bands of rows still run in
+ * parallel, and free() holds its write lock, so the memory is never freed while another thread,
+ * like the event thread drawing the image, is using it.
+ * </p>
+ */
+public class OffHeapImage extends AbstractRgbImage {
+
+  /**
+   * The direct buffer holding the pixels, null once the image has been freed. Set to private to
+   * avoid outside access, not final as it is cleared by free().
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * Int view of the buffer used to read and write packed pixels, null once the image has been
+   * freed. Set to private to avoid outside access, not final as it is cleared by free().
+   */
+  private IntBuffer pixels;
+
+  /**
+   * Read lock held while pixels are used, write lock held while they are freed. Set to private
+   * and final to avoid outside access and reassignment.
+   */
+  private final Lock useLock;
+  private final Lock freeLock;
+
+  /**
+   * Construct a new off-heap image with every channel of every pixel set to 0.
+   * @param filename - the file name of object in the model.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null name, bad dimensions, image too large for one buffer
+   *                                    or max larger than 255
+   */
+  public OffHeapImage(String filename, int width, int height, int max)
+      throws IllegalArgumentException {
+    super(filename, width, height, max);
+    if ((long) width * height > Integer.MAX_VALUE / Integer.BYTES) {
+      throw new IllegalArgumentException("Image too large to store off-heap");
+    }
+    this.buffer = ByteBuffer.allocateDirect(width * height * Integer.BYTES)
+        .order(ByteOrder.nativeOrder());
+    this.pixels = this.buffer.asIntBuffer();
+    ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    this.useLock = lock.readLock();
+    this.freeLock = lock.writeLock();
+  }
+
+  @Override
+  int rgb(int r, int c) {
+    this.useLock.lock();
+    try {
+      return pixels().get(r * this.width + c);
+    } finally {
+      this.useLock.unlock();
+    }
+  }
+
+  @Override
+  void readRGB(int r, int c, int length, int[] dst, int offset) {
+    this.useLock.lock();
+    try {
+      pixels().get(r * this.width + c, dst, offset, length);
+    } finally {
+      this.useLock.unlock();
+    }
+  }
+
+  @Override
+  void writeRGB(int r, int c, int length, int[] src, int offset) {
+    this.useLock.lock();
+    try {
+      pixels().put(r * this.width + c, src, offset, length);
+    } finally {
+      this.useLock.unlock();
+    }
+  }
+
+  @Override
+  OffHeapImage blank(String filename, int width, int height) {
+    return new OffHeapImage(filename, width, height, this.max);
+  }
+
+  @Override
+  void release() {
+    free();
+  }
+
+  /**
+   * Free the off-heap memory of this image right away instead of waiting for the garbage
+   * collector. Waits for any read or write of the pixels running on another thread to finish.
+   * Calling it more than once does nothing.
+   */
+  public void free() {
+    this.freeLock.lock();
+    try {
+      ByteBuffer freed = this.buffer;
+      this.buffer = null;
+      this.pixels = null;
+      if (freed != null) {
+        DirectBuffers.free(freed);
+      }
+    } finally {
+      this.freeLock.unlock();
+    }
+  }
+
+  /**
+   * Has the memory of this image been freed.
+   * @return true if free() has been called
+   */
+  public boolean isFreed() {
+    this.useLock.lock();
+    try {
+      return this.buffer == null;
+    } finally {
+      this.useLock.unlock();
+    }
+  }
+
+  /**
+   * The int view of the pixels, checking the image has not been freed. Only called while the
+   * read lock is held.
+   * @return the packed pixels
+   * @throws IllegalStateException - the image has been freed
+   */
+  private IntBuffer pixels() throws IllegalStateException {
+    IntBuffer current = this.pixels;
+    if (current == null) {
+      throw new IllegalStateException("Image " + this.filename + " has been freed");
+    }
+    return current;
+  }
+}
@@ -0,0 +1,295 @@
+package model;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents another 8-bit image
+ * seen flipped and/or rotated by a multiple of 90 degrees. No pixels are copied, the orientation is
+ * kept as a remapping of coordinates onto the storage of the original image.
+ * <p>
+ * Every orientation is stored the same way: the rows and/or columns of the view are reversed, then
+ * its rows and columns are swapped to get the position in the original image. A flip or rotation
+ * of an oriented image is folded into that remapping, so a chain of flips and rotations is a single
+ * view of the original image and costs nothing until its pixels are read.
+ * </p>
+ * <p>
+ * Without a swap the rows of the view are rows of the original image and are read from it
+ * directly. With a swap (a rotation by 90 or 270 degrees) the rows of the view are columns of the
+ * original image, so the first time rows are read, for an operation that is not a flip or rotation
+ * or to save the image, the view is materialized once into the storage of the original image.
+ * </p>
+ */
+public class OrientedImage extends AbstractRgbImage {
+
+  /**
+   * Bit of the orientation that reverses the rows of the view.
+   */
+  private static final int FLIP_ROWS = 1;
+
+  /**
+   * Bit of the orientation that reverses the columns of the view.
+   */
+  private static final int FLIP_COLUMNS = 2;
+
+  /**
+   * Bit of the orientation that swaps the rows and columns of the view.
+   */
+  private static final int SWAP = 4;
+
+  /**
+   * Number of rows of the original image read together while a swapped view is materialized.
+   */
+  private static final int BAND_ROWS = 64;
+
+  /**
+   * The image this view reads its pixels from, never an OrientedImage itself. Set to private and
+   * final to avoid outside access and reassignment.
+   */
+  private final AbstractRgbImage parent;
+
+  /**
+   * The orientation as a combination of FLIP_ROWS, FLIP_COLUMNS and SWAP. Set to private and
+   * final to avoid outside access and reassignment.
+   */
+  private final int orientation;
+
+  /**
+   * Copy of a swapped view in the storage of the parent, made the first time rows are read. Set
+   * to private to avoid outside access, not final as it is made lazily.
+   */
+  private AbstractRgbImage materialized;
+
+  /**
+   * Construct a view of an image flipped like the flip in the model: on its vertical axis
+   * (reversing the columns) when axis is true, on its horizontal axis (reversing the rows) when
+   * axis is false.
+   * @param filename - the file name of object in the model.
+   * @param image - the image being flipped.
+   * @param axis - true to reverse the columns, false to reverse the rows.
+   * @throws IllegalArgumentException - null input
+   */
+  public OrientedImage(String filename, AbstractRgbImage image, boolean axis)
+      throws IllegalArgumentException {
+    this(root(image), orientation(image) ^ (axis ? FLIP_COLUMNS : FLIP_ROWS), filename);
+  }
+
+  /**
+   * Construct a view of an image rotated clockwise.
+   * @param filename - the file name of object in the model.
+   * @param image - the image being rotated.
+   * @param degrees - clockwise rotation, a multiple of 90 that may be negative.
+   * @throws IllegalArgumentException - null input or degrees is not a multiple of 90
+   */
+  public OrientedImage(String filename, AbstractRgbImage image, int degrees)
+      throws IllegalArgumentException {
+    this(root(image), rotate(orientation(image), degrees), filename);
+  }
+
+  /**
+   * Construct a view of the root image with the given orientation.
+   * @param parent - the root image, not an OrientedImage.
+   * @param orientation - combination of FLIP_ROWS, FLIP_COLUMNS and SWAP
+   * @param filename - the file name of object in the model.
+   */
+  private OrientedImage(AbstractRgbImage parent, int orientation, String filename) {
+    super(filename, (orientation & SWAP) != 0 ? parent.height : parent.width,
+        (orientation & SWAP) != 0 ? parent.width : parent.height, parent.max);
+    this.parent = parent;
+    this.orientation = orientation;
+  }
+
+  /**
+   * Rotate any image clockwise, for every model. An 8-bit image gets a view that remaps its
+   * coordinates, so nothing is copied, any other image is copied into a rotated ImageImpl.
+   * @param filename - the file name of the rotated image in the model.
+   * @param image - the image being rotated.
+   * @param degrees - clockwise rotation, a multiple of 90 that may be negative.
+   * @return the rotated image
+   * @throws IllegalArgumentException - null input or degrees is not a multiple of 90
+   */
+  public static Image rotated(String filename, Image image, int degrees)
+      throws IllegalArgumentException {
+    if (image instanceof AbstractRgbImage) {
+      return new OrientedImage(filename, (AbstractRgbImage) image, degrees);
+    }
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (degrees % 90 != 0) {
+      throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees: " + degrees);
+    }
+    int turns = Math.floorMod(degrees / 90, 4);
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[][][] temp = turns % 2 == 0 ? new int[height][width][3] : new int[width][height][3];
+    int[] row = new int[3 * width];
+    for (int i = 0; i < height; i++) {
+      image.readRow(i, row);
+      for (int j = 0; j < width; j++) {
+        int[] pixel;
+        if (turns == 0) {
+          pixel = temp[i][j];
+        } else if (turns == 1) {
+          pixel = temp[j][height - 1 - i];
+        } else if (turns == 2) {
+          pixel = temp[height - 1 - i][width - 1 - j];
+        } else {
+          pixel = temp[width - 1 - j][i];
+        }
+        System.arraycopy(row, 3 * j, pixel, 0, 3);
+      }
+    }
+    return new ImageImpl(filename, temp, image.getMaxValue());
+  }
+
+  /**
+   * Are the rows of this view columns of the original image, so reading a row needs the view to
+   * be materialized.
+   * @return true if the view is rotated by 90 or 270 degrees
+   */
+  public boolean isTransposed() {
+    return (this.orientation & SWAP) != 0;
+  }
+
+  @Override
+  int rgb(int r, int c) {
+    int a = (this.orientation & FLIP_ROWS) != 0 ? this.height - 1 - r : r;
+    int b = (this.orientation & FLIP_COLUMNS) != 0 ? this.width - 1 - c : c;
+    return isTransposed() ? this.parent.rgb(b, a) : this.parent.rgb(a, b);
+  }
+
+  @Override
+  void readRGB(int r, int c, int length, int[] dst, int offset) {
+    if (isTransposed()) {
+      materialized().readRGB(r, c, length, dst, offset);
+      return;
+    }
+    int row = (this.orientation & FLIP_ROWS) != 0 ? this.height - 1 - r : r;
+    if ((this.orientation & FLIP_COLUMNS) == 0) {
+      this.parent.readRGB(row, c, length, dst, offset);
+      return;
+    }
+    this.parent.readRGB(row, this.width - c - length, length, dst, offset);
+    for (int i = offset, j = offset + length - 1; i < j; i++, j--) { // reverse in place
+      int temp = dst[i];
+      dst[i] = dst[j];
+      dst[j] = temp;
+    }
+  }
+
+  @Override
+  void writeRGB(int r, int c, int length, int[] src, int offset) throws IllegalStateException {
+    throw new IllegalStateException("Cannot write to oriented image " + this.filename);
+  }
+
+  @Override
+  AbstractRgbImage blank(String filename, int width, int height) {
+    return this.parent.blank(filename, width, height);
+  }
+
+  @Override
+  AbstractRgbImage materialize() {
+    return isTransposed() ? materialized() : this;
+  }
+
+  @Override
+  boolean uses(AbstractRgbImage other) {
+    return this == other || this.parent.uses(other);
+  }
+
+  @Override
+  AbstractRgbImage source() {
+    return this.parent;
+  }
+
+  @Override
+  synchronized void release() {
+    if (this.materialized != null) {
+      this.materialized.release();
+      this.materialized = null;
+    }
+  }
+
+  /**
+   * Get the copy of a swapped view, making it the first time. The original image is read once,
+   * in bands of BAND_ROWS whole rows, and each band is transposed into the same columns of every
+   * row of the copy.
+   * @return the materialized view
+   */
+  private synchronized AbstractRgbImage materialized() {
+    if (this.materialized != null) {
+      return this.materialized;
+    }
+    AbstractRgbImage copy = this.parent.blank(this.filename, this.width, this.height);
+    boolean flipRows = (this.orientation & FLIP_ROWS) != 0;
+    boolean flipColumns = (this.orientation & FLIP_COLUMNS) != 0;
+    int[][] band = new int[BAND_ROWS][this.height];
+    int[] segment = new int[BAND_ROWS];
+    try {
+      for (int start = 0; start < this.width; start += BAND_ROWS) {
+        BandExecutor.report(start, this.width);
+        int rows = Math.min(BAND_ROWS, this.width - start);
+        for (int k = 0; k < rows; k++) {
+          this.parent.readRGB(start + k, band[k]);
+        }
+        // rows start to start + rows of the original image are these columns of the view
+        int first = flipColumns ? this.width - start - rows : start;
+        for (int r = 0; r < this.height; r++) {
+          int column = flipRows ? this.height - 1 - r : r;
+          for (int k = 0; k < rows; k++) {
+            int b = flipColumns ? this.width - 1 - (first + k) : first + k;
+            segment[k] = band[b - start][column];
+          }
+          copy.writeRGB(r, first, rows, segment, 0);
+        }
+      }
+    } catch (RuntimeException e) { // cancelled, so the half-made copy is never used
+      copy.release();
+      throw e;
+    }
+    this.materialized = copy;
+    return copy;
+  }
+
+  /**
+   * The image a view is taken of, looking through an oriented image to its original image.
+   * @param image - image being flipped or rotated
+   * @return the original image
+   * @throws IllegalArgumentException - null image
+   */
+  private static AbstractRgbImage root(AbstractRgbImage image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    return image instanceof OrientedImage ? ((OrientedImage) image).parent : image;
+  }
+
+  /**
+   * The orientation an image already has relative to its original image.
+   * @param image - image being flipped or rotated
+   * @return its orientation, 0 if it is not an OrientedImage
+   */
+  private static int orientation(AbstractRgbImage image) {
+    return image instanceof OrientedImage ? ((OrientedImage) image).orientation : 0;
+  }
+
+  /**
+   * Add a clockwise rotation to an orientation. One quarter turn reads the view at (r, c) from
+   * (height - 1 - c, r) of the rotated image, which swaps the rows and columns, moves the column
+   * flip to the rows and turns the row flip into a reversed column flip.
+   * @param orientation - orientation being rotated
+   * @param degrees - clockwise rotation, a multiple of 90
+   * @return the rotated orientation
+   * @throws IllegalArgumentException - degrees is not a multiple of 90
+   */
+  private static int rotate(int orientation, int degrees) throws IllegalArgumentException {
+    if (degrees % 90 != 0) {
+      throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees: " + degrees);
+    }
+    int turns = Math.floorMod(degrees / 90, 4);
+    for (int i = 0; i < turns; i++) {
+      int flipRows = (orientation & FLIP_COLUMNS) != 0 ? FLIP_ROWS : 0;
+      int flipColumns = (orientation & FLIP_ROWS) != 0 ? 0 : FLIP_COLUMNS;
+      orientation = (orientation ^ SWAP) & SWAP | flipRows | flipColumns;
+    }
+    return orientation;
+  }
+}
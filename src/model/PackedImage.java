@@ -0,0 +1,133 @@
+package model;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents an image whose pixels
+ * are stored in a single contiguous int[] in row-major order. Each pixel is packed into one int as
+ * 0xRRGGBB, so a pixel costs 4 bytes instead of a separate int[3] object inside an int[][][].
+ * <p>
+ * Because every channel is stored in 8 bits, this representation can only hold images whose max
+ * value is at most 255. Images with a larger max value are still stored as an ImageImpl.
+ * </p>
+ * <p>
+ * The packed layout is the same one BufferedImage.TYPE_INT_RGB uses, so ImageUtil can hand the
+ * array to a BufferedImage in a single call through pixels(), which is package-private.
+ * </p>
+ */
+public class PackedImage extends AbstractRgbImage {
+
+  /**
+   * Packed pixels of the image, row-major, one 0xRRGGBB int per pixel. Set to private and final
+   * to avoid reassignment and outside access.
+   */
+  private final int[] pixels;
+
+  /**
+   * Construct a new packed image from an array of packed pixels. The array is used as the storage
+   * of the image and is not copied.
+   * @param filename - the file name of object in the model.
+   * @param pixels - the packed pixels, row-major, of length width * height.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null input, bad dimensions or max too large to pack
+   */
+  public PackedImage(String filename, int[] pixels, int width, int height, int max)
+      throws IllegalArgumentException {
+    super(filename, width, height, max);
+    if (pixels == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (pixels.length != width * height) {
+      throw new IllegalArgumentException("Pixel array does not match image size");
+    }
+    this.pixels = pixels;
+  }
+
+  /**
+   * Construct a new packed image by packing a pixel array in the int[][][] representation.
+   * @param filename - the file name of object in the model.
+   * @param arr - the pixel array of an image.
+   * @param max - max val of pixel array, at most 255.
+   * @throws IllegalArgumentException - null input, max too large to pack, rows of different
+   *                                    lengths or a channel outside 0 to max
+   */
+  public PackedImage(String filename, int[][][] arr, int max) throws IllegalArgumentException {
+    this(filename, pack(arr, max), width(arr), arr.length, max);
+  }
+
+  @Override
+  int rgb(int r, int c) {
+    return this.pixels[r * this.width + c];
+  }
+
+  @Override
+  void readRGB(int r, int c, int length, int[] dst, int offset) {
+    System.arraycopy(this.pixels, r * this.width + c, dst, offset, length);
+  }
+
+  @Override
+  void writeRGB(int r, int c, int length, int[] src, int offset) {
+    System.arraycopy(src, offset, this.pixels, r * this.width + c, length);
+  }
+
+  @Override
+  PackedImage blank(String filename, int width, int height) {
+    return new PackedImage(filename, new int[width * height], width, height, this.max);
+  }
+
+  /**
+   * The packed pixel storage of this image. Package-private so only the model and ImageUtil can
+   * read it directly, callers must not write to it once the image is in a model.
+   * @return the backing array of packed pixels
+   */
+  int[] pixels() {
+    return this.pixels;
+  }
+
+  /**
+   * Pack an image array in the int[][][] representation into a row-major int[]. CHANGE: every
+   * channel is checked first, as a channel outside 0 to max would spill into the other channels
+   * of its packed pixel and getPixel() would not give it back.
+   * @param arr - the pixel array of an image.
+   * @param max - max val of pixel array.
+   * @return packed pixels
+   * @throws IllegalArgumentException - null or empty array, rows of different lengths or a
+   *                                    channel outside 0 to max
+   */
+  private static int[] pack(int[][][] arr, int max) throws IllegalArgumentException {
+    int width = width(arr);
+    int[] packed = new int[arr.length * width];
+    int index = 0;
+    for (int[][] row : arr) {
+      if (row == null || row.length != width) {
+        throw new IllegalArgumentException("Pixel array does not match image size");
+      }
+      for (int[] pixel : row) {
+        if (pixel == null || pixel.length < 3) {
+          throw new IllegalArgumentException("Error in reading pixel, check input.");
+        }
+        for (int k = 0; k < 3; k++) {
+          if (pixel[k] < 0 || pixel[k] > max) {
+            throw new IllegalArgumentException("Channel " + pixel[k] + " is not between 0 and "
+                + max);
+          }
+        }
+        packed[index++] = pack(pixel[0], pixel[1], pixel[2]);
+      }
+    }
+    return packed;
+  }
+
+  /**
+   * Width of an image array, checking that it is not null or empty.
+   * @param arr - the pixel array of an image.
+   * @return width of the array
+   * @throws IllegalArgumentException - null or empty array
+   */
+  private static int width(int[][][] arr) throws IllegalArgumentException {
+    if (arr == null || arr.length == 0 || arr[0].length == 0) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    return arr[0].length;
+  }
+}
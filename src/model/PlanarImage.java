@@ -0,0 +1,111 @@
+package model;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents an image whose pixels
+ * are stored as three separate byte[] planes, one for each of the red, green and blue channels.
+ * Each plane is row-major, and every channel of a pixel takes exactly one byte, so an image takes
+ * 3 bytes per pixel.
+ * <p>
+ * ImageUtil reads every image with a max value of at most 255 into this representation. Operations
+ * that only need one channel, like the red, green and blue greyscale transforms and histograms,
+ * only touch that channel's plane. A plane is never written to once its image is in the model, so
+ * images created by those operations share the plane instead of copying it.
+ * </p>
+ */
+public class PlanarImage extends AbstractRgbImage {
+
+  /**
+   * Red, green and blue planes of the image, in that order. Set to private and final to avoid
+   * reassignment and outside access.
+   */
+  private final byte[][] planes;
+
+  /**
+   * Construct a new planar image with every channel of every pixel set to 0.
+   * @param filename - the file name of object in the model.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null name, bad dimensions or max larger than 255
+   */
+  public PlanarImage(String filename, int width, int height, int max)
+      throws IllegalArgumentException {
+    this(filename, new byte[width * height], new byte[width * height], new byte[width * height],
+        width, height, max);
+  }
+
+  /**
+   * Construct a new planar image from three channel planes. The planes are used as the storage of
+   * the image and are not copied, and the same plane may be given for more than one channel.
+   * @param filename - the file name of object in the model.
+   * @param red - red plane, row-major, of length width * height.
+   * @param green - green plane, row-major, of length width * height.
+   * @param blue - blue plane, row-major, of length width * height.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null input, bad dimensions or max larger than 255
+   */
+  public PlanarImage(String filename, byte[] red, byte[] green, byte[] blue, int width,
+                     int height, int max) throws IllegalArgumentException {
+    super(filename, width, height, max);
+    if (red == null || green == null || blue == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    int size = width * height;
+    if (red.length != size || green.length != size || blue.length != size) {
+      throw new IllegalArgumentException("Plane does not match image size");
+    }
+    this.planes = new byte[][]{red, green, blue};
+  }
+
+  @Override
+  int rgb(int r, int c) {
+    int index = r * this.width + c;
+    return pack(this.planes[0][index] & 0xff, this.planes[1][index] & 0xff,
+        this.planes[2][index] & 0xff);
+  }
+
+  @Override
+  void readRGB(int r, int c, int length, int[] dst, int offset) {
+    byte[] red = this.planes[0];
+    byte[] green = this.planes[1];
+    byte[] blue = this.planes[2];
+    int start = r * this.width + c;
+    for (int j = 0; j < length; j++) {
+      dst[offset + j] =
+          pack(red[start + j] & 0xff, green[start + j] & 0xff, blue[start + j] & 0xff);
+    }
+  }
+
+  @Override
+  void writeRGB(int r, int c, int length, int[] src, int offset) {
+    byte[] red = this.planes[0];
+    byte[] green = this.planes[1];
+    byte[] blue = this.planes[2];
+    int start = r * this.width + c;
+    for (int j = 0; j < length; j++) {
+      int rgb = src[offset + j];
+      red[start + j] = (byte) (rgb >> 16);
+      green[start + j] = (byte) (rgb >> 8);
+      blue[start + j] = (byte) rgb;
+    }
+  }
+
+  @Override
+  PlanarImage blank(String filename, int width, int height) {
+    return new PlanarImage(filename, width, height, this.max);
+  }
+
+  /**
+   * Create a greyscale image where all three channels share one plane of this image. No pixels
+   * are copied.
+   * @param filename - name of the new image
+   * @param channel - 0 for red, 1 for green, 2 for blue
+   * @return greyscale image of the channel
+   */
+  PlanarImage greyscale(String filename, int channel) {
+    byte[] plane = this.planes[channel];
+    return new PlanarImage(filename, plane, plane, plane, this.width, this.height, this.max);
+  }
+}
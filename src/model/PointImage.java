@@ -0,0 +1,238 @@
+package model;
+
+import java.util.Arrays;
+
+import model.transform.AbstractTransform;
+import model.transform.LookupTable;
+import model.transform.Transform;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents another 8-bit image
+ * seen through a chain of point operations (brightness and transformations), each computed from
+ * the pixel alone. No pixels are computed when the view is made.
+ * <p>
+ * A point operation on a point image extends its chain instead of making a view of a view, so a
+ * script of brightness, sepia and greyscale runs as one pass over the original image. Two lookup
+ * tables in a row are fused into one table (see LookupTable.then()). Other transformations run
+ * one after the other on each row, clamped between each, exactly like running them one at a time.
+ * </p>
+ * <p>
+ * A single pixel is computed on its own. The first time rows are read, for an operation that is
+ * not a point operation or to save the image, the whole chain is materialized once into the
+ * storage of the original image, in bands run by a BandExecutor. A view that is only used to make
+ * other views, like the steps of a script, is never materialized.
+ * </p>
+ */
+public class PointImage extends AbstractRgbImage {
+
+  /**
+   * The image this view reads its pixels from, never a PointImage itself. Set to private and
+   * final to avoid outside access and reassignment.
+   */
+  private final AbstractRgbImage parent;
+
+  /**
+   * The point operations run on each pixel, in order. Set to private and final to avoid outside
+   * access and reassignment.
+   */
+  private final Transform[] stages;
+
+  /**
+   * Runs the materialization on bands of rows. Set to private and final to avoid outside access
+   * and reassignment.
+   */
+  private final BandExecutor executor;
+
+  /**
+   * Copy of the view in the storage of the parent, made the first time rows are read. Set to
+   * private to avoid outside access, not final as it is made lazily.
+   */
+  private AbstractRgbImage materialized;
+
+  /**
+   * Construct a view of an image with a point operation run on every pixel. If the image is a
+   * point image itself the operation is added to its chain.
+   * @param filename - the file name of object in the model.
+   * @param image - the image being operated on.
+   * @param stage - the point operation, a LookupTable or a Transform that only reads the pixel it
+   *              is given and keeps no state between pixels.
+   * @param executor - runs the materialization on bands of rows.
+   * @throws IllegalArgumentException - null input
+   */
+  public PointImage(String filename, AbstractRgbImage image, Transform stage,
+                    BandExecutor executor) throws IllegalArgumentException {
+    super(filename, nonNull(image).width, image.height, image.max);
+    if (stage == null || executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (image instanceof PointImage) {
+      PointImage chain = (PointImage) image;
+      this.parent = chain.parent;
+      this.stages = fuse(chain.stages, stage);
+    } else {
+      this.parent = image;
+      this.stages = new Transform[]{stage};
+    }
+    this.executor = executor;
+  }
+
+  /**
+   * Number of point operations run on each pixel after lookup tables in a row were fused.
+   * @return length of the chain
+   */
+  public int getStageCount() {
+    return this.stages.length;
+  }
+
+  /**
+   * Has the chain been computed into a copy of the image, because its rows were read.
+   * @return true if the view is materialized
+   */
+  public synchronized boolean isMaterialized() {
+    return this.materialized != null;
+  }
+
+  @Override
+  int rgb(int r, int c) {
+    int[] pixel = new int[]{this.parent.rgb(r, c)};
+    run(pixel, 1, new int[3]);
+    return pixel[0];
+  }
+
+  @Override
+  void readRGB(int r, int c, int length, int[] dst, int offset) {
+    materialized().readRGB(r, c, length, dst, offset);
+  }
+
+  @Override
+  void writeRGB(int r, int c, int length, int[] src, int offset) throws IllegalStateException {
+    throw new IllegalStateException("Cannot write to point image " + this.filename);
+  }
+
+  @Override
+  AbstractRgbImage blank(String filename, int width, int height) {
+    return this.parent.blank(filename, width, height);
+  }
+
+  @Override
+  AbstractRgbImage materialize() {
+    return materialized();
+  }
+
+  @Override
+  boolean uses(AbstractRgbImage other) {
+    return this == other || this.parent.uses(other);
+  }
+
+  @Override
+  AbstractRgbImage source() {
+    return this.parent;
+  }
+
+  @Override
+  synchronized void release() {
+    if (this.materialized != null) {
+      this.materialized.release();
+      this.materialized = null;
+    }
+  }
+
+  /**
+   * Get the copy of the view, making it the first time by running every row of the parent
+   * through the chain.
+   * @return the materialized view
+   */
+  private synchronized AbstractRgbImage materialized() {
+    if (this.materialized != null) {
+      return this.materialized;
+    }
+    AbstractRgbImage copy = this.parent.blank(this.filename, this.width, this.height);
+    try {
+      this.executor.run(this.width, this.height, (start, end) -> {
+        int[] row = new int[this.width];
+        int[] current = new int[3];
+        for (int i = start; i < end; i++) {
+          this.parent.readRGB(i, row);
+          run(row, this.width, current);
+          copy.writeRGB(i, row);
+        }
+      });
+    } catch (RuntimeException e) { // cancelled, so the half-made copy is never used
+      copy.release();
+      throw e;
+    }
+    this.materialized = copy;
+    return copy;
+  }
+
+  /**
+   * Run packed pixels through every point operation of the chain, clamping after each.
+   * @param row - packed pixels, changed in place
+   * @param length - number of pixels from the start of the row
+   * @param current - scratch array of 3 ints a pixel is unpacked into
+   */
+  private void run(int[] row, int length, int[] current) {
+    for (Transform stage : this.stages) {
+      if (stage instanceof LookupTable) {
+        ((LookupTable) stage).applyPacked(row, length);
+        continue;
+      }
+      if (stage instanceof AbstractTransform) {
+        ((AbstractTransform) stage).applyPacked(row, length, this.max);
+        continue;
+      }
+      for (int j = 0; j < length; j++) {
+        int rgb = row[j];
+        current[0] = red(rgb);
+        current[1] = green(rgb);
+        current[2] = blue(rgb);
+        int[] edited = stage.edit(current);
+        row[j] = pack(clamp(edited[0]), clamp(edited[1]), clamp(edited[2]));
+      }
+    }
+  }
+
+  /**
+   * Keep a channel value between 0 and the max value of the image.
+   * @param value - channel value
+   * @return the clamped value
+   */
+  private int clamp(int value) {
+    return Math.max(0, Math.min(this.max, value));
+  }
+
+  /**
+   * Add a point operation to a chain, fusing it into the last one if both are lookup tables.
+   * @param stages - the chain so far
+   * @param stage - the point operation being added
+   * @return the new chain
+   */
+  private static Transform[] fuse(Transform[] stages, Transform stage) {
+    Transform last = stages[stages.length - 1];
+    if (last instanceof LookupTable && stage instanceof LookupTable) {
+      LookupTable fused = ((LookupTable) last).then((LookupTable) stage);
+      if (fused != null) {
+        Transform[] chain = stages.clone();
+        chain[chain.length - 1] = fused;
+        return chain;
+      }
+    }
+    Transform[] chain = Arrays.copyOf(stages, stages.length + 1);
+    chain[stages.length] = stage;
+    return chain;
+  }
+
+  /**
+   * Check the image is not null before its size is read.
+   * @param image - image being operated on
+   * @return the image
+   * @throws IllegalArgumentException - null image
+   */
+  private static AbstractRgbImage nonNull(AbstractRgbImage image)
+      throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    return image;
+  }
+}
@@ -0,0 +1,198 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ADDITION: This class reads the tokens of a PPM file straight from its bytes. The file is read
+ * through a FileChannel into one reused buffer, a large block at a time, and numbers are parsed
+ * digit by digit without making a String, so reading a file costs a pass over its bytes and no
+ * memory beyond the buffer and the image.
+ * <p>
+ * Whitespace of any kind separates tokens, and a comment runs from a '#' anywhere in the file to
+ * the end of its line.
+ * </p>
+ * <p>
+ * The samples of a raw (P5 or P6) file that follow its header are not tokens, and are read in
+ * blocks with readRaw() straight from the channel into the caller's buffer.
+ * </p>
+ */
+final class PpmReader implements Closeable {
+
+  /**
+   * Number of bytes read from the file at a time.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The file being read. Set to private and final to avoid outside access and reassignment.
+   */
+  private final FileChannel channel;
+
+  /**
+   * Bytes of the file read so far and not yet parsed, between position and limit. Set to private
+   * and final to avoid outside access and reassignment.
+   */
+  private final byte[] bytes;
+
+  /**
+   * The buffer the channel reads into, backed by bytes. Set to private and final to avoid outside
+   * access and reassignment.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * Index of the next byte to parse and the end of the bytes read. Set to private to avoid outside
+   * access, not final as they move as the file is read.
+   */
+  private int position;
+  private int limit;
+
+  /**
+   * Open a file to read its tokens.
+   * @param path - location of the file
+   * @throws IOException - the file cannot be opened
+   */
+  PpmReader(String path) throws IOException {
+    this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+    this.bytes = new byte[BUFFER_SIZE];
+    this.buffer = ByteBuffer.wrap(this.bytes);
+  }
+
+  /**
+   * Read the next token, the bytes up to the next whitespace or comment, like the magic number.
+   * @return the token
+   * @throws IOException - the file cannot be read
+   * @throws IllegalArgumentException - no token left
+   */
+  String nextToken() throws IOException, IllegalArgumentException {
+    int b = skip();
+    StringBuilder token = new StringBuilder();
+    while (b >= 0 && b != '#' && !isWhitespace(b)) {
+      token.append((char) b);
+      b = read();
+    }
+    if (b == '#') {
+      this.position--; // the comment is skipped before the next token
+    }
+    return token.toString();
+  }
+
+  /**
+   * Read the next token as a number that is not negative.
+   * @return the number
+   * @throws IOException - the file cannot be read
+   * @throws IllegalArgumentException - no token left, or it is not a number that fits an int
+   */
+  int nextInt() throws IOException, IllegalArgumentException {
+    int b = skip();
+    if (b < '0' || b > '9') {
+      throw invalid(b);
+    }
+    int value = 0;
+    do {
+      int digit = b - '0';
+      if (value > (Integer.MAX_VALUE - digit) / 10) {
+        throw new IllegalArgumentException("Invalid PPM file: number too large");
+      }
+      value = 10 * value + digit;
+      b = this.position < this.limit ? this.bytes[this.position++] & 0xff : read();
+    } while (b >= '0' && b <= '9');
+    if (b == '#') {
+      this.position--; // the comment is skipped before the next token
+    } else if (b >= 0 && !isWhitespace(b)) {
+      throw invalid(b);
+    }
+    return value;
+  }
+
+  /**
+   * Read the raw bytes that follow the header of a binary file, after the single whitespace byte
+   * nextInt() read after the max value, until the buffer is full. The bytes already read into the
+   * buffer of this reader are copied first, then the channel reads straight into the buffer given,
+   * so a direct buffer is filled without another copy.
+   * @param dst - buffer filled from its position to its limit
+   * @throws IOException - the file cannot be read
+   * @throws IllegalArgumentException - the file ends before the buffer is full
+   */
+  void readRaw(ByteBuffer dst) throws IOException, IllegalArgumentException {
+    int buffered = Math.min(this.limit - this.position, dst.remaining());
+    dst.put(this.bytes, this.position, buffered);
+    this.position += buffered;
+    while (dst.hasRemaining()) {
+      if (this.channel.read(dst) < 0) {
+        throw invalid(-1);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  /**
+   * Skip whitespace and comments.
+   * @return the first byte of the next token, -1 at the end of the file
+   * @throws IOException - the file cannot be read
+   */
+  private int skip() throws IOException {
+    int b = read();
+    while (b >= 0) {
+      if (b == '#') {
+        while (b >= 0 && b != '\n' && b != '\r') {
+          b = read();
+        }
+      } else if (!isWhitespace(b)) {
+        return b;
+      }
+      b = read();
+    }
+    return b;
+  }
+
+  /**
+   * Read the next byte, filling the buffer from the file when it has all been parsed.
+   * @return the byte from 0 to 255, or -1 at the end of the file
+   * @throws IOException - the file cannot be read
+   */
+  private int read() throws IOException {
+    if (this.position == this.limit) {
+      this.buffer.clear();
+      int read = this.channel.read(this.buffer);
+      while (read == 0) {
+        read = this.channel.read(this.buffer);
+      }
+      if (read < 0) {
+        return -1;
+      }
+      this.position = 0;
+      this.limit = read;
+    }
+    return this.bytes[this.position++] & 0xff;
+  }
+
+  /**
+   * Whether a byte is whitespace in a PPM file: space, tab, line feed, vertical tab, form feed or
+   * carriage return.
+   * @param b - the byte
+   * @return true if it is whitespace
+   */
+  private static boolean isWhitespace(int b) {
+    return b == ' ' || (b >= '\t' && b <= '\r');
+  }
+
+  /**
+   * Make the exception for a token that is not a number.
+   * @param b - the byte the token starts or goes wrong at, -1 at the end of the file
+   * @return the exception
+   */
+  private static IllegalArgumentException invalid(int b) {
+    return new IllegalArgumentException(b < 0 ? "Invalid PPM file: missing values"
+        : "Invalid PPM file: unexpected character '" + (char) b + "'");
+  }
+}
@@ -0,0 +1,260 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.transform.GreyscaleLuma;
+
+/**
+ * ADDITION: This class saves images as plain P3 and raw P6 and P5 files. Every sample is written
+ * into buffers made once per file, and large blocks of them go to the file through a FileChannel,
+ * so saving costs a few system calls per megabyte and allocates nothing per pixel.
+ * <p>
+ * Plain files are formatted a block of rows at a time into a buffer per row, digit by digit
+ * without making a String. The rows of a block can be formatted in parallel by a BandExecutor, as
+ * each row has its own buffer, and they are written in order with one gathering write, so the
+ * file is the same either way. Raw samples are packed into one direct buffer the channel writes
+ * from without a copy.
+ * </p>
+ */
+final class PpmWriter {
+
+  /**
+   * Number of bytes a block of rows should come to, rounded to whole rows.
+   */
+  private static final int BLOCK_SIZE = 1 << 20;
+
+  /**
+   * The bytes that follow every value of a plain file.
+   */
+  private static final byte[] SEPARATOR =
+      System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Most bytes a value of a plain file takes: a sign, 10 digits and the separator.
+   */
+  private static final int VALUE_SIZE = 11 + SEPARATOR.length;
+
+  /**
+   * Luma of a pixel, the grey value of a P5 file.
+   */
+  private static final GreyscaleLuma LUMA = new GreyscaleLuma();
+
+  private PpmWriter() {
+    // only static helpers
+  }
+
+  /**
+   * Save an image as a plain P3 file, one value per line.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @param executor - formats the rows of each block in parallel bands, or null to format them on
+   *                 the calling thread
+   * @throws IOException - if issues arise
+   */
+  static void plain(String path, Image image, BandExecutor executor) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    String separator = System.lineSeparator();
+    byte[] header = ("P3" + separator + "# Created by controller.PhotoProcessing" + separator
+        + width + " " + height + separator + image.getMaxValue() + separator)
+        .getBytes(StandardCharsets.US_ASCII);
+
+    // the typical row of 8-bit values takes 4 bytes a value, the buffers fit any row
+    int rows = Math.max(1, Math.min(height, BLOCK_SIZE / Math.max(1, 12 * width)));
+    int stride = 3 * width * VALUE_SIZE;
+    byte[] block = new byte[rows * stride];
+    ByteBuffer[] buffers = new ByteBuffer[rows];
+    for (int r = 0; r < rows; r++) {
+      buffers[r] = ByteBuffer.wrap(block, r * stride, stride);
+    }
+    boolean packed = image instanceof AbstractRgbImage;
+
+    try (FileChannel channel = open(path)) {
+      write(channel, ByteBuffer.wrap(header));
+      for (int i = 0; i < height; i += rows) {
+        int first = i;
+        int count = Math.min(rows, height - i);
+        RowBand band = (start, end) -> {
+          int[] row = new int[packed ? width : 3 * width];
+          for (int r = start; r < end; r++) {
+            int position = r * stride;
+            if (packed) {
+              ((AbstractRgbImage) image).readRGB(first + r, row);
+              for (int rgb : row) {
+                position = format(AbstractRgbImage.red(rgb), block, position);
+                position = format(AbstractRgbImage.green(rgb), block, position);
+                position = format(AbstractRgbImage.blue(rgb), block, position);
+              }
+            } else {
+              image.readRow(first + r, row);
+              for (int value : row) {
+                position = format(value, block, position);
+              }
+            }
+            buffers[r].limit(position).position(r * stride);
+          }
+        };
+        if (executor == null) {
+          band.apply(0, count);
+        } else {
+          executor.run(width, count, band);
+        }
+        long remaining = 0;
+        for (int r = 0; r < count; r++) {
+          remaining += buffers[r].remaining();
+        }
+        while (remaining > 0) {
+          remaining -= channel.write(buffers, 0, count);
+        }
+      }
+    }
+  }
+
+  /**
+   * Save an image as a raw file, with 2 byte big-endian samples when the max value is above 255.
+   * The header and a block of rows at a time are packed into a direct buffer the channel writes.
+   * @param path - file location in computer
+   * @param image - Image to be saved
+   * @param grey - whether each pixel is saved as its luma (P5) instead of 3 samples (P6)
+   * @throws IOException - if issues arise
+   * @throws IllegalArgumentException - a max value above 65535
+   */
+  static void raw(String path, Image image, boolean grey)
+      throws IOException, IllegalArgumentException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int max = image.getMaxValue();
+    if (max < 1 || max > ImageUtil.MAX_RAW_VALUE) {
+      throw new IllegalArgumentException("Cannot save max value " + max + " in a raw file");
+    }
+    int samples = grey ? 1 : 3;
+    boolean wide = max > AbstractRgbImage.MAX_RGB_VALUE;
+    int rowBytes = width * samples * (wide ? 2 : 1);
+    int rows = Math.max(1, Math.min(height, BLOCK_SIZE / Math.max(1, rowBytes)));
+    ByteBuffer block = ByteBuffer.allocateDirect(Math.max(rows * rowBytes, 64));
+    // exactly one whitespace byte may follow the max value
+    block.put(((grey ? "P5" : "P6") + "\n" + width + " " + height + "\n" + max + "\n")
+        .getBytes(StandardCharsets.US_ASCII));
+
+    AbstractRgbImage packed = !wide && image instanceof AbstractRgbImage
+        ? (AbstractRgbImage) image : null;
+    int[] row = new int[packed != null ? width : 3 * width];
+    int[] pixel = new int[3];
+    try (FileChannel channel = open(path)) {
+      for (int i = 0; i < height; i++) {
+        if (block.remaining() < rowBytes) {
+          flush(channel, block);
+        }
+        if (packed != null) {
+          packed.readRGB(i, row);
+          for (int rgb : row) {
+            if (grey) {
+              block.put((byte) grey(AbstractRgbImage.red(rgb), AbstractRgbImage.green(rgb),
+                  AbstractRgbImage.blue(rgb), pixel));
+            } else {
+              block.put((byte) (rgb >> 16)).put((byte) (rgb >> 8)).put((byte) rgb);
+            }
+          }
+          continue;
+        }
+        image.readRow(i, row);
+        for (int k = 0; k < row.length; k += 3) {
+          for (int c = 0; c < samples; c++) {
+            int v = grey ? grey(row[k], row[k + 1], row[k + 2], pixel) : row[k + c];
+            if (wide) {
+              block.putShort((short) v);
+            } else {
+              block.put((byte) v);
+            }
+          }
+        }
+      }
+      flush(channel, block);
+    }
+  }
+
+  /**
+   * Format a value in decimal followed by the separator.
+   * @param value - the value
+   * @param dst - the bytes being written
+   * @param position - index the value starts at
+   * @return index after the separator
+   */
+  private static int format(int value, byte[] dst, int position) {
+    long rest = value;
+    if (rest < 0) {
+      dst[position++] = '-';
+      rest = -rest;
+    }
+    int end = position + 1;
+    for (long power = 10; power <= rest; power *= 10) {
+      end++;
+    }
+    for (int p = end - 1; p >= position; p--) {
+      dst[p] = (byte) ('0' + rest % 10);
+      rest /= 10;
+    }
+    for (byte b : SEPARATOR) {
+      dst[end++] = b;
+    }
+    return end;
+  }
+
+  /**
+   * Open a file for writing, replacing anything in it.
+   * @param path - file location in computer
+   * @return the channel
+   * @throws IOException - if issues arise
+   */
+  private static FileChannel open(String path) throws IOException {
+    return FileChannel.open(Paths.get(path), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Write the bytes of a buffer from its position to its limit to a channel.
+   * @param channel - the file
+   * @param bytes - the buffer
+   * @throws IOException - if issues arise
+   */
+  private static void write(FileChannel channel, ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+
+  /**
+   * Write the bytes of a buffer up to its position to a channel and clear it.
+   * @param channel - the file
+   * @param block - the buffer
+   * @throws IOException - if issues arise
+   */
+  private static void flush(FileChannel channel, ByteBuffer block) throws IOException {
+    block.flip();
+    write(channel, block);
+    block.clear();
+  }
+
+  /**
+   * Get the luma of a pixel, the channel value of a greyscale pixel.
+   * @param r - red channel
+   * @param g - green channel
+   * @param b - blue channel
+   * @param pixel - scratch array of 3 ints
+   * @return the grey value
+   */
+  private static int grey(int r, int g, int b, int[] pixel) {
+    if (r == g && g == b) {
+      return r;
+    }
+    pixel[0] = r;
+    pixel[1] = g;
+    pixel[2] = b;
+    return LUMA.edit(pixel, pixel)[0];
+  }
+}
@@ -0,0 +1,25 @@
+package model;
+
+/**
+ * ADDITION: Interface that represents the listener of a long operation run on a background thread,
+ * like a command of the GUI. Once it is set for a thread with BandExecutor.setProgress(), every
+ * operation that thread runs through a BandExecutor reports the rows it has done, and stops
+ * between rows once the listener is cancelled. update() is called from the threads the bands run
+ * on, so an implementation must be thread safe and quick, and hand any drawing to the thread that
+ * owns the view.
+ */
+public interface Progress {
+
+  /**
+   * Report how much of the operation running is done.
+   * @param done - number of rows done so far
+   * @param total - number of rows of the operation
+   */
+  void update(long done, long total);
+
+  /**
+   * Has the operation been cancelled, so it should stop at the next band of rows.
+   * @return true once cancelled
+   */
+  boolean isCancelled();
+}
@@ -0,0 +1,176 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * ADDITION: This class reads and writes the rows of a BufferedImage as packed 0xRRGGBB pixels
+ * straight from the arrays of its raster, for the layouts ImageIO reads and writes most:
+ * TYPE_INT_RGB and TYPE_INT_ARGB (one int per pixel), and TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR (one
+ * byte per channel). getRGB() and setRGB() convert every pixel through the ColorModel of the
+ * image, which these layouts do not need as they already hold sRGB channels. Any other image, like
+ * a premultiplied, indexed or grey one, is read and written through getRGB() and setRGB(), so the
+ * pixels are the same either way.
+ */
+final class RasterRows {
+
+  /**
+   * The image. Set to private and final to avoid outside access and reassignment.
+   */
+  private final BufferedImage image;
+
+  /**
+   * The ints of an int layout, the bytes of a byte layout, or null for the others. Set to private
+   * and final to avoid outside access and reassignment.
+   */
+  private final int[] ints;
+  private final byte[] bytes;
+
+  /**
+   * Index of the first pixel, elements from one row to the next and from one pixel to the next.
+   * Set to private and final to avoid outside access and reassignment.
+   */
+  private final int offset;
+  private final int scanline;
+  private final int pixelStride;
+
+  /**
+   * Offsets of the channels of a pixel in a byte layout, and of alpha, -1 without alpha. Set to
+   * private and final to avoid outside access and reassignment.
+   */
+  private final int red;
+  private final int green;
+  private final int blue;
+  private final int alpha;
+
+  /**
+   * Find the layout of the raster of an image.
+   * @param image - the image
+   * @throws IllegalArgumentException - null image
+   */
+  RasterRows(BufferedImage image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    this.image = image;
+    WritableRaster raster = image.getRaster();
+    SampleModel model = raster.getSampleModel();
+    // a sub-image shares the array of its parent, so it is read through getRGB()
+    boolean whole = raster.getSampleModelTranslateX() == 0
+        && raster.getSampleModelTranslateY() == 0;
+    int type = image.getType();
+
+    if (whole && (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+        && model instanceof SinglePixelPackedSampleModel
+        && raster.getDataBuffer() instanceof DataBufferInt) {
+      DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+      this.ints = buffer.getData();
+      this.bytes = null;
+      this.offset = buffer.getOffset();
+      this.scanline = ((SinglePixelPackedSampleModel) model).getScanlineStride();
+      this.pixelStride = 1;
+      this.red = 0;
+      this.green = 0;
+      this.blue = 0;
+      this.alpha = type == BufferedImage.TYPE_INT_ARGB ? 0 : -1;
+    } else if (whole
+        && (type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)
+        && model instanceof ComponentSampleModel
+        && raster.getDataBuffer() instanceof DataBufferByte) {
+      ComponentSampleModel components = (ComponentSampleModel) model;
+      DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+      int[] bands = components.getBandOffsets(); // red, green, blue and alpha
+      this.ints = null;
+      this.bytes = buffer.getData();
+      this.offset = buffer.getOffset();
+      this.scanline = components.getScanlineStride();
+      this.pixelStride = components.getPixelStride();
+      this.red = bands[0];
+      this.green = bands[1];
+      this.blue = bands[2];
+      this.alpha = bands.length > 3 ? bands[3] : -1;
+    } else {
+      this.ints = null;
+      this.bytes = null;
+      this.offset = 0;
+      this.scanline = 0;
+      this.pixelStride = 0;
+      this.red = 0;
+      this.green = 0;
+      this.blue = 0;
+      this.alpha = -1;
+    }
+  }
+
+  /**
+   * Are the rows read and written straight from the arrays of the raster.
+   * @return true for a known layout, false if the ColorModel converts every pixel
+   */
+  boolean isDirect() {
+    return this.ints != null || this.bytes != null;
+  }
+
+  /**
+   * Read a row of the image as packed pixels, alpha dropped.
+   * @param r - the row
+   * @param dst - array the row is written to
+   * @param start - index of dst the row starts at
+   */
+  void read(int r, int[] dst, int start) {
+    int width = this.image.getWidth();
+    int p = this.offset + r * this.scanline;
+    if (this.ints != null) {
+      for (int j = 0; j < width; j++) {
+        dst[start + j] = this.ints[p + j] & 0xffffff;
+      }
+    } else if (this.bytes != null) {
+      for (int j = 0; j < width; j++, p += this.pixelStride) {
+        dst[start + j] = (this.bytes[p + this.red] & 0xff) << 16
+            | (this.bytes[p + this.green] & 0xff) << 8 | this.bytes[p + this.blue] & 0xff;
+      }
+    } else {
+      this.image.getRGB(0, r, width, 1, dst, start, width);
+      for (int j = start; j < start + width; j++) {
+        dst[j] &= 0xffffff;
+      }
+    }
+  }
+
+  /**
+   * Write a row of packed pixels to the image, fully opaque.
+   * @param r - the row
+   * @param src - array the row is read from
+   * @param start - index of src the row starts at
+   */
+  void write(int r, int[] src, int start) {
+    int width = this.image.getWidth();
+    int p = this.offset + r * this.scanline;
+    if (this.ints != null) {
+      int opaque = this.alpha < 0 ? 0 : 0xff000000;
+      for (int j = 0; j < width; j++) {
+        this.ints[p + j] = opaque | src[start + j] & 0xffffff;
+      }
+    } else if (this.bytes != null) {
+      for (int j = 0; j < width; j++, p += this.pixelStride) {
+        int rgb = src[start + j];
+        this.bytes[p + this.red] = (byte) (rgb >> 16);
+        this.bytes[p + this.green] = (byte) (rgb >> 8);
+        this.bytes[p + this.blue] = (byte) rgb;
+        if (this.alpha >= 0) {
+          this.bytes[p + this.alpha] = (byte) 0xff;
+        }
+      }
+    } else {
+      int[] opaque = new int[width];
+      for (int j = 0; j < width; j++) {
+        opaque[j] = 0xff000000 | src[start + j];
+      }
+      this.image.setRGB(0, r, width, 1, opaque, 0, width);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package model;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents a rectangle of
+ * another 8-bit image, its parent. A region does not copy any pixels, it reads them straight from
+ * the storage of its parent, so cropping a tile out of a large image costs nothing until the tile
+ * is operated on or saved.
+ * <p>
+ * A region is read only, like every image in the model map. The result of an operation on a region
+ * is created at the size of the region in the same storage as its parent. A region of a region is
+ * a region of the original parent, so views never chain.
+ * </p>
+ */
+public class RegionImage extends AbstractRgbImage {
+
+  /**
+   * The image this region reads its pixels from. Set to private and final to avoid outside access
+   * and reassignment.
+   */
+  private final AbstractRgbImage parent;
+
+  /**
+   * Column of the parent the region starts at. Set to private and final to avoid outside access
+   * and reassignment.
+   */
+  private final int x;
+
+  /**
+   * Row of the parent the region starts at. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final int y;
+
+  /**
+   * Construct a view of a rectangle of an 8-bit image.
+   * @param filename - the file name of object in the model.
+   * @param parent - image the region is taken from.
+   * @param x - column of the parent the region starts at.
+   * @param y - row of the parent the region starts at.
+   * @param width - width of the region.
+   * @param height - height of the region.
+   * @throws IllegalArgumentException - null input or a rectangle that is not inside the parent
+   */
+  public RegionImage(String filename, AbstractRgbImage parent, int x, int y, int width,
+                     int height) throws IllegalArgumentException {
+    super(filename, width, height, nonNull(parent).max);
+    if (x < 0 || y < 0 || (long) x + width > parent.width || (long) y + height > parent.height) {
+      throw new IllegalArgumentException("Region is not inside image " + parent.filename);
+    }
+    if (parent instanceof RegionImage) { // point at the original storage
+      RegionImage region = (RegionImage) parent;
+      this.parent = region.parent;
+      this.x = region.x + x;
+      this.y = region.y + y;
+    } else {
+      this.parent = parent;
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  /**
+   * Crop any image, for every model. An 8-bit image gets a region that reads the storage of the
+   * original, so nothing is copied, any other image is copied into a cropped ImageImpl.
+   * @param filename - the file name of the cropped image in the model.
+   * @param image - image the region is taken from.
+   * @param x - column of the image the region starts at.
+   * @param y - row of the image the region starts at.
+   * @param width - width of the region.
+   * @param height - height of the region.
+   * @return the cropped image
+   * @throws IllegalArgumentException - null input or a rectangle that is not inside the image
+   */
+  public static Image cropped(String filename, Image image, int x, int y, int width, int height)
+      throws IllegalArgumentException {
+    if (image instanceof AbstractRgbImage) {
+      return new RegionImage(filename, (AbstractRgbImage) image, x, y, width, height);
+    }
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (width <= 0 || height <= 0 || x < 0 || y < 0 || (long) x + width > image.getWidth()
+        || (long) y + height > image.getHeight()) {
+      throw new IllegalArgumentException("Region is not inside image " + image.getFilename());
+    }
+    ImageImpl cropped = new ImageImpl(filename, new int[height][width][3], image.getMaxValue());
+    int[] row = new int[3 * width];
+    for (int i = 0; i < height; i++) {
+      image.readRegion(x, y + i, width, 1, row);
+      cropped.writeRow(i, row);
+    }
+    return cropped;
+  }
+
+  /**
+   * Column of the original image this region starts at.
+   * @return x offset of the region
+   */
+  public int getX() {
+    return this.x;
+  }
+
+  /**
+   * Row of the original image this region starts at.
+   * @return y offset of the region
+   */
+  public int getY() {
+    return this.y;
+  }
+
+  @Override
+  int rgb(int r, int c) {
+    return this.parent.rgb(this.y + r, this.x + c);
+  }
+
+  @Override
+  void readRGB(int r, int c, int length, int[] dst, int offset) {
+    this.parent.readRGB(this.y + r, this.x + c, length, dst, offset);
+  }
+
+  @Override
+  void writeRGB(int r, int c, int length, int[] src, int offset) throws IllegalStateException {
+    throw new IllegalStateException("Cannot write to region " + this.filename);
+  }
+
+  @Override
+  AbstractRgbImage blank(String filename, int width, int height) {
+    return this.parent.blank(filename, width, height);
+  }
+
+  @Override
+  boolean uses(AbstractRgbImage other) {
+    return this == other || this.parent.uses(other);
+  }
+
+  @Override
+  AbstractRgbImage source() {
+    return this.parent;
+  }
+
+  /**
+   * Check the parent is not null before its max value is read.
+   * @param parent - image the region is taken from
+   * @return the parent
+   * @throws IllegalArgumentException - null parent
+   */
+  private static AbstractRgbImage nonNull(AbstractRgbImage parent)
+      throws IllegalArgumentException {
+    if (parent == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    return parent;
+  }
+}
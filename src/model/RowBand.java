@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * ADDITION: Interface that represents the work of an operation on a band of rows of an image. The
+ * BandExecutor splits an image into bands and calls apply() on each band, possibly at the same
+ * time on different threads, so an implementation must only write the rows of its own band and
+ * keep its scratch arrays local to each call.
+ */
+public interface RowBand {
+
+  /**
+   * Do the work for every row from start (inclusive) to end (exclusive).
+   * @param start - first row of the band
+   * @param end - row after the last row of the band
+   */
+  void apply(int start, int end);
+}
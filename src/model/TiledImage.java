@@ -0,0 +1,285 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ADDITION: This class extends the abstract 8-bit image class and represents an image that can be
+ * larger than the Java heap. Its packed 0xRRGGBB pixels are kept in a scratch file on disk, and the
+ * file is memory-mapped one tile at a time when a tile is needed.
+ * <p>
+ * A tile is a band of whole rows of a fixed size of about TILE_BYTES, so the model, which reads
+ * and writes images a row at a time from top to bottom, walks the image tile by tile. Only the
+ * most recently used MAX_MAPPED_TILES tiles stay mapped, the rest are unmapped and paged in again
+ * when they are used.
+ * </p>
+ * <p>
+ * The scratch file is deleted when the model releases the image. The files of images that are
+ * still alive when the program exits are deleted then, by one shutdown hook shared by every
+ * image, which forgets a file as soon as its image is released.
+ * Reads and writes are synchronized, so a tile is never unmapped while another thread is using
+ * it.
+ * </p>
+ */
+public class TiledImage extends AbstractRgbImage {
+
+  /**
+   * Approximate size in bytes of one tile.
+   */
+  public static final int TILE_BYTES = 8 << 20;
+
+  /**
+   * Number of tiles that can be mapped at the same time.
+   */
+  public static final int MAX_MAPPED_TILES = 16;
+
+  /**
+   * Scratch files of the images that have not been released yet, deleted when the program exits.
+   */
+  private static final Set<Path> SCRATCH_FILES = scratchFiles();
+
+  /**
+   * Number of rows in every tile, the last tile may have less. Set to private and final to avoid
+   * outside access and reassignment.
+   */
+  private final int tileRows;
+
+  /**
+   * The scratch file holding the pixels. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final Path file;
+
+  /**
+   * Channel of the scratch file, null once the image has been released. Set to private to avoid
+   * outside access, not final as it is cleared by release().
+   */
+  private FileChannel channel;
+
+  /**
+   * Mapped tiles by tile index, in least recently used order. Set to private and final to avoid
+   * outside access and reassignment.
+   */
+  private final LinkedHashMap<Integer, Tile> mapped;
+
+  /**
+   * Construct a new tiled image with every channel of every pixel set to 0, with tiles of about
+   * TILE_BYTES.
+   * @param filename - the file name of object in the model.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @throws IllegalArgumentException - null name, bad dimensions or max larger than 255
+   * @throws UncheckedIOException - the scratch file cannot be created
+   */
+  public TiledImage(String filename, int width, int height, int max)
+      throws IllegalArgumentException {
+    this(filename, width, height, max,
+        (int) Math.max(1, TILE_BYTES / ((long) width * Integer.BYTES)));
+  }
+
+  /**
+   * Construct a new tiled image with every channel of every pixel set to 0 and the given number of
+   * rows in each tile, creating its scratch file in the default temporary directory.
+   * @param filename - the file name of object in the model.
+   * @param width - width of the image.
+   * @param height - height of the image.
+   * @param max - max val of a pixel channel, at most 255.
+   * @param tileRows - number of rows in each tile
+   * @throws IllegalArgumentException - null name, bad dimensions, tileRows less than 1 or max
+   *                                    larger than 255
+   * @throws UncheckedIOException - the scratch file cannot be created
+   */
+  public TiledImage(String filename, int width, int height, int max, int tileRows)
+      throws IllegalArgumentException {
+    super(filename, width, height, max);
+    if (tileRows < 1) {
+      throw new IllegalArgumentException("Invalid tile size");
+    }
+    this.tileRows = tileRows;
+    this.mapped = new LinkedHashMap<>(MAX_MAPPED_TILES, 0.75f, true);
+    try {
+      this.file = Files.createTempFile("tiled-image", ".raw");
+      SCRATCH_FILES.add(this.file);
+      this.channel = FileChannel.open(this.file, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      // make the file its full size up front so every tile can be mapped
+      this.channel.write(ByteBuffer.allocate(1), (long) width * height * Integer.BYTES - 1);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Construct a new tiled image holding a copy of the pixels of another 8-bit image, with the
+   * given number of rows in each tile.
+   * @param filename - the file name of object in the model.
+   * @param image - image being copied
+   * @param tileRows - number of rows in each tile
+   * @throws IllegalArgumentException - null input or tileRows less than 1
+   * @throws UncheckedIOException - the scratch file cannot be created
+   */
+  public TiledImage(String filename, AbstractRgbImage image, int tileRows)
+      throws IllegalArgumentException {
+    this(filename, nonNull(image).width, image.height, image.max, tileRows);
+    int[] row = new int[this.width];
+    for (int i = 0; i < this.height; i++) {
+      image.readRGB(i, row);
+      writeRGB(i, row);
+    }
+  }
+
+  /**
+   * Number of rows in each tile of this image.
+   * @return rows per tile
+   */
+  public int getTileRows() {
+    return this.tileRows;
+  }
+
+  @Override
+  synchronized int rgb(int r, int c) {
+    return tile(r / this.tileRows).pixels.get((r % this.tileRows) * this.width + c);
+  }
+
+  @Override
+  synchronized void readRGB(int r, int c, int length, int[] dst, int offset) {
+    tile(r / this.tileRows).pixels.get((r % this.tileRows) * this.width + c, dst, offset,
+        length);
+  }
+
+  @Override
+  synchronized void writeRGB(int r, int c, int length, int[] src, int offset) {
+    tile(r / this.tileRows).pixels.put((r % this.tileRows) * this.width + c, src, offset,
+        length);
+  }
+
+  @Override
+  TiledImage blank(String filename, int width, int height) {
+    if (width == this.width) {
+      return new TiledImage(filename, width, height, this.max, this.tileRows);
+    }
+    return new TiledImage(filename, width, height, this.max);
+  }
+
+  @Override
+  synchronized void release() {
+    for (Tile tile : this.mapped.values()) {
+      DirectBuffers.free(tile.buffer);
+    }
+    this.mapped.clear();
+    if (this.channel != null) {
+      try {
+        this.channel.close();
+        Files.deleteIfExists(this.file);
+        SCRATCH_FILES.remove(this.file);
+      } catch (IOException e) {
+        // the file is still deleted when the program exits
+      }
+      this.channel = null;
+    }
+  }
+
+  /**
+   * Has this image been released, deleting its scratch file.
+   * @return true if the model released the image
+   */
+  public synchronized boolean isReleased() {
+    return this.channel == null;
+  }
+
+  /**
+   * Get a mapped tile, mapping it and unmapping the least recently used tile if needed. Only
+   * called while holding the lock of this image.
+   * @param index - index of the tile
+   * @return the mapped tile
+   * @throws IllegalStateException - the image has been released
+   */
+  private Tile tile(int index) throws IllegalStateException {
+    Tile tile = this.mapped.get(index);
+    if (tile != null) {
+      return tile;
+    }
+    if (this.channel == null) {
+      throw new IllegalStateException("Image " + this.filename + " has been released");
+    }
+
+    if (this.mapped.size() >= MAX_MAPPED_TILES) {
+      Iterator<Map.Entry<Integer, Tile>> eldest = this.mapped.entrySet().iterator();
+      DirectBuffers.free(eldest.next().getValue().buffer);
+      eldest.remove();
+    }
+
+    int rows = Math.min(this.tileRows, this.height - index * this.tileRows);
+    long offset = (long) index * this.tileRows * this.width * Integer.BYTES;
+    try {
+      MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, offset,
+          (long) rows * this.width * Integer.BYTES);
+      tile = new Tile(buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.mapped.put(index, tile);
+    return tile;
+  }
+
+  /**
+   * Make the set of scratch files still in use, and the shutdown hook deleting them.
+   * @return the empty set
+   */
+  private static Set<Path> scratchFiles() {
+    Set<Path> files = ConcurrentHashMap.newKeySet();
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      for (Path file : files) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          // left in the temporary directory
+        }
+      }
+    }, "tiled-image-cleanup"));
+    return files;
+  }
+
+  /**
+   * Check the image being copied is not null before its size is read.
+   * @param image - image being copied
+   * @return the image
+   * @throws IllegalArgumentException - null image
+   */
+  private static AbstractRgbImage nonNull(AbstractRgbImage image)
+      throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    return image;
+  }
+
+  /**
+   * A mapped tile, keeping the mapped buffer so it can be unmapped and an int view of it to read
+   * and write packed pixels.
+   */
+  private static final class Tile {
+
+    private final MappedByteBuffer buffer;
+    private final IntBuffer pixels;
+
+    private Tile(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+      this.pixels = buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package model.filter;
 
+import model.BandExecutor;
+import model.Image;
+
 /**
  * *** NEW CLASS: This is a new class from the previous assignment. ***
  * <p>
@@ -25,6 +28,17 @@ package model.filter;
  * new filters requires just adding a new class in our filter package that extends the
  * AbstractFilter class.
  * </p>
+ * <p>
+ * ADDITION: The model filters whole images with apply(), which convolves the image with the
+ * kernel in one pass (see Convolution) with the same result as calling edit() for every pixel.
+ * The border decides what the kernel reads past the edges of the image, LEGACY by default to
+ * match edit().
+ * </p>
+ * <p>
+ * ADDITION: A filter that is not exact may round differently from edit(). If its kernel is the
+ * outer product of two vectors (see Convolution.separate()) it runs as a separable convolution,
+ * 2k instead of k * k multiply-adds per channel. Filters are exact by default.
+ * </p>
  */
 public class AbstractFilter implements Filter {
 
@@ -37,11 +51,52 @@ public class AbstractFilter implements Filter {
    */
   protected double[][] kernel;
 
+  /**
+   * ADDITION: how the kernel treats positions past the edges of the image. Set to protected so
+   * classes that extend can choose it in their constructor, like the kernel.
+   */
+  protected Border border;
+
+  /**
+   * ADDITION: must the filter give exactly the result of edit(), which rules out the separable
+   * path. Set to protected so classes that extend can choose it in their constructor.
+   */
+  protected boolean exact;
+
   /**
    * Construct a new AbstractFilter class. The kernel field is just a nested array of value 1.
    */
   public AbstractFilter() {
     this.kernel = new double[][]{{1.0}};
+    this.border = Border.LEGACY;
+    this.exact = true;
+  }
+
+  /**
+   * ADDITION: Get how the kernel treats positions past the edges of the image.
+   * @return the border
+   */
+  public Border getBorder() {
+    return this.border;
+  }
+
+  /**
+   * ADDITION: Does the filter give exactly the result of edit(), or may it run a separable
+   * kernel that rounds differently.
+   * @return true if the filter is exact
+   */
+  public boolean isExact() {
+    return this.exact;
+  }
+
+  /**
+   * Get the range of the kernel, the number of rows and columns it reaches on each side of the
+   * pixel being filtered. The model uses this to know which rows of an image a filtered row
+   * depends on.
+   * @return half the kernel size, rounded down
+   */
+  public int getRange() {
+    return (kernel.length - 1) / 2;
   }
 
   @Override
@@ -70,4 +125,15 @@ public class AbstractFilter implements Filter {
     // method filter()
     return pixel;
   }
+
+  @Override
+  public void apply(Image source, Image target, BandExecutor executor)
+      throws IllegalArgumentException {
+    double[][] vectors = this.exact ? null : Convolution.separate(this.kernel);
+    if (vectors != null) {
+      new Convolution(vectors[0], vectors[1], this.border).apply(source, target, executor);
+    } else {
+      new Convolution(this.kernel, this.border).apply(source, target, executor);
+    }
+  }
 }
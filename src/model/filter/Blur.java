@@ -20,4 +20,32 @@ public class Blur extends AbstractFilter {
         {0.125, 0.25, 0.125},
         {0.0625, 0.125, 0.0625}};
   }
+
+  /**
+   * ADDITION: Create new Blur object whose kernel treats positions past the edges of the image
+   * with the given border.
+   * @param border - how positions past the edges of the image are treated
+   * @throws IllegalArgumentException - null border
+   */
+  public Blur(Border border) throws IllegalArgumentException {
+    this(border, true);
+  }
+
+  /**
+   * ADDITION: Create new Blur object with the given border that, when it is not exact, runs as a
+   * horizontal then a vertical pass of [0.25, 0.5, 0.25] instead of the whole 3x3 kernel. The
+   * passes are faster and round once instead of truncating every product like edit(), so a
+   * channel can come out up to one level brighter for each of the 9 kernel positions.
+   * @param border - how positions past the edges of the image are treated
+   * @param exact - true to give exactly the result of edit()
+   * @throws IllegalArgumentException - null border
+   */
+  public Blur(Border border, boolean exact) throws IllegalArgumentException {
+    this();
+    if (border == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    super.border = border;
+    super.exact = exact;
+  }
 }
@@ -0,0 +1,56 @@
+package model.filter;
+
+/**
+ * ADDITION: Enum that represents how a convolution treats the part of a kernel that reaches past
+ * the edge of an image.
+ */
+public enum Border {
+
+  /**
+   * The behaviour of the original edit() of AbstractFilter: positions outside the image are left
+   * out of the sum, and so are the first row and the first column of the image. This is the
+   * default, so existing filters give the same images as before.
+   */
+  LEGACY,
+
+  /**
+   * Positions outside the image are left out of the sum, as if they were black.
+   */
+  ZERO,
+
+  /**
+   * Positions outside the image take the value of the nearest pixel on the edge.
+   */
+  EXTEND,
+
+  /**
+   * Positions outside the image take the value of the pixel mirrored across the edge, without
+   * repeating the edge pixel.
+   */
+  REFLECT;
+
+  /**
+   * Map a row or column index that may be outside the image to the index it reads from.
+   *
+   * @param index - row or column, possibly negative or past the end
+   * @param size  - number of rows or columns of the image
+   * @return the index that is read, or -1 if the position is left out of the sum
+   */
+  int map(int index, int size) {
+    switch (this) {
+      case LEGACY:
+        return index > 0 && index < size ? index : -1;
+      case ZERO:
+        return index >= 0 && index < size ? index : -1;
+      case EXTEND:
+        return Math.max(0, Math.min(size - 1, index));
+      default:
+        if (size == 1) {
+          return 0;
+        }
+        int period = 2 * (size - 1);
+        int folded = Math.floorMod(index, period);
+        return folded < size ? folded : period - folded;
+    }
+  }
+}
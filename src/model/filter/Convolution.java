@@ -0,0 +1,490 @@
+package model.filter;
+
+import java.util.Arrays;
+
+import model.BandExecutor;
+import model.Image;
+
+/**
+ * ADDITION: This class convolves a whole image with a kernel in one pass over its rows, instead of
+ * calling edit() for every pixel on a copy of the image.
+ * <p>
+ * Each source row is read once with readRow() into a padded row, where the columns the kernel
+ * reaches past the left and right edges are filled in by the Border. A ring of the last rows read
+ * holds the rows the kernel can reach, so a row of the result is a multiply-add of every kernel
+ * position over whole rows of ints, clamped to 0 and the max value of the source and written with
+ * writeRow().
+ * </p>
+ * <p>
+ * Each product is cast to int before it is added, exactly like edit() in AbstractFilter, so the
+ * result is bit-identical to filtering one pixel at a time. Rows are split into bands run by a
+ * BandExecutor, each band with its own ring, so large images are filtered in parallel.
+ * </p>
+ * <p>
+ * A separable convolution is built from the two vectors whose outer product is the kernel, and
+ * runs as a horizontal pass over each source row, kept in the ring, then a vertical pass over the
+ * ring, 2k instead of k * k multiply-adds per channel. It sums in doubles and rounds to the nearest
+ * int once at the end, so it can differ from edit(), which truncates every product, and is only
+ * used when asked for.
+ * </p>
+ * <p>
+ * When every weight of the kernel is a small multiple of a power of two, like the weights of Blur
+ * and Sharpen, and the rows hold channels of at most MAX_INT_CHANNEL, each product is computed in
+ * ints as a multiply and a shift, which is exactly the truncated double product. The inner loops
+ * are then plain int loops over whole rows that the JIT compiles to vector instructions, with the
+ * same result as the double loops used for any other kernel.
+ * </p>
+ */
+public class Convolution {
+
+  /**
+   * Largest channel value a row can hold for the products to be computed in ints.
+   */
+  public static final int MAX_INT_CHANNEL = 65535;
+
+  /**
+   * Largest multiplier of a weight computed in ints, so a product of a channel of at most
+   * MAX_INT_CHANNEL fits in an int.
+   */
+  private static final int MAX_MULTIPLIER = 1 << 14;
+
+  /**
+   * Largest power of two dividing the multiplier of a weight computed in ints.
+   */
+  private static final int MAX_SHIFT = 16;
+
+  /**
+   * The kernel, an odd sized square of doubles, null for a separable convolution. Set to private
+   * and final to avoid outside access and reassignment.
+   */
+  private final double[][] kernel;
+
+  /**
+   * The column vector of a separable kernel, applied down the rows, null otherwise. Set to
+   * private and final to avoid outside access and reassignment.
+   */
+  private final double[] vertical;
+
+  /**
+   * The row vector of a separable kernel, applied across the columns, null otherwise. Set to
+   * private and final to avoid outside access and reassignment.
+   */
+  private final double[] horizontal;
+
+  /**
+   * How positions past the edges of the image are treated. Set to private and final to avoid
+   * outside access and reassignment.
+   */
+  private final Border border;
+
+  /**
+   * Each weight of the kernel as multiplier / 2^shift, null if a weight is not of that form. Set
+   * to private and final to avoid outside access and reassignment.
+   */
+  private final int[][] multipliers;
+
+  /**
+   * The power of two each multiplier is divided by. Set to private and final to avoid outside
+   * access and reassignment.
+   */
+  private final int[][] shifts;
+
+  /**
+   * Construct a convolution with a copy of the given kernel.
+   *
+   * @param kernel - an odd sized square of doubles
+   * @param border - how positions past the edges of the image are treated
+   * @throws IllegalArgumentException - null input or a kernel that is not an odd sized square
+   */
+  public Convolution(double[][] kernel, Border border) throws IllegalArgumentException {
+    if (kernel == null || border == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (kernel.length % 2 == 0) {
+      throw new IllegalArgumentException("Kernel size must be odd");
+    }
+    this.kernel = new double[kernel.length][];
+    for (int i = 0; i < kernel.length; i++) {
+      if (kernel[i] == null || kernel[i].length != kernel.length) {
+        throw new IllegalArgumentException("Kernel must be square");
+      }
+      this.kernel[i] = kernel[i].clone();
+    }
+    this.vertical = null;
+    this.horizontal = null;
+    this.border = border;
+
+    int[][] multipliers = new int[kernel.length][kernel.length];
+    int[][] shifts = new int[kernel.length][kernel.length];
+    for (int a = 0; a < kernel.length && multipliers != null; a++) {
+      for (int b = 0; b < kernel.length && multipliers != null; b++) {
+        shifts[a][b] = dyadicShift(kernel[a][b]);
+        if (shifts[a][b] < 0) {
+          multipliers = null;
+        } else {
+          multipliers[a][b] = (int) Math.scalb(kernel[a][b], shifts[a][b]);
+        }
+      }
+    }
+    this.multipliers = multipliers;
+    this.shifts = multipliers == null ? null : shifts;
+  }
+
+  /**
+   * Construct a separable convolution whose kernel is the outer product of a column vector and a
+   * row vector, kernel[a][b] = vertical[a] * horizontal[b].
+   *
+   * @param vertical   - column vector of the kernel, applied down the rows
+   * @param horizontal - row vector of the kernel, applied across the columns
+   * @param border     - how positions past the edges of the image are treated
+   * @throws IllegalArgumentException - null input or vectors that are not the same odd length
+   */
+  public Convolution(double[] vertical, double[] horizontal, Border border)
+      throws IllegalArgumentException {
+    if (vertical == null || horizontal == null || border == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (vertical.length % 2 == 0 || vertical.length != horizontal.length) {
+      throw new IllegalArgumentException("Kernel size must be odd");
+    }
+    this.kernel = null;
+    this.vertical = vertical.clone();
+    this.horizontal = horizontal.clone();
+    this.border = border;
+    this.multipliers = null;
+    this.shifts = null;
+  }
+
+  /**
+   * Split a kernel into the column and row vectors whose outer product it is, if it has rank 1.
+   * The vectors are scaled so the row vector holds the row of the largest entry of the kernel.
+   *
+   * @param kernel - an odd sized square of doubles
+   * @return {vertical, horizontal}, or null if the kernel is 0 or not separable
+   * @throws IllegalArgumentException - null kernel
+   */
+  public static double[][] separate(double[][] kernel) throws IllegalArgumentException {
+    if (kernel == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    int p = 0;
+    int q = 0;
+    for (int a = 0; a < kernel.length; a++) {
+      if (kernel[a] == null || kernel[a].length != kernel.length) {
+        return null;
+      }
+      for (int b = 0; b < kernel.length; b++) {
+        if (Math.abs(kernel[a][b]) > Math.abs(kernel[p][q])) {
+          p = a;
+          q = b;
+        }
+      }
+    }
+    double pivot = kernel[p][q];
+    if (pivot == 0) {
+      return null;
+    }
+    double[] vertical = new double[kernel.length];
+    double[] horizontal = kernel[p].clone();
+    for (int a = 0; a < kernel.length; a++) {
+      vertical[a] = kernel[a][q] / pivot;
+    }
+    // every entry must be the product of its row's and column's factor
+    for (int a = 0; a < kernel.length; a++) {
+      for (int b = 0; b < kernel.length; b++) {
+        if (Math.abs(vertical[a] * horizontal[b] - kernel[a][b]) > 1e-9 * Math.abs(pivot)) {
+          return null;
+        }
+      }
+    }
+    return new double[][]{vertical, horizontal};
+  }
+
+  /**
+   * Is this a separable convolution, run as a horizontal then a vertical pass.
+   *
+   * @return true if it was built from two vectors
+   */
+  public boolean isSeparable() {
+    return this.kernel == null;
+  }
+
+  /**
+   * Are the products of this convolution computed in ints, because every weight of its kernel is
+   * a multiple of a power of two small enough. Rows with a channel above MAX_INT_CHANNEL are still
+   * summed in doubles.
+   *
+   * @return true if the kernel has an int form
+   */
+  public boolean isDyadic() {
+    return this.multipliers != null;
+  }
+
+  /**
+   * Get the range of the kernel, the number of rows and columns it reaches on each side of the
+   * pixel being filtered.
+   *
+   * @return half the kernel size, rounded down
+   */
+  public int getRange() {
+    return (size() - 1) / 2;
+  }
+
+  /**
+   * Convolve every row of the source into the target of the same size.
+   *
+   * @param source   - image being filtered
+   * @param target   - image the result is written to
+   * @param executor - runs bands of rows, possibly in parallel
+   * @throws IllegalArgumentException - null input or images of different sizes
+   */
+  public void apply(Image source, Image target, BandExecutor executor)
+      throws IllegalArgumentException {
+    if (source == null || target == null || executor == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (source.getWidth() != target.getWidth() || source.getHeight() != target.getHeight()) {
+      throw new IllegalArgumentException("Images must be the same size");
+    }
+    if (isSeparable()) {
+      executor.run(source.getWidth(), source.getHeight(),
+          (start, end) -> convolveSeparable(source, target, start, end));
+    } else {
+      executor.run(source.getWidth(), source.getHeight(),
+          (start, end) -> convolve(source, target, start, end));
+    }
+  }
+
+  /**
+   * Convolve one band of rows.
+   *
+   * @param source - image being filtered
+   * @param target - image the result is written to
+   * @param start  - first row of the band
+   * @param end    - row after the last row of the band
+   */
+  private void convolve(Image source, Image target, int start, int end) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int max = source.getMaxValue();
+    int size = size();
+    int[] columns = columns(width);
+
+    // padded rows in a ring so each source row is read once, and the rows the kernel covers
+    int[][] ring = new int[size][3 * columns.length];
+    int[] ringRow = new int[size];
+    boolean[] ringInRange = new boolean[size];
+    Arrays.fill(ringRow, -1);
+    int[][] window = new int[size][];
+    int[] scratch = new int[3 * width];
+    int[] sum = new int[3 * width];
+
+    for (int i = start; i < end; i++) {
+      boolean inRange = isDyadic();
+      for (int a = 0; a < size; a++) {
+        int r = this.border.map(i + a - getRange(), height);
+        if (r < 0) {
+          window[a] = null; // a row left out of the sum
+          continue;
+        }
+        int slot = r % size;
+        if (ringRow[slot] != r) {
+          source.readRow(r, scratch);
+          ringInRange[slot] = pad(scratch, columns, ring[slot]);
+          ringRow[slot] = r;
+        }
+        window[a] = ring[slot];
+        inRange &= ringInRange[slot];
+      }
+
+      Arrays.fill(sum, 0);
+      for (int a = 0; a < size; a++) {
+        int[] row = window[a];
+        if (row == null) {
+          continue;
+        }
+        for (int b = 0; b < size; b++) {
+          double weight = this.kernel[a][b];
+          if (weight == 0) {
+            continue;
+          }
+          int offset = 3 * b;
+          if (inRange) {
+            multiplyAdd(sum, row, offset, this.multipliers[a][b], this.shifts[a][b]);
+            continue;
+          }
+          for (int x = 0; x < sum.length; x++) {
+            sum[x] += (int) (weight * row[x + offset]);
+          }
+        }
+      }
+
+      for (int x = 0; x < sum.length; x++) {
+        sum[x] = Math.max(0, Math.min(max, sum[x]));
+      }
+      target.writeRow(i, sum);
+    }
+  }
+
+  /**
+   * Add the truncated products of a weight multiplier / 2^shift and a padded row to a row of sums.
+   * Every product is at most MAX_MULTIPLIER * MAX_INT_CHANNEL, so it is exact in an int, and
+   * shifting its magnitude right truncates towards 0 like the cast of the double product. Each
+   * sign has its own loop of one int operation per element, which the JIT vectorizes.
+   *
+   * @param sum        - sums of the row of the result
+   * @param row        - padded row with channels between 0 and MAX_INT_CHANNEL
+   * @param offset     - first element of the padded row read for the first sum
+   * @param multiplier - multiplier of the weight
+   * @param shift      - power of two the multiplier is divided by
+   */
+  private static void multiplyAdd(int[] sum, int[] row, int offset, int multiplier, int shift) {
+    if (multiplier >= 0) {
+      for (int x = 0; x < sum.length; x++) {
+        sum[x] += (multiplier * row[x + offset]) >> shift;
+      }
+    } else {
+      int magnitude = -multiplier;
+      for (int x = 0; x < sum.length; x++) {
+        sum[x] -= (magnitude * row[x + offset]) >> shift;
+      }
+    }
+  }
+
+  /**
+   * Find the smallest power of two a weight can be written over with an int multiplier of at most
+   * MAX_MULTIPLIER, weight = multiplier / 2^shift exactly.
+   *
+   * @param weight - weight of the kernel
+   * @return the shift, or -1 if the weight has no such form
+   */
+  private static int dyadicShift(double weight) {
+    for (int shift = 0; shift <= MAX_SHIFT; shift++) {
+      double multiplier = Math.scalb(weight, shift);
+      if (Math.abs(multiplier) > MAX_MULTIPLIER) {
+        return -1;
+      }
+      if (multiplier == Math.rint(multiplier)) {
+        return shift;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Convolve one band of rows with a separable kernel. Each source row the band reaches is padded
+   * and run through the horizontal pass once, into a ring of rows of doubles, and each row of the
+   * result is the vertical pass over the rows of the ring.
+   *
+   * @param source - image being filtered
+   * @param target - image the result is written to
+   * @param start  - first row of the band
+   * @param end    - row after the last row of the band
+   */
+  private void convolveSeparable(Image source, Image target, int start, int end) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int max = source.getMaxValue();
+    int size = size();
+    int[] columns = columns(width);
+
+    double[][] ring = new double[size][3 * width];
+    int[] ringRow = new int[size];
+    Arrays.fill(ringRow, -1);
+    double[][] window = new double[size][];
+    int[] scratch = new int[3 * width];
+    int[] padded = new int[3 * columns.length];
+    double[] sum = new double[3 * width];
+    int[] row = new int[3 * width];
+
+    for (int i = start; i < end; i++) {
+      for (int a = 0; a < size; a++) {
+        int r = this.border.map(i + a - getRange(), height);
+        if (r < 0) {
+          window[a] = null; // a row left out of the sum
+          continue;
+        }
+        int slot = r % size;
+        if (ringRow[slot] != r) {
+          source.readRow(r, scratch);
+          pad(scratch, columns, padded);
+          double[] horizontalRow = ring[slot];
+          Arrays.fill(horizontalRow, 0);
+          for (int b = 0; b < size; b++) {
+            double weight = this.horizontal[b];
+            int offset = 3 * b;
+            for (int x = 0; x < horizontalRow.length; x++) {
+              horizontalRow[x] += weight * padded[x + offset];
+            }
+          }
+          ringRow[slot] = r;
+        }
+        window[a] = ring[slot];
+      }
+
+      Arrays.fill(sum, 0);
+      for (int a = 0; a < size; a++) {
+        double[] horizontalRow = window[a];
+        if (horizontalRow == null) {
+          continue;
+        }
+        double weight = this.vertical[a];
+        for (int x = 0; x < sum.length; x++) {
+          sum[x] += weight * horizontalRow[x];
+        }
+      }
+
+      for (int x = 0; x < sum.length; x++) {
+        row[x] = Math.max(0, Math.min(max, (int) (sum[x] + 0.5))); // negative sums become 0
+      }
+      target.writeRow(i, row);
+    }
+  }
+
+  /**
+   * Number of rows and columns of the kernel.
+   *
+   * @return the kernel size
+   */
+  private int size() {
+    return isSeparable() ? this.vertical.length : this.kernel.length;
+  }
+
+  /**
+   * Find the source column read by each column of a padded row, the kernel range wider than the
+   * image on each side.
+   *
+   * @param width - width of the image
+   * @return the source column of each padded column, -1 for a column that is left out
+   */
+  private int[] columns(int width) {
+    int range = getRange();
+    int[] columns = new int[width + 2 * range];
+    for (int p = 0; p < columns.length; p++) {
+      columns[p] = this.border.map(p - range, width);
+    }
+    return columns;
+  }
+
+  /**
+   * Fill a padded row from a source row, with 0 for the columns that are left out.
+   *
+   * @param row     - source row, 3 ints per pixel
+   * @param columns - source column read by each column of the padded row
+   * @param padded  - padded row, 3 ints per column
+   * @return true if every channel of the padded row is between 0 and MAX_INT_CHANNEL
+   */
+  private static boolean pad(int[] row, int[] columns, int[] padded) {
+    for (int p = 0; p < columns.length; p++) {
+      int c = columns[p];
+      for (int k = 0; k < 3; k++) {
+        padded[3 * p + k] = c < 0 ? 0 : row[3 * c + k];
+      }
+    }
+    int outside = 0;
+    for (int x = 0; x < padded.length; x++) {
+      outside |= padded[x] | (MAX_INT_CHANNEL - padded[x]);
+    }
+    return outside >= 0;
+  }
+}
@@ -1,5 +1,8 @@
 package model.filter;
 
+import model.BandExecutor;
+import model.Image;
+
 /**
  * Filtering is a basic image processing algorithm. A filter has a "kernel", which is a 2D array of
  * numbers with odd dimensions (3x3, 5x5, etc.).
@@ -14,6 +17,11 @@ package model.filter;
  * an easily extensible design, as adding new filters just requires creating a new class that
  * has the needed functionality to filter an image.
  * </p>
+ * <p>
+ * ADDITION: The model filters a whole image with apply(). By default it calls edit() for every
+ * pixel on one copy of the image, so any filter works. Filters with a kernel (AbstractFilter)
+ * override it with a Convolution of the whole image.
+ * </p>
  */
 public interface Filter {
 
@@ -28,4 +36,36 @@ public interface Filter {
    * @return - new pixel
    */
   int[] edit(int row, int col, int[][][] img);
+
+  /**
+   * ADDITION: Filter a whole image into a target image of the same size, a row at a time. Every
+   * channel is kept between 0 and the max value of the source. The default calls edit() for
+   * every pixel on the calling thread, as edit() may not be safe to call from several threads.
+   *
+   * @param source   - image being filtered
+   * @param target   - image the result is written to
+   * @param executor - runs bands of rows, for filters that can run in parallel
+   * @throws IllegalArgumentException - null input or images of different sizes
+   */
+  default void apply(Image source, Image target, BandExecutor executor)
+      throws IllegalArgumentException {
+    if (source == null || target == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    if (source.getWidth() != target.getWidth() || source.getHeight() != target.getHeight()) {
+      throw new IllegalArgumentException("Images must be the same size");
+    }
+    int max = source.getMaxValue();
+    int[][][] pixels = source.getImage(); // copied once, edit() reads it for every pixel
+    int[] row = new int[3 * source.getWidth()];
+    for (int i = 0; i < source.getHeight(); i++) {
+      for (int j = 0; j < source.getWidth(); j++) {
+        int[] pixel = edit(i, j, pixels);
+        for (int k = 0; k < 3; k++) {
+          row[3 * j + k] = Math.max(0, Math.min(max, pixel[k]));
+        }
+      }
+      target.writeRow(i, row);
+    }
+  }
 }
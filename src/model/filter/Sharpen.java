@@ -23,4 +23,18 @@ public class Sharpen extends AbstractFilter {
         {-0.125, 0.25, 0.25, 0.25, -0.125},
         {-0.125, -0.125, -0.125, -0.125, -0.125}};
   }
+
+  /**
+   * ADDITION: Create new Sharpen object whose kernel treats positions past the edges of the image
+   * with the given border.
+   * @param border - how positions past the edges of the image are treated
+   * @throws IllegalArgumentException - null border
+   */
+  public Sharpen(Border border) throws IllegalArgumentException {
+    this();
+    if (border == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    super.border = border;
+  }
 }
@@ -13,7 +13,8 @@ public class AbstractHistogram extends AbstractTransform implements Histogram {
    */
   @Override
   public int value(int[] pixel) {
-    return edit(pixel)[0];
+    // first channel of edit(), without a new pixel
+    return channel(fixedMatrix(), 0, pixel[0], pixel[1], pixel[2]);
   }
 
 }
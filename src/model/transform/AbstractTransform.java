@@ -13,6 +13,26 @@ package model.transform;
  * Every transformation will have a different matrix that provides the correct outputted pixel and
  * therefore image
  * </p>
+ * <p>
+ * ADDITION: edit(pixel, result) and applyPacked() compute channels in fixed point: the matrix is
+ * scaled by 2^32 into longs once, so a channel is three integer multiply-adds and a shift, written
+ * into the caller's array. The scaled sum is within a known distance of the exact sum, so when it
+ * is too close to a whole number to tell which way the double sum of applyMatrix() truncates,
+ * the channel is computed in doubles instead. The result is always exactly that of applyMatrix().
+ * </p>
+ * <p>
+ * ADDITION: applyPacked() also has a form in ints for 8-bit rows: the matrix is scaled by a
+ * smaller power of two so a sum fits in an int, and the row is split into a plane per channel, so
+ * every step is a loop of one int operation the JIT compiles to vector instructions. Pixels whose
+ * sum is too close to a whole number are computed again one at a time with the long sum, so the
+ * row is still exactly that of edit() followed by a clamp.
+ * </p>
+ * <p>
+ * ADDITION: edit(pixel) stays the extension point of a transformation. A class that extends this
+ * class and overrides it is detected once per class, and then edit(pixel, result),
+ * applyPacked(), getChannel() and LookupTable.of() call its edit(pixel) for every pixel instead
+ * of the matrix, so the fast paths of the model never skip an override.
+ * </p>
  */
 public class AbstractTransform implements Transform {
 
@@ -22,6 +42,54 @@ public class AbstractTransform implements Transform {
    */
   protected double[][] matrix;
 
+  /**
+   * ADDITION: Scale of the fixed point coefficients, 2^32.
+   */
+  private static final int FIXED_SHIFT = 32;
+
+  /**
+   * ADDITION: Largest coefficient and channel value the fixed point sum is used for, so it cannot
+   * overflow a long and the doubles it is checked against are precise enough.
+   */
+  private static final double MAX_FIXED_COEFFICIENT = 16.0;
+  private static final int MAX_FIXED_CHANNEL = 0xffff;
+
+  /**
+   * ADDITION: Largest and smallest scale of the int coefficients of applyPacked(), and how far
+   * the int sum of an 8-bit pixel is from the exact sum at most, in units of the scale: half a
+   * unit per channel value from rounding the coefficients, plus the rounding of the doubles.
+   */
+  private static final int MAX_LANE_SHIFT = 22;
+  private static final int MIN_LANE_SHIFT = 16;
+  private static final int LANE_MARGIN = 3 * 255 / 2 + 2;
+
+  /**
+   * ADDITION: Number of pixels checked together for sums too close to a whole number, so only
+   * the blocks that have one are computed again one pixel at a time.
+   */
+  private static final int LANE_BLOCK = 128;
+
+  /**
+   * ADDITION: the fixed point coefficients and the matrix they were scaled from, made the first
+   * time they are needed since classes that extend set the matrix after this constructor. Set to
+   * private and volatile so it is only made once per matrix and safely seen by other threads.
+   */
+  private volatile FixedMatrix fixed;
+
+  /**
+   * ADDITION: Whether a class that extends this class overrides edit(pixel), found once per class.
+   */
+  private static final ClassValue<Boolean> EDIT_OVERRIDDEN = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        return type.getMethod("edit", int[].class).getDeclaringClass() != AbstractTransform.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
   /**
    * Construct for abstractTransform class. the matrix field will be applied to the pixel of
    * an image.
@@ -41,9 +109,208 @@ public class AbstractTransform implements Transform {
    */
   @Override
   public int[] edit(int[] pixel) {
-    return new int[]{applyMatrix(matrix[0], pixel),
-    applyMatrix(matrix[1], pixel),
-    applyMatrix(matrix[2], pixel)};
+    return editMatrix(pixel, new int[3]);
+  }
+
+  /**
+   * ADDITION: Edit a pixel like edit(pixel) without allocating, writing the new pixel into the
+   * caller's array. The channels are exactly those of edit(pixel) and are not clamped. If a class
+   * that extends this class overrides edit(pixel), the pixel is edited by it and copied.
+   * @param pixel - the pixel being passed in, 3 channels.
+   * @param result - array of at least 3 ints the new pixel is written to, may be the pixel.
+   * @return the result array
+   */
+  public int[] edit(int[] pixel, int[] result) {
+    if (isEditOverridden()) {
+      System.arraycopy(edit(pixel), 0, result, 0, 3);
+      return result;
+    }
+    return editMatrix(pixel, result);
+  }
+
+  /**
+   * ADDITION: Does a class that extends this class override edit(pixel), so its pixels must be
+   * edited by it instead of by the matrix.
+   * @return true if edit(pixel) is overridden
+   */
+  boolean isEditOverridden() {
+    return EDIT_OVERRIDDEN.get(getClass());
+  }
+
+  /**
+   * ADDITION: Edit a pixel with the matrix, in fixed point, into the caller's array.
+   * @param pixel - the pixel being passed in, 3 channels.
+   * @param result - array of at least 3 ints the new pixel is written to, may be the pixel.
+   * @return the result array
+   */
+  private int[] editMatrix(int[] pixel, int[] result) {
+    FixedMatrix fixed = fixedMatrix();
+    int p0 = pixel[0];
+    int p1 = pixel[1];
+    int p2 = pixel[2];
+    result[0] = channel(fixed, 0, p0, p1, p2);
+    result[1] = channel(fixed, 1, p0, p1, p2);
+    result[2] = channel(fixed, 2, p0, p1, p2);
+    return result;
+  }
+
+  /**
+   * ADDITION: Transform a row of packed 0xRRGGBB pixels in place, clamping every channel between
+   * 0 and max, exactly like edit(pixel) followed by a clamp. The row is computed in planes of ints
+   * when the matrix has int coefficients, one pixel at a time otherwise.
+   * @param row - packed pixels
+   * @param length - number of pixels from the start of the row
+   * @param max - max value of the image, at most 255
+   */
+  public void applyPacked(int[] row, int length, int max) {
+    FixedMatrix fixed = fixedMatrix();
+    if (fixed.lanes == null || isEditOverridden()) {
+      applyPixels(row, length, max);
+      return;
+    }
+    int[][] planes = RowLanes.planes(length);
+    int[] red = planes[0];
+    int[] green = planes[1];
+    int[] blue = planes[2];
+    int[] sum = planes[3];
+    RowLanes.unpack(row, length, red, green, blue);
+
+    int shift = fixed.laneShift;
+    int mask = (1 << shift) - 1;
+    int high = (1 << shift) - LANE_MARGIN;
+    for (int k = 0; k < 3; k++) {
+      int c0 = fixed.lanes[k][0];
+      int c1 = fixed.lanes[k][1];
+      int c2 = fixed.lanes[k][2];
+      int[] result = planes[4 + k];
+      for (int j = 0; j < length; j++) {
+        sum[j] = c0 * red[j] + c1 * green[j] + c2 * blue[j];
+      }
+      for (int j = 0; j < length; j++) {
+        result[j] = sum[j] >> shift;
+      }
+      for (int from = 0; from < length; from += LANE_BLOCK) {
+        int to = Math.min(length, from + LANE_BLOCK);
+        // negative when a sum is negative or too close to a whole number to truncate safely
+        int unsure = 0;
+        for (int j = from; j < to; j++) {
+          unsure |= sum[j] | ((sum[j] & mask) - LANE_MARGIN) | (high - (sum[j] & mask));
+        }
+        if (unsure >= 0) {
+          continue;
+        }
+        for (int j = from; j < to; j++) {
+          int s = sum[j];
+          if ((s | ((s & mask) - LANE_MARGIN) | (high - (s & mask))) < 0) {
+            result[j] = channel(fixed, k, red[j], green[j], blue[j]);
+          }
+        }
+      }
+      RowLanes.clamp(result, length, max);
+    }
+    RowLanes.pack(row, length, planes[4], planes[5], planes[6]);
+  }
+
+  /**
+   * ADDITION: Transform a row of packed pixels one pixel at a time, like applyPacked().
+   * @param row - packed pixels
+   * @param length - number of pixels from the start of the row
+   * @param max - max value of the image, at most 255
+   */
+  void applyPixels(int[] row, int length, int max) {
+    if (isEditOverridden()) {
+      int[] pixel = new int[3];
+      for (int j = 0; j < length; j++) {
+        int rgb = row[j];
+        pixel[0] = (rgb >> 16) & 0xff;
+        pixel[1] = (rgb >> 8) & 0xff;
+        pixel[2] = rgb & 0xff;
+        int[] edited = edit(pixel);
+        int r = Math.max(0, Math.min(max, edited[0]));
+        int g = Math.max(0, Math.min(max, edited[1]));
+        int b = Math.max(0, Math.min(max, edited[2]));
+        row[j] = (r << 16) | (g << 8) | b;
+      }
+      return;
+    }
+    FixedMatrix fixed = fixedMatrix();
+    for (int j = 0; j < length; j++) {
+      int rgb = row[j];
+      int p0 = (rgb >> 16) & 0xff;
+      int p1 = (rgb >> 8) & 0xff;
+      int p2 = rgb & 0xff;
+      int r = Math.max(0, Math.min(max, channel(fixed, 0, p0, p1, p2)));
+      int g = Math.max(0, Math.min(max, channel(fixed, 1, p0, p1, p2)));
+      int b = Math.max(0, Math.min(max, channel(fixed, 2, p0, p1, p2)));
+      row[j] = (r << 16) | (g << 8) | b;
+    }
+  }
+
+  /**
+   * ADDITION: Compute one channel of an edited pixel, the same as applyMatrix(matrix[k], pixel).
+   * The fixed point sum is used when the truncated value cannot differ from the truncated double
+   * sum: its error is at most half a unit of 2^-32 per channel value from scaling the
+   * coefficients, plus much less than 16 units for the rounding of the doubles.
+   * @param fixed - the fixed point coefficients
+   * @param k - the channel of the result
+   * @param p0 - red channel of the pixel
+   * @param p1 - green channel of the pixel
+   * @param p2 - blue channel of the pixel
+   * @return the channel value
+   */
+  int channel(FixedMatrix fixed, int k, int p0, int p1, int p2) {
+    long[] coefficients = fixed.coefficients[k];
+    if (coefficients != null && ((p0 | p1 | p2) & ~MAX_FIXED_CHANNEL) == 0) {
+      long sum = coefficients[0] * p0 + coefficients[1] * p1 + coefficients[2] * p2;
+      long fraction = sum & ((1L << FIXED_SHIFT) - 1);
+      long margin = p0 + p1 + p2 + 16;
+      if (sum >= 0 && fraction >= margin && fraction <= (1L << FIXED_SHIFT) - margin) {
+        return (int) (sum >> FIXED_SHIFT);
+      }
+    }
+    double[] vector = fixed.matrix[k];
+    return (int) ((p0 * vector[0]) + (p1 * vector[1]) + (p2 * vector[2]));
+  }
+
+  /**
+   * ADDITION: Get the fixed point coefficients of the current matrix, scaling them if the matrix
+   * was set or replaced since they were made.
+   * @return the fixed point coefficients
+   */
+  FixedMatrix fixedMatrix() {
+    FixedMatrix current = this.fixed;
+    if (current == null || current.matrix != this.matrix) {
+      current = new FixedMatrix(this.matrix);
+      this.fixed = current;
+    }
+    return current;
+  }
+
+  /**
+   * Get the channel this transformation copies into every channel of a pixel, when every row of
+   * its matrix picks out that same single channel (like the red, green and blue greyscales). The
+   * model uses this to work on only that channel of an image.
+   * @return 0 for red, 1 for green, 2 for blue, or -1 if the transformation mixes channels or
+   *         overrides edit(pixel)
+   */
+  public int getChannel() {
+    if (isEditOverridden()) {
+      return -1;
+    }
+    for (int k = 0; k < 3; k++) {
+      boolean picksChannel = true;
+      for (double[] vector : matrix) {
+        for (int i = 0; i < 3; i++) {
+          if (vector[i] != (i == k ? 1.0 : 0.0)) {
+            picksChannel = false;
+          }
+        }
+      }
+      if (picksChannel) {
+        return k;
+      }
+    }
+    return -1;
   }
 
   /**
@@ -61,4 +328,61 @@ public class AbstractTransform implements Transform {
   int applyMatrix(double[] vector, int[] pixel) {
     return (int) ((pixel[0] * vector[0]) + (pixel[1] * vector[1]) + (pixel[2] * vector[2]));
   }
+
+  /**
+   * ADDITION: The rows of a matrix scaled by 2^32 and rounded to longs. A row with a coefficient
+   * larger than MAX_FIXED_COEFFICIENT (or not a number) has no fixed point row and is always
+   * computed in doubles. The matrix is also scaled by the largest power of two up to
+   * MAX_LANE_SHIFT that keeps the sum of an 8-bit pixel in an int, if that is at least
+   * MIN_LANE_SHIFT, for applyPacked().
+   */
+  static final class FixedMatrix {
+
+    private final double[][] matrix;
+    private final long[][] coefficients;
+    private final int[][] lanes;
+    private final int laneShift;
+
+    private FixedMatrix(double[][] matrix) {
+      this.matrix = matrix;
+      this.coefficients = new long[3][];
+      for (int k = 0; k < 3; k++) {
+        long[] row = new long[3];
+        for (int c = 0; c < 3; c++) {
+          double coefficient = matrix[k][c];
+          if (!(Math.abs(coefficient) <= MAX_FIXED_COEFFICIENT)) {
+            row = null;
+            break;
+          }
+          row[c] = Math.round(Math.scalb(coefficient, FIXED_SHIFT));
+        }
+        this.coefficients[k] = row;
+      }
+
+      double largest = 0;
+      boolean scaled = true;
+      for (int k = 0; k < 3; k++) {
+        scaled &= this.coefficients[k] != null;
+        largest = Math.max(largest, Math.abs(matrix[k][0]) + Math.abs(matrix[k][1])
+            + Math.abs(matrix[k][2]));
+      }
+      int shift = MAX_LANE_SHIFT;
+      // room for the rounding of each coefficient, and a sum below 2^30
+      while (shift >= MIN_LANE_SHIFT && 255 * (Math.scalb(largest, shift) + 3) >= (1 << 30)) {
+        shift--;
+      }
+      if (!scaled || shift < MIN_LANE_SHIFT) {
+        this.lanes = null;
+        this.laneShift = 0;
+        return;
+      }
+      this.lanes = new int[3][3];
+      for (int k = 0; k < 3; k++) {
+        for (int c = 0; c < 3; c++) {
+          this.lanes[k][c] = (int) Math.round(Math.scalb(matrix[k][c], shift));
+        }
+      }
+      this.laneShift = shift;
+    }
+  }
 }
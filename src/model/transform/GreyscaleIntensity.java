@@ -32,4 +32,53 @@ public class GreyscaleIntensity extends AbstractHistogram {
   int applyMatrix(double[] vector, int[] pixel) {
     return (int) (((pixel[0] * vector[0]) + (pixel[1] * vector[1]) + (pixel[2] * vector[2])) / 3);
   }
+
+  /**
+   * ADDITION: The fixed point channel of the intensity. With the matrix of the abstract class the
+   * double sum is a whole number, so the average is exactly the integer division of the sum.
+   * @param fixed - the fixed point coefficients
+   * @param k - the channel of the result
+   * @param p0 - red channel of the pixel
+   * @param p1 - green channel of the pixel
+   * @param p2 - blue channel of the pixel
+   * @return the channel value, the same as applyMatrix()
+   */
+  @Override
+  int channel(FixedMatrix fixed, int k, int p0, int p1, int p2) {
+    double[] vector = matrix[k];
+    if (vector[0] == 1.0 && vector[1] == 1.0 && vector[2] == 1.0) {
+      return (int) (((long) p0 + p1 + p2) / 3);
+    }
+    return applyMatrix(vector, new int[]{p0, p1, p2});
+  }
+
+  /**
+   * ADDITION: Transform a row of packed pixels in planes of ints, like the abstract class, with
+   * the average computed as the sum times 43691 / 2^17, which is exactly the integer division by
+   * 3 for every sum of an 8-bit pixel. A matrix that is not the one of the abstract class is
+   * transformed one pixel at a time.
+   * @param row - packed pixels
+   * @param length - number of pixels from the start of the row
+   * @param max - max value of the image, at most 255
+   */
+  @Override
+  public void applyPacked(int[] row, int length, int max) {
+    for (double[] vector : matrix) {
+      if (vector[0] != 1.0 || vector[1] != 1.0 || vector[2] != 1.0) {
+        applyPixels(row, length, max);
+        return;
+      }
+    }
+    int[][] planes = RowLanes.planes(length);
+    int[] red = planes[0];
+    int[] green = planes[1];
+    int[] blue = planes[2];
+    int[] average = planes[4];
+    RowLanes.unpack(row, length, red, green, blue);
+    for (int j = 0; j < length; j++) {
+      average[j] = ((red[j] + green[j] + blue[j]) * 43691) >> 17;
+    }
+    RowLanes.clamp(average, length, max);
+    RowLanes.pack(row, length, average, average, average);
+  }
 }
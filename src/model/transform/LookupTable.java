@@ -0,0 +1,496 @@
+package model.transform;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ADDITION: This class represents a point operation compiled into lookup tables. Each channel of
+ * the result is a table, indexed by one channel of the pixel (or its value, the max of its three
+ * channels), holding the result of the operation already clamped between 0 and the max value of
+ * the image.
+ * <p>
+ * Brightness, the red, green and blue greyscales, the value greyscale and any AbstractTransform
+ * whose matrix rows each read a single channel are point operations, so instead of calling edit()
+ * and clamping for every pixel, the model compiles them once and runs each row through the tables
+ * with applyPacked() or applyInterleaved(), without allocating anything for a pixel.
+ * </p>
+ * <p>
+ * Tables have an entry for every value from 0 to the larger of the max value and 255, so any
+ * channel of an 8-bit image can be looked up. A channel of another image that is outside the
+ * table is run through the operation itself, so the result is always the same as edit().
+ * </p>
+ * <p>
+ * A lookup table is itself a Transform, and two tables in a row can be fused into one with then(),
+ * so a chain of point operations costs one lookup per channel.
+ * </p>
+ * <p>
+ * The tables of the operations driven by a histogram, equalize(), autoLevels() and
+ * contrastStretch(), are built from the counts of the image, so the image is read once to count
+ * it and once to look it up.
+ * </p>
+ */
+public class LookupTable implements Transform {
+
+  /**
+   * Source of a channel of the result that is the value of the pixel, the max of its channels.
+   */
+  public static final int VALUE = 3;
+
+  /**
+   * Largest max value a table can be compiled for, the largest max value of a PPM file.
+   */
+  public static final int MAX_TABLE_VALUE = 65535;
+
+  /**
+   * The channel of the pixel each channel of the result is looked up with, 0 to 2 or VALUE. Set
+   * to private and final to avoid outside access and reassignment.
+   */
+  private final int[] sources;
+
+  /**
+   * The table of each channel of the result. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final int[][] tables;
+
+  /**
+   * The operation of each channel of the result, for channels outside the tables. Set to private
+   * and final to avoid outside access and reassignment.
+   */
+  private final IntUnaryOperator[] operations;
+
+  /**
+   * The max value of the images the tables are for. Set to private and final to avoid outside
+   * access and reassignment.
+   */
+  private final int max;
+
+  /**
+   * Compile an operation applied to every channel of a pixel, like brightness. The result of the
+   * operation is clamped between 0 and max.
+   *
+   * @param max       - max value of the image the table is for
+   * @param operation - the operation on one channel value
+   * @throws IllegalArgumentException - null operation, or max negative or above MAX_TABLE_VALUE
+   */
+  public LookupTable(int max, IntUnaryOperator operation) throws IllegalArgumentException {
+    this(max, new int[]{0, 1, 2}, new IntUnaryOperator[]{operation, operation, operation});
+  }
+
+  /**
+   * Compile an operation where each channel of the result is an operation on one channel of the
+   * pixel, or on its value. The results are clamped between 0 and max.
+   *
+   * @param max        - max value of the image the table is for
+   * @param sources    - channel each channel of the result reads, 0 to 2 or VALUE
+   * @param operations - the operation for each channel of the result
+   * @throws IllegalArgumentException - null input, max negative or above MAX_TABLE_VALUE or an
+   *                                    invalid source
+   */
+  public LookupTable(int max, int[] sources, IntUnaryOperator[] operations)
+      throws IllegalArgumentException {
+    if (sources == null || operations == null || sources.length != 3 || operations.length != 3
+        || max < 0 || max > MAX_TABLE_VALUE) {
+      throw new IllegalArgumentException("Invalid lookup table");
+    }
+    this.max = max;
+    this.sources = sources.clone();
+    this.operations = operations.clone();
+    this.tables = new int[3][Math.max(max, 255) + 1];
+    for (int k = 0; k < 3; k++) {
+      if (sources[k] < 0 || sources[k] > VALUE || operations[k] == null) {
+        throw new IllegalArgumentException("Invalid lookup table");
+      }
+      for (int v = 0; v < this.tables[k].length; v++) {
+        this.tables[k][v] = Math.max(0, Math.min(max, operations[k].applyAsInt(v)));
+      }
+    }
+  }
+
+  /**
+   * Compile a transformation, if it is a point operation: GreyscaleValue, or an AbstractTransform
+   * whose matrix rows each have at most one channel that is not 0. The tables give exactly the
+   * clamped result of edit(). An AbstractTransform that overrides edit() is not compiled.
+   *
+   * @param transform - the transformation
+   * @param max       - max value of the image the table is for
+   * @return the compiled transformation, or null if it mixes channels or overrides edit()
+   */
+  public static LookupTable of(Transform transform, int max) {
+    if (transform instanceof GreyscaleValue) {
+      return new LookupTable(max, new int[]{VALUE, VALUE, VALUE},
+          new IntUnaryOperator[]{v -> v, v -> v, v -> v});
+    }
+    if (!(transform instanceof AbstractTransform)
+        || ((AbstractTransform) transform).isEditOverridden()) {
+      return null;
+    }
+    double[][] matrix = ((AbstractTransform) transform).matrix;
+    int[] sources = new int[3];
+    IntUnaryOperator[] operations = new IntUnaryOperator[3];
+    for (int k = 0; k < 3; k++) {
+      double[] vector = matrix[k];
+      int source = 0;
+      int used = 0;
+      for (int c = 0; c < 3; c++) {
+        if (vector[c] != 0.0) {
+          source = c;
+          used++;
+        }
+      }
+      if (used > 1) {
+        return null;
+      }
+      sources[k] = source;
+      int channel = source;
+      // the same sum as applyMatrix(), the other channels add 0
+      operations[k] = v -> {
+        int[] pixel = new int[3];
+        pixel[channel] = v;
+        return ((AbstractTransform) transform).applyMatrix(vector, pixel);
+      };
+    }
+    return new LookupTable(max, sources, operations);
+  }
+
+  /**
+   * Build the table that equalizes each channel with its own histogram: a value is mapped to the
+   * fraction of the pixels at or below it, not counting the lowest value of the channel, so the
+   * lowest value becomes 0, the highest becomes max and the values in between are spread out
+   * evenly. A channel with a single value is left as it is.
+   *
+   * @param counts - frequency of each value of the red, green and blue channels
+   * @param max    - max value of the image
+   * @return the table
+   * @throws IllegalArgumentException - invalid counts or max
+   */
+  public static LookupTable equalize(int[][] counts, int max) throws IllegalArgumentException {
+    checkCounts(counts);
+    long[][] cumulative = new long[3][];
+    long[] lowest = new long[3];
+    long[] total = new long[3];
+    for (int k = 0; k < 3; k++) {
+      cumulative[k] = new long[counts[k].length];
+      long seen = 0;
+      for (int v = 0; v < counts[k].length; v++) {
+        seen += counts[k][v];
+        cumulative[k][v] = seen;
+        if (lowest[k] == 0) {
+          lowest[k] = seen; // the count of the lowest value
+        }
+      }
+      total[k] = seen;
+    }
+    IntUnaryOperator[] operations = new IntUnaryOperator[3];
+    for (int k = 0; k < 3; k++) {
+      long[] cdf = cumulative[k];
+      long low = lowest[k];
+      long range = total[k] - low;
+      operations[k] = range == 0 ? v -> v
+          : v -> (int) rounded((cdf[Math.max(0, Math.min(cdf.length - 1, v))] - low) * max, range);
+    }
+    return new LookupTable(max, new int[]{0, 1, 2}, operations);
+  }
+
+  /**
+   * Build the table that stretches each channel linearly, so its low value becomes 0 and its high
+   * value becomes max. Values below low become 0 and values above high become max. A channel whose
+   * high value is not above its low value is left as it is.
+   *
+   * @param low  - value of the red, green and blue channels that becomes 0
+   * @param high - value of the red, green and blue channels that becomes max
+   * @param max  - max value of the image
+   * @return the table
+   * @throws IllegalArgumentException - null input or not 3 values each
+   */
+  public static LookupTable stretch(int[] low, int[] high, int max)
+      throws IllegalArgumentException {
+    if (low == null || high == null || low.length != 3 || high.length != 3) {
+      throw new IllegalArgumentException("Invalid stretch");
+    }
+    IntUnaryOperator[] operations = new IntUnaryOperator[3];
+    for (int k = 0; k < 3; k++) {
+      long from = low[k];
+      long range = (long) high[k] - low[k];
+      operations[k] = range <= 0 ? v -> v : v -> (int) rounded((v - from) * max, range);
+    }
+    return new LookupTable(max, new int[]{0, 1, 2}, operations);
+  }
+
+  /**
+   * Build the table of auto-levels: stretch each channel on its own, so its lowest value becomes
+   * 0 and its highest value becomes max.
+   *
+   * @param counts - frequency of each value of the red, green and blue channels
+   * @param max    - max value of the image
+   * @return the table
+   * @throws IllegalArgumentException - invalid counts or max
+   */
+  public static LookupTable autoLevels(int[][] counts, int max) throws IllegalArgumentException {
+    checkCounts(counts);
+    int[] low = new int[3];
+    int[] high = new int[3];
+    for (int k = 0; k < 3; k++) {
+      low[k] = rank(counts[k], 1);
+      high[k] = rank(counts[k], total(counts[k]));
+    }
+    return stretch(low, high, max);
+  }
+
+  /**
+   * Build the table of a contrast stretch: the values at the low and high percentiles of the red,
+   * green and blue channels counted together become 0 and max, and every channel is stretched the
+   * same way so the colors keep their balance. Clipping a small percentage at each end keeps a few
+   * outlying pixels from stopping the stretch.
+   *
+   * @param counts - frequency of each value of the red, green and blue channels
+   * @param max    - max value of the image
+   * @param low    - percentage of the values that become 0, from 0
+   * @param high   - percentage of the values at or below the value that becomes max, up to 100
+   * @return the table
+   * @throws IllegalArgumentException - invalid counts or max, or low not below high
+   */
+  public static LookupTable contrastStretch(int[][] counts, int max, double low, double high)
+      throws IllegalArgumentException {
+    checkCounts(counts);
+    if (!(low >= 0 && low < high && high <= 100)) {
+      throw new IllegalArgumentException("Invalid percentiles: " + low + " " + high);
+    }
+    int length = Math.max(counts[0].length, Math.max(counts[1].length, counts[2].length));
+    int[] pooled = new int[length];
+    for (int[] channel : counts) {
+      for (int v = 0; v < channel.length; v++) {
+        pooled[v] += channel[v];
+      }
+    }
+    long total = total(pooled);
+    int from = rank(pooled, (long) Math.max(1, Math.ceil(low / 100 * total)));
+    int to = rank(pooled, (long) Math.max(1, Math.ceil(high / 100 * total)));
+    return stretch(new int[]{from, from, from}, new int[]{to, to, to}, max);
+  }
+
+  /**
+   * Find the value of a given rank in a histogram, the lowest value with at least rank values at
+   * or below it.
+   *
+   * @param counts - frequency of each value
+   * @param rank   - the rank, from 1
+   * @return the value, 0 for an empty histogram
+   */
+  private static int rank(int[] counts, long rank) {
+    long seen = 0;
+    for (int v = 0; v < counts.length; v++) {
+      seen += counts[v];
+      if (seen >= rank) {
+        return v;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Count the values of a histogram.
+   *
+   * @param counts - frequency of each value
+   * @return the number of values
+   */
+  private static long total(int[] counts) {
+    long total = 0;
+    for (int count : counts) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Divide and round to the nearest long, halves up, for a positive divisor.
+   *
+   * @param dividend - the dividend
+   * @param divisor  - the divisor, above 0
+   * @return the rounded quotient
+   */
+  private static long rounded(long dividend, long divisor) {
+    return Math.floorDiv(2 * dividend + divisor, 2 * divisor);
+  }
+
+  /**
+   * Check the counts of a histogram have a non-empty array for each channel.
+   *
+   * @param counts - frequency of each value of the red, green and blue channels
+   * @throws IllegalArgumentException - invalid counts
+   */
+  private static void checkCounts(int[][] counts) throws IllegalArgumentException {
+    if (counts == null || counts.length != 3) {
+      throw new IllegalArgumentException("Invalid histogram counts");
+    }
+    for (int[] channel : counts) {
+      if (channel == null || channel.length == 0) {
+        throw new IllegalArgumentException("Invalid histogram counts");
+      }
+    }
+  }
+
+  /**
+   * Get the max value of the images this table is for.
+   *
+   * @return the max value
+   */
+  public int getMaxValue() {
+    return this.max;
+  }
+
+  /**
+   * Fuse this table with the next table into one that gives the same result as looking a pixel up
+   * in this table then in the next, clamped in between. A channel of the next table that reads
+   * the value of the pixel can only be fused when every channel of this table reads the same
+   * channel, or when this table maps every channel with the same non-decreasing table, so the
+   * value of its result is the result of the value.
+   * <p>
+   * CHANGE: the fused table reads the compiled tables of both tables instead of calling their
+   * operations, so fusing costs one pass over the table however long the chain before it is. Only
+   * a channel outside a table is run through the operation of that table.
+   * </p>
+   *
+   * @param next - table run after this one
+   * @return the fused table, or null if the tables cannot be fused
+   * @throws IllegalArgumentException - null table
+   */
+  public LookupTable then(LookupTable next) throws IllegalArgumentException {
+    if (next == null) {
+      throw new IllegalArgumentException("Null input given");
+    }
+    boolean sameSource = this.sources[0] == this.sources[1] && this.sources[1] == this.sources[2];
+    int[] sources = new int[3];
+    IntUnaryOperator[] operations = new IntUnaryOperator[3];
+    for (int k = 0; k < 3; k++) {
+      int result = k;
+      int c = next.sources[k];
+      if (c == VALUE && sameSource) {
+        // every channel of the result of this table is a function of the same channel
+        sources[k] = this.sources[0];
+        operations[k] = v -> next.lookup(result, Math.max(lookup(0, v),
+            Math.max(lookup(1, v), lookup(2, v))));
+      } else if (c == VALUE && isUniform()) {
+        // the value of (t(r), t(g), t(b)) is t(value)
+        sources[k] = VALUE;
+        operations[k] = v -> next.lookup(result, lookup(0, v));
+      } else if (c == VALUE) {
+        return null;
+      } else {
+        sources[k] = this.sources[c];
+        operations[k] = v -> next.lookup(result, lookup(c, v));
+      }
+    }
+    return new LookupTable(next.max, sources, operations);
+  }
+
+  /**
+   * Look a channel value up in the table of one channel of the result, or run it through the
+   * operation of that channel when it is outside the table.
+   *
+   * @param k - channel of the result
+   * @param v - value of its source channel
+   * @return the clamped result of the operation
+   */
+  private int lookup(int k, int v) {
+    int[] table = this.tables[k];
+    return v >= 0 && v < table.length ? table[v] : clamped(k, v);
+  }
+
+  /**
+   * Run a channel value through the operation of one channel of this table, clamped.
+   *
+   * @param k - channel of the result
+   * @param v - value of its source channel
+   * @return the clamped result of the operation
+   */
+  private int clamped(int k, int v) {
+    return Math.max(0, Math.min(this.max, this.operations[k].applyAsInt(v)));
+  }
+
+  /**
+   * Is every channel of the result the same non-decreasing table of the same channel of the
+   * pixel.
+   *
+   * @return true if the value of a result is the table of the value
+   */
+  private boolean isUniform() {
+    boolean inOrder = this.sources[0] == 0 && this.sources[1] == 1 && this.sources[2] == 2;
+    if (!inOrder || !Arrays.equals(this.tables[0], this.tables[1])
+        || !Arrays.equals(this.tables[1], this.tables[2])) {
+      return false;
+    }
+    for (int v = 1; v < this.tables[0].length; v++) {
+      if (this.tables[0][v] < this.tables[0][v - 1]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Look up a single pixel, as a Transform.
+   *
+   * @param current - the pixel being passed in.
+   * @return new pixel, clamped between 0 and the max value
+   * @throws IllegalArgumentException - null or short pixel
+   */
+  @Override
+  public int[] edit(int[] current) throws IllegalArgumentException {
+    if (current == null || current.length < 3) {
+      throw new IllegalArgumentException("Error in reading pixel, check input.");
+    }
+    int[] pixel = Arrays.copyOf(current, 3);
+    applyInterleaved(pixel, 1);
+    return pixel;
+  }
+
+  /**
+   * Look up a row of packed 0xRRGGBB pixels with channels of at most 255, in place.
+   *
+   * @param row    - packed pixels
+   * @param length - number of pixels from the start of the row
+   */
+  public void applyPacked(int[] row, int length) {
+    int[] red = this.tables[0];
+    int[] green = this.tables[1];
+    int[] blue = this.tables[2];
+    int redSource = this.sources[0];
+    int greenSource = this.sources[1];
+    int blueSource = this.sources[2];
+    int[] channels = new int[4];
+    for (int j = 0; j < length; j++) {
+      int rgb = row[j];
+      channels[0] = (rgb >> 16) & 0xff;
+      channels[1] = (rgb >> 8) & 0xff;
+      channels[2] = rgb & 0xff;
+      channels[VALUE] = Math.max(channels[0], Math.max(channels[1], channels[2]));
+      row[j] = (red[channels[redSource]] << 16) | (green[channels[greenSource]] << 8)
+          | blue[channels[blueSource]];
+    }
+  }
+
+  /**
+   * Look up a row of pixels of 3 ints each, red, green and blue, in place.
+   *
+   * @param row    - pixels of 3 ints
+   * @param length - number of pixels from the start of the row
+   */
+  public void applyInterleaved(int[] row, int length) {
+    int last = this.tables[0].length - 1;
+    int[] channels = new int[4];
+    for (int j = 0; j < length; j++) {
+      boolean inTable = true;
+      for (int k = 0; k < 3; k++) {
+        channels[k] = row[3 * j + k];
+        inTable &= channels[k] >= 0 && channels[k] <= last;
+      }
+      channels[VALUE] = Math.max(channels[0], Math.max(channels[1], channels[2]));
+      for (int k = 0; k < 3; k++) {
+        int channel = channels[this.sources[k]];
+        row[3 * j + k] = inTable ? this.tables[k][channel]
+            : Math.max(0, Math.min(this.max, this.operations[k].applyAsInt(channel)));
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package model.transform;
+
+/**
+ * ADDITION: Helper for transforming rows of packed pixels as planes of ints, one array per
+ * channel, so every step is a plain loop of one int operation per element that the JIT compiles
+ * to vector instructions. The planes are kept per thread and reused from row to row, so bands run
+ * in parallel never share them and a row allocates nothing once they are large enough.
+ */
+final class RowLanes {
+
+  /**
+   * Number of planes: red, green and blue of the pixels, one for a sum, and one per channel of
+   * the result.
+   */
+  static final int PLANES = 7;
+
+  /**
+   * The planes of each thread. Set to private and final to avoid outside access and reassignment.
+   */
+  private static final ThreadLocal<int[][]> SCRATCH =
+      ThreadLocal.withInitial(() -> new int[PLANES][0]);
+
+  private RowLanes() {
+    // only static helpers
+  }
+
+  /**
+   * Get the planes of the calling thread, with room for at least length pixels each.
+   * @param length - number of pixels of the row
+   * @return the planes
+   */
+  static int[][] planes(int length) {
+    int[][] planes = SCRATCH.get();
+    if (planes[0].length < length) {
+      for (int p = 0; p < PLANES; p++) {
+        planes[p] = new int[length];
+      }
+    }
+    return planes;
+  }
+
+  /**
+   * Split packed 0xRRGGBB pixels into a plane per channel.
+   * @param row - packed pixels
+   * @param length - number of pixels from the start of the row
+   * @param red - red plane
+   * @param green - green plane
+   * @param blue - blue plane
+   */
+  static void unpack(int[] row, int length, int[] red, int[] green, int[] blue) {
+    for (int j = 0; j < length; j++) {
+      red[j] = (row[j] >> 16) & 0xff;
+    }
+    for (int j = 0; j < length; j++) {
+      green[j] = (row[j] >> 8) & 0xff;
+    }
+    for (int j = 0; j < length; j++) {
+      blue[j] = row[j] & 0xff;
+    }
+  }
+
+  /**
+   * Keep every value of a plane between 0 and max.
+   * @param plane - the plane, changed in place
+   * @param length - number of pixels from the start of the plane
+   * @param max - max value of the image
+   */
+  static void clamp(int[] plane, int length, int max) {
+    for (int j = 0; j < length; j++) {
+      plane[j] = Math.max(0, Math.min(max, plane[j]));
+    }
+  }
+
+  /**
+   * Pack a plane per channel, each clamped to at most 255, into 0xRRGGBB pixels.
+   * @param row - packed pixels, written over
+   * @param length - number of pixels from the start of the row
+   * @param red - red plane
+   * @param green - green plane
+   * @param blue - blue plane
+   */
+  static void pack(int[] row, int length, int[] red, int[] green, int[] blue) {
+    for (int j = 0; j < length; j++) {
+      row[j] = (red[j] << 16) | (green[j] << 8) | blue[j];
+    }
+  }
+}
@@ -149,6 +149,9 @@ public class ControlPanel extends JPanel {
     filters.addElement("Sepia");
     filters.addElement("Blur");
     filters.addElement("Sharpen");
+    filters.addElement("Equalize");
+    filters.addElement("Auto-levels");
+    filters.addElement("Contrast-stretch");
     JComboBox filtersList = new JComboBox(filters);
     filtersPanel.add(filtersList);
 
@@ -243,6 +246,17 @@ public class ControlPanel extends JPanel {
     }
   }
 
+  /**
+   * ADDITION: Enable or disable every button in the button array of this panel, so no other
+   * command can be started while one runs in the background.
+   * @param enabled - whether the buttons can be clicked
+   */
+  public void setButtonsEnabled(boolean enabled) {
+    for (JButton button : this.buttonArray) {
+      button.setEnabled(enabled);
+    }
+  }
+
   /**
    * Updates the current image, display drop down box, and newTitle text box if a
    * new Image was created.
@@ -292,11 +306,16 @@ public class ControlPanel extends JPanel {
   }
 
   /**
-   * Return a string representing the command from the filters drop down menu.
+   * Return a string representing the command from the filters drop down menu. CHANGE: a contrast
+   * stretch is given the 1st and 99th percentiles, which clips the few darkest and brightest
+   * pixels.
    * @return - String command
    */
   public String getApplyCommand() {
     String applyCommand = this.filters.getSelectedItem().toString().toLowerCase();
+    if (applyCommand.equals("contrast-stretch")) {
+      return applyCommand + " 1 99";
+    }
     return applyCommand;
   }
 
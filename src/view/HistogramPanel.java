@@ -3,16 +3,12 @@ package view;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.util.Map;
 
 import javax.swing.JPanel;
+import model.BandExecutor;
 import model.Image;
+import model.ImageHistogram;
 import model.ImageModel;
-import model.transform.GreyscaleBlue;
-import model.transform.GreyscaleGreen;
-import model.transform.GreyscaleIntensity;
-import model.transform.GreyscaleRed;
-import model.transform.Histogram;
 
 /**
  * the histogram panel is an extension of JPanel and will hold the image pixel histogram in the main
@@ -21,9 +17,25 @@ import model.transform.Histogram;
  * same histogram and color coded accordingly, with the intensity component in black and the other
  * lines with their corresponding color. This histogram essentially represents a color distribution
  * of different pixels values. This panel will be used in the PhotoProcessingView class as a field.
+ * <p>
+ * CHANGE: the four histograms are counted together in one pass over the image, by
+ * ImageHistogram through the model's getHistogram(), which keeps them until the image stored under
+ * the name shown changes, so a repaint for a resize or an unrelated click does not read the image
+ * again. An image that is not in the model is counted by the panel, once until another is shown.
+ * </p>
+ * <p>
+ * ADDITION: the histograms drawn are estimated from SAMPLE_BUDGET pixels sampled evenly over the
+ * image, which is exact for images of up to that many pixels and only off by a small fraction of
+ * the height of a line for larger ones. setExact() draws the exact histograms instead.
+ * </p>
  */
 public class HistogramPanel extends JPanel {
 
+  /**
+   * Number of pixels the histograms are estimated from unless exact histograms are asked for.
+   */
+  public static final long SAMPLE_BUDGET = 1 << 18;
+
   /**
    * the panel size. set to private and final to avoid outside access and reassignment.
    */
@@ -40,6 +52,30 @@ public class HistogramPanel extends JPanel {
    */
   private Image currentImage;
 
+  /**
+   * The histograms of the image shown, null before the first paint. Set to private to avoid
+   * outside access, not final as it changes with the image shown.
+   */
+  private ImageHistogram histogram;
+
+  /**
+   * The image that is not in the model the panel counted histograms for, null if there is none.
+   * Set to private to avoid outside access, not final as it changes with the image shown.
+   */
+  private Image counted;
+
+  /**
+   * Are the exact histograms drawn, instead of histograms estimated from a sample of the image.
+   * Set to private to avoid outside access, not final as it can be changed.
+   */
+  private boolean exact;
+
+  /**
+   * Were the histograms of the image that is not in the model counted exactly. Set to private to
+   * avoid outside access, not final as it changes with the image shown.
+   */
+  private boolean countedExact;
+
   /**
    * Construct the Histogram panel. The panel will take an model and currentImage, this currentImage
    * will be synced with the current image also represented in the image panel of the GUI, this is
@@ -70,37 +106,64 @@ public class HistogramPanel extends JPanel {
     g.drawRect(0, 0, panelSize, panelSize); // draw rectangle as the base/background
 
 
+    // the histograms of the image stored under the current name, kept by the model
     String filename = this.currentImage.getFilename();
+    if (this.model.getObject(filename) != null) {
+      this.histogram = this.exact ? this.model.getHistogram(filename)
+          : this.model.getHistogram(filename, SAMPLE_BUDGET);
+    } else if (this.currentImage != this.counted || this.exact != this.countedExact) {
+      this.histogram = this.exact ? ImageHistogram.of(this.currentImage)
+          : ImageHistogram.sample(this.currentImage, SAMPLE_BUDGET, new BandExecutor());
+      this.counted = this.currentImage;
+      this.countedExact = this.exact;
+    }
 
     // call paintHist helper on the 4 components.
-    paintHist(filename, Color.RED, new GreyscaleRed(), g);
-    paintHist(filename, Color.GREEN, new GreyscaleGreen(), g);
-    paintHist(filename, Color.BLUE, new GreyscaleBlue(), g);
-    paintHist(filename, Color.BLACK, new GreyscaleIntensity(), g);
+    paintHist(Color.RED, ImageHistogram.RED, g);
+    paintHist(Color.GREEN, ImageHistogram.GREEN, g);
+    paintHist(Color.BLUE, ImageHistogram.BLUE, g);
+    paintHist(Color.BLACK, ImageHistogram.INTENSITY, g);
   }
 
   /**
-   * given a filename, color and histogram type, draw the histogram line for that image.
-   * @param filename - name of file
+   * given a color and a histogram of the image, draw the histogram line for that image.
    * @param color - the color to be drawn
-   * @param type - the type of histogram (red, blue, green, or intensity)
+   * @param channel - the histogram drawn, one of the channels of ImageHistogram
    * @param g - graphics to be drawn on (in  this case, a rectangle)
    */
-  private void paintHist(String filename, Color color, Histogram type, Graphics g) {
+  private void paintHist(Color color, int channel, Graphics g) {
     g.setColor(color); // set color
-    Map<Integer, Integer> hist = model.getHistData(filename, type); // get the histogram data
-    int max = hist.get(-2);
+    int max = this.histogram.getMax(channel);
+    int[] hist = this.histogram.getCounts(channel);
     int i = 0;
-    g.drawLine(0, 0, i, panelSize - (int) ((double) hist.get(i) / max * panelSize));
+    g.drawLine(0, 0, i, panelSize - (int) ((double) hist[i] / max * panelSize));
 
 
     for (i = 1; i < 256; i++) {
-      g.drawLine(i - 1, panelSize - (int) ((double) hist.get(i - 1) / max * panelSize),
-              i, panelSize - (int) ((double) hist.get(i) / max * panelSize));
+      g.drawLine(i - 1, panelSize - (int) ((double) hist[i - 1] / max * panelSize),
+              i, panelSize - (int) ((double) hist[i] / max * panelSize));
     }
 
   }
 
+  /**
+   * Draw the exact histograms, counted from every pixel, or histograms estimated from a sample of
+   * the image, which is the default.
+   * @param exact - true for the exact histograms
+   */
+  public void setExact(boolean exact) {
+    this.exact = exact;
+    this.repaint();
+  }
+
+  /**
+   * Are the exact histograms drawn.
+   * @return true for the exact histograms, false for estimated ones
+   */
+  public boolean isExact() {
+    return this.exact;
+  }
+
   /**
    * Set the histogram current image to be the image passed in.
    * @param img - Image to become the currentImage.
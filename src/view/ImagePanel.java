@@ -2,7 +2,9 @@ package view;
 
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -15,6 +17,12 @@ import model.ImageUtil;
  * The image panel will be the panel of our GUI view that displays the current image. It is on a
  * scrollable pane and uses the current image as the image to display. This panel will be used
  * in the PhotoProcessingView class as a field.
+ * <p>
+ * CHANGE: the image is no longer saved to display/display.png and read back on every repaint. It
+ * is turned into a BufferedImage in memory (without a copy for images stored in one), scaled once
+ * when the image changes, and the scaled copy is kept in the label of the scroll pane, which draws
+ * it with drawImage. A repaint does no work beyond drawing that copy.
+ * </p>
  */
 public class ImagePanel extends JPanel {
 
@@ -32,6 +40,12 @@ public class ImagePanel extends JPanel {
   private final JLabel iconLabel;
   private final JScrollPane scrollPane;
 
+  /**
+   * The image the scaled copy was made from, to know when the image changed. Set to private to
+   * avoid outside access, not final as it changes with the image.
+   */
+  private Image renderedImage;
+
   /**
    * Construct the image panel with an image model and current image. the background color
    * is set to white with panel size equal to 600.
@@ -54,25 +68,42 @@ public class ImagePanel extends JPanel {
 
     this.iconLabel = new JLabel();
     this.scrollPane = new JScrollPane(iconLabel);
-
+    this.scrollPane.setPreferredSize(new Dimension(panelSize, panelSize));
+    this.add(scrollPane);
+    render();
   }
 
-  // this is where the image is drawn
-  @Override
-  public void paintComponent(Graphics g) {
-    ImageIcon i = ImageUtil.displayImage(currentImage);
-    java.awt.Image img = i.getImage();
+  /**
+   * Scale the current image for the panel when it is not the image shown, so its shorter side
+   * fills the panel and the scroll pane scrolls along the longer side.
+   */
+  private void render() {
+    if (this.currentImage == this.renderedImage) {
+      return;
+    }
+    this.renderedImage = this.currentImage;
+    if (this.currentImage == null) {
+      iconLabel.setIcon(null);
+      return;
+    }
+    BufferedImage full = ImageUtil.toBufferedImage(this.currentImage);
     int high = Math.max(this.currentImage.getHeight(), this.currentImage.getWidth());
     int low = Math.min(this.currentImage.getHeight(), this.currentImage.getWidth());
     boolean portrait = (low == this.currentImage.getWidth());
     high = (int) (((double) high / low) * panelSize);
-    img = img.getScaledInstance(portrait ? panelSize : high,
-        portrait ? high : panelSize,
-        java.awt.Image.SCALE_DEFAULT);
-    i = new ImageIcon(img);
-    iconLabel.setIcon(i);
-    scrollPane.setPreferredSize(new Dimension(panelSize, panelSize));
-    this.add(scrollPane);
+    int width = portrait ? panelSize : high;
+    int height = portrait ? high : panelSize;
+
+    BufferedImage scaled = full;
+    if (width != full.getWidth() || height != full.getHeight()) {
+      scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      Graphics2D g = scaled.createGraphics();
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+          RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.drawImage(full, 0, 0, width, height, null);
+      g.dispose();
+    }
+    iconLabel.setIcon(new ImageIcon(scaled));
   }
 
   /**
@@ -82,6 +113,7 @@ public class ImagePanel extends JPanel {
    */
   public void setPhoto(Image img) {
     this.currentImage = img;
+    render();
   }
 
 
@@ -34,6 +34,25 @@ public interface ImageView {
    */
   void refresh();
 
+  /**
+   * ADDITION: Show whether a command is running in the background. While it runs, the buttons of
+   * the control panel are disabled and the progress of the command and a cancel button are shown.
+   * @param busy - whether a command is running
+   */
+  void setBusy(boolean busy);
+
+  /**
+   * ADDITION: Show how much of the command running in the background is done.
+   * @param percent - the part done, from 0 to 100
+   */
+  void setProgress(int percent);
+
+  /**
+   * ADDITION: add the action listener of the cancel button, shown while a command runs.
+   * @param actionEvent - Action Event.
+   */
+  void setCancelListener(ActionListener actionEvent);
+
   /**
    * add action listeners for all the buttons in the control panel.
    * @param actionEvent - Action Event.
@@ -1,12 +1,16 @@
 package view;
 
 import java.awt.BorderLayout;
+import java.awt.FlowLayout;
 import java.awt.event.ActionListener;
 import java.util.Map;
 
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import model.Image;
 import model.ImageModel;
 
@@ -21,6 +25,8 @@ import model.ImageModel;
  * For drop down menu commands, select the command click the button beside the menu to execute
  * command. Same for text fields, enter text and hit the button to execute.
  * The Display button will render the selected image to the frame.
+ * ADDITION: while a command runs in the background, the buttons are disabled and the progress bar
+ * at the bottom of the frame fills up, next to a Cancel button that stops the command.
  */
 public class PhotoProcessingView extends JFrame implements ImageView {
 
@@ -47,6 +53,14 @@ public class PhotoProcessingView extends JFrame implements ImageView {
    */
   private final HistogramPanel histogramPanel;
 
+  /**
+   * ADDITION: the progress of the command running in the background and the button cancelling
+   * it, only enabled while a command runs. Set to private and final to avoid outside access and
+   * reassignment.
+   */
+  private final JProgressBar progressBar;
+  private final JButton cancelButton;
+
   /**
    * The current image being worked on/displayed. Set to private to avoid outside access, not final
    * however because will be reassigned.
@@ -80,12 +94,28 @@ public class PhotoProcessingView extends JFrame implements ImageView {
     controlPanel = new ControlPanel(this.model, this.currentImage);
     histogramPanel = new HistogramPanel(this.model, this.currentImage);
 
+    // histograms are estimated from a sample of the image unless exact ones are asked for
+    JCheckBox exactHistogram = new JCheckBox("Exact histogram");
+    exactHistogram.addActionListener(e -> histogramPanel.setExact(exactHistogram.isSelected()));
+
     infoPanel.add(controlPanel, BorderLayout.NORTH);
+    infoPanel.add(exactHistogram, BorderLayout.CENTER);
     infoPanel.add(histogramPanel, BorderLayout.SOUTH);
 
     this.add(imagePanel, BorderLayout.LINE_START);
     this.add(infoPanel, BorderLayout.LINE_END);
 
+    // progress of a command running in the background
+    JPanel progressPanel = new JPanel();
+    progressPanel.setLayout(new FlowLayout());
+    progressBar = new JProgressBar(0, 100);
+    progressBar.setStringPainted(true);
+    progressPanel.add(progressBar);
+    cancelButton = new JButton("Cancel");
+    cancelButton.setEnabled(false);
+    progressPanel.add(cancelButton);
+    this.add(progressPanel, BorderLayout.PAGE_END);
+
 
 
     this.pack();
@@ -116,6 +146,23 @@ public class PhotoProcessingView extends JFrame implements ImageView {
     this.repaint();
   }
 
+  @Override
+  public void setBusy(boolean busy) {
+    this.controlPanel.setButtonsEnabled(!busy);
+    this.progressBar.setValue(0);
+    this.cancelButton.setEnabled(busy);
+  }
+
+  @Override
+  public void setProgress(int percent) {
+    this.progressBar.setValue(percent);
+  }
+
+  @Override
+  public void setCancelListener(ActionListener actionEvent) {
+    this.cancelButton.addActionListener(actionEvent);
+  }
+
   @Override
   public Map<String, String> getButtonMap() {
     return this.controlPanel.getButtonMap();
@@ -20,6 +20,7 @@ import controller.commands.VerticalFlipImage;
 import java.util.Arrays;
 import model.ImageModel;
 import model.ImageModelImpl;
+import model.ImageUtil;
 
 import org.junit.Test;
 
@@ -105,6 +106,61 @@ public class TestController {
     assertArrayEquals(model.getImage("bright"), bright);
   }
 
+  @Test
+  public void testControllerCrop() {
+    int[][][] crop = {{{255, 62, 62}, {250, 59, 132}},
+        {{210, 78, 251}, {253, 62, 75}}};
+    String s = "load res/smallTest.ppm two crop 1 0 2 2 two crop save res/crop.ppm crop";
+    Readable in = new InputStreamReader(new ByteArrayInputStream(s.getBytes()));
+    ImageModel model = new ImageModelImpl();
+    ImageController controller = new ControllerText(in, model);
+    try {
+      controller.run();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    File saved = new File("res/crop.ppm");
+    assertTrue(saved.exists());
+    assertArrayEquals(crop, model.getImage("crop"));
+  }
+
+  @Test
+  public void testControllerHistogramOperations() {
+    String s = "load res/smallTest.ppm two equalize two equalized auto-levels two levels "
+        + "contrast-stretch 20 80 two stretched save res/stretched.ppm stretched";
+    Readable in = new InputStreamReader(new ByteArrayInputStream(s.getBytes()));
+    ImageModel model = new ImageModelImpl();
+    ImageController controller = new ControllerText(in, model);
+    try {
+      controller.run();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    assertTrue(new File("res/stretched.ppm").exists());
+    assertArrayEquals(new int[]{255, 204, 51}, model.getPixel("equalized", 0, 0));
+    assertArrayEquals(new int[]{255, 64, 1}, model.getPixel("levels", 0, 0));
+    assertArrayEquals(new int[]{254, 0, 94}, model.getPixel("stretched", 0, 2));
+  }
+
+  @Test
+  public void testControllerRotate() {
+    int[][][] rotate = {{{250, 59, 132}, {253, 62, 75}}, {{255, 62, 62}, {210, 78, 251}},
+        {{255, 63, 63}, {240, 58, 220}}};
+    String s = "load res/smallTest.ppm two rotate 270 two rotate save res/rotate.ppm rotate";
+    Readable in = new InputStreamReader(new ByteArrayInputStream(s.getBytes()));
+    ImageModel model = new ImageModelImpl();
+    ImageController controller = new ControllerText(in, model);
+    try {
+      controller.run();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    File saved = new File("res/rotate.ppm");
+    assertTrue(saved.exists());
+    assertArrayEquals(rotate, model.getImage("rotate"));
+    assertArrayEquals(rotate, ImageUtil.readPPM("res/rotate.ppm", "saved").getImage());
+  }
+
   @Test
   public void testControllerValue() {
     int[][][] val = {{{255, 255, 255}, {255, 255, 255}, {250, 250, 250}},
@@ -1,10 +1,14 @@
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 import model.Image;
 import model.ImageImpl;
 import model.ImageUtil;
+import model.PackedImage;
+import model.PlanarImage;
 import org.junit.Test;
 
 /**
@@ -140,4 +144,150 @@ public class TestImage {
     assertArrayEquals(threeByTwoArray, smallTest.getImage());
     assertArrayEquals(twoByTwoArray, twoByTwo.getImage());
   }
-}
\ No newline at end of file
+
+  // test packed image stores and unpacks pixels the same as ImageImpl
+  @Test
+  public void testPackedImage() {
+    Image packed = new PackedImage("packed", threeByTwoArray, 255);
+
+    assertEquals(255, packed.getMaxValue());
+    assertEquals(3, packed.getWidth());
+    assertEquals(2, packed.getHeight());
+    assertEquals("packed", packed.getFilename());
+    assertArrayEquals(threeByTwoArray, packed.getImage());
+    assertArrayEquals(new int[]{210, 78, 251}, packed.getPixel(1, 1));
+    assertEquals(0xd24efb, ((PackedImage) packed).getRGB(1, 1));
+  }
+
+  // test packed image built from packed pixels
+  @Test
+  public void testPackedImagePixels() {
+    int[] pixels = {PackedImage.pack(255, 0, 0), PackedImage.pack(0, 255, 0),
+        PackedImage.pack(0, 0, 255), PackedImage.pack(255, 255, 0)};
+    Image packed = new PackedImage("twoByTwo", pixels, 2, 2, 255);
+    assertArrayEquals(twoByTwoArray, packed.getImage());
+  }
+
+  // test PPM images with max no larger than 255 are read as planar images
+  @Test
+  public void testReadPlanarPPM() {
+    assertTrue(smallTest instanceof PlanarImage);
+    assertTrue(twoByTwo instanceof PlanarImage);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPackedInvalidPixel() {
+    new PackedImage("packed", threeByTwoArray, 255).getPixel(1, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPackedMaxTooLarge() {
+    new PackedImage("packed", threeByTwoArray, 256);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPackedWrongSize() {
+    new PackedImage("packed", new int[5], 3, 2, 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPackedChannelTooLarge() {
+    new PackedImage("packed", new int[][][]{{{300, 0, 0}, {1, 5, 5}}}, 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPackedChannelNegative() {
+    new PackedImage("packed", new int[][][]{{{0, 0, 0}, {-1, 5, 5}}}, 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPackedChannelAboveMax() {
+    new PackedImage("packed", new int[][][]{{{0, 0, 0}, {101, 5, 5}}}, 100);
+  }
+
+  // test planar image built from channel planes
+  @Test
+  public void testPlanarImage() {
+    byte[] red = {(byte) 255, 0, 0, (byte) 255};
+    byte[] green = {0, (byte) 255, 0, (byte) 255};
+    byte[] blue = {0, 0, (byte) 255, 0};
+    Image planar = new PlanarImage("twoByTwo", red, green, blue, 2, 2, 255);
+
+    assertEquals(2, planar.getWidth());
+    assertEquals(2, planar.getHeight());
+    assertEquals(255, planar.getMaxValue());
+    assertArrayEquals(twoByTwoArray, planar.getImage());
+    assertArrayEquals(new int[]{255, 255, 0}, planar.getPixel(1, 1));
+    assertEquals(0xffff00, ((PlanarImage) planar).getRGB(1, 1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPlanarInvalidPixel() {
+    new PlanarImage("planar", 3, 2, 255).getPixel(2, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPlanarWrongSize() {
+    new PlanarImage("planar", new byte[6], new byte[6], new byte[5], 3, 2, 255);
+  }
+
+  // test reading rows and regions into a reused array, for planar and array images
+  @Test
+  public void testReadRowAndRegion() {
+    int[] row = new int[9];
+    for (Image image : new Image[]{smallTest, smallTestMaxConstructor}) {
+      image.readRow(1, row);
+      assertArrayEquals(new int[]{240, 58, 220, 210, 78, 251, 253, 62, 75}, row);
+
+      int[] region = new int[12];
+      image.readRegion(1, 0, 2, 2, region);
+      assertArrayEquals(new int[]{255, 62, 62, 250, 59, 132, 210, 78, 251, 253, 62, 75},
+          region);
+    }
+  }
+
+  // test writing rows into new images
+  @Test
+  public void testWriteRow() {
+    Image planar = new PlanarImage("planar", 3, 2, 255);
+    Image array = new ImageImpl("array", new int[2][3][3], 1000);
+    int[] row = new int[9];
+    for (int i = 0; i < 2; i++) {
+      smallTest.readRow(i, row);
+      planar.writeRow(i, row);
+      array.writeRow(i, row);
+    }
+    assertArrayEquals(threeByTwoArray, planar.getImage());
+    assertArrayEquals(threeByTwoArray, array.getImage());
+  }
+
+  // test every image rejects a row with a channel outside 0 to its max value, leaving it as it was
+  @Test
+  public void testWriteRowOutOfRange() {
+    int[][] rows = {{0, 0, 0, 256, 0, 0}, {0, 0, 0, 5, -1, 5}, {0, 0, 0, 5, 5, 101}};
+    for (int[] row : rows) {
+      Image[] images = {new PlanarImage("planar", 2, 1, 100), new PackedImage("packed",
+          new int[2], 2, 1, 100), new ImageImpl("array", new int[1][2][3], 100)};
+      for (Image image : images) {
+        try {
+          image.writeRow(0, row);
+          fail("channel out of range written to " + image.getFilename());
+        } catch (IllegalArgumentException e) {
+          assertArrayEquals(new int[][][]{{{0, 0, 0}, {0, 0, 0}}}, image.getImage());
+        }
+      }
+    }
+  }
+
+  // test reading a region that is not inside the image
+  @Test(expected = IllegalStateException.class)
+  public void testReadRegionOutside() {
+    smallTest.readRegion(2, 0, 2, 1, new int[6]);
+  }
+
+  // test reading a row into an array that is too small
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadRowTooSmall() {
+    smallTest.readRow(0, new int[8]);
+  }
+}
@@ -1,15 +1,25 @@
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import java.util.Arrays;
+import model.BandExecutor;
 import model.Image;
 import model.ImageModel;
+import model.ImageImpl;
 import model.ImageModelImpl;
+import model.ImageStorage;
 import model.ImageUtil;
+import model.TiledImage;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
 
 import org.junit.Test;
 
@@ -112,6 +122,212 @@ public class TestImageUtils {
 
   }
 
+  // test comments anywhere, blank lines and any whitespace between values
+  @Test
+  public void readPPMTestComments() throws IOException {
+    String ppm = "# leading comment\nP3 # magic\n\n3\t2\r\n#max next\n255\n"
+        + "255 63 63 255 62 62#row\n250 59 132\n\n240 58 220   210 78 251 253 62 75";
+    File file = new File("res/comments.ppm");
+    Files.write(file.toPath(), ppm.getBytes());
+    Image comments = ImageUtil.readPPM("res/comments.ppm", "comments");
+    assertArrayEquals(new int[][][]{{{255, 63, 63}, {255, 62, 62}, {250, 59, 132}},
+        {{240, 58, 220}, {210, 78, 251}, {253, 62, 75}}}, comments.getImage());
+    assertEquals(255, comments.getMaxValue());
+    assertTrue(file.delete());
+  }
+
+  // test a file that ends before all of its values
+  @Test (expected = IllegalArgumentException.class)
+  public void testExceptionTruncated() throws IOException {
+    Files.write(new File("res/truncated.ppm").toPath(), "P3 2 1 255 1 2 3 4".getBytes());
+    ImageUtil.readPPM("res/truncated.ppm", "truncated");
+  }
+
+  // test a plain file with a sample above its max value
+  @Test (expected = IllegalArgumentException.class)
+  public void testExceptionSampleAboveMax() throws IOException {
+    Files.write(new File("res/range.ppm").toPath(), "P3 2 1 100 1 2 3 4 101 6".getBytes());
+    ImageUtil.readPPM("res/range.ppm", "range");
+  }
+
+  // test a plain file with a negative sample
+  @Test (expected = IllegalArgumentException.class)
+  public void testExceptionSampleNegative() throws IOException {
+    Files.write(new File("res/range.ppm").toPath(), "P3 1 1 255 1 -2 3".getBytes());
+    ImageUtil.readPPM("res/range.ppm", "range");
+  }
+
+  // test plain files have one value per line, the same when rows are formatted in parallel
+  @Test
+  public void testPlainPPM() throws IOException {
+    String n = System.lineSeparator();
+    ImageUtil.savePPM("res/plain.ppm", new ImageImpl("plain",
+        new int[][][]{{{0, 9, 10}}, {{255, 1000, 65535}}}, 65535));
+    assertEquals("P3" + n + "# Created by controller.PhotoProcessing" + n + "1 2" + n + "65535" + n
+        + "0" + n + "9" + n + "10" + n + "255" + n + "1000" + n + "65535" + n,
+        new String(Files.readAllBytes(new File("res/plain.ppm").toPath())));
+
+    int[][][] pixels = new int[301][7][3];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < 7; j++) {
+        pixels[i][j] = new int[]{i % 256, j, (i * j) % 256};
+      }
+    }
+    Image image = new ImageImpl("large", pixels);
+    ImageUtil.savePPM("res/serial.ppm", image);
+    ImageUtil.savePPM("res/parallel.ppm", image, new BandExecutor(4, 1));
+    assertArrayEquals(Files.readAllBytes(new File("res/serial.ppm").toPath()),
+        Files.readAllBytes(new File("res/parallel.ppm").toPath()));
+    assertArrayEquals(pixels, ImageUtil.readPPM("res/parallel.ppm", "large").getImage());
+  }
+
+  // test the layouts ImageIO reads give the pixels getRGB() gives, and saves keep them
+  @Test
+  public void testRasterLayouts() throws IOException {
+    int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY};
+    for (int type : types) {
+      BufferedImage buff = new BufferedImage(5, 3, type);
+      for (int i = 0; i < 3; i++) {
+        for (int j = 0; j < 5; j++) {
+          buff.setRGB(j, i, 0xff000000 | (40 * j) << 16 | (100 * i) << 8 | (7 * i * j));
+        }
+      }
+      File file = new File("res/layout.png");
+      ImageIO.write(buff, "png", file); // read back as 3BYTE_BGR, 4BYTE_ABGR or BYTE_GRAY
+      BufferedImage read = ImageIO.read(file);
+      Image image = ImageUtil.readImage("res/layout.png", "layout");
+      for (int i = 0; i < 3; i++) {
+        for (int j = 0; j < 5; j++) {
+          int rgb = read.getRGB(j, i);
+          assertArrayEquals(new int[]{rgb >> 16 & 0xff, rgb >> 8 & 0xff, rgb & 0xff},
+              image.getPixel(i, j));
+        }
+      }
+      // a tiled image is decoded through the source region of the reader
+      Image tiled = ImageUtil.readImage("res/layout.png", "layout", ImageStorage.TILED);
+      assertTrue(tiled instanceof TiledImage);
+      assertArrayEquals(image.getImage(), tiled.getImage());
+
+      ImageUtil.saveImage("res/saved.png", image);
+      BufferedImage saved = ImageIO.read(new File("res/saved.png"));
+      for (int i = 0; i < 3; i++) {
+        for (int j = 0; j < 5; j++) {
+          assertEquals(read.getRGB(j, i) & 0xffffff, saved.getRGB(j, i) & 0xffffff);
+        }
+      }
+    }
+  }
+
+  // test an image is displayed from memory with its own size and pixels
+  @Test
+  public void testDisplayImage() {
+    Image small = ImageUtil.readPPM("res/smallTest.ppm", "smallTest");
+    ImageIcon icon = ImageUtil.displayImage(small);
+    assertEquals(3, icon.getIconWidth());
+    assertEquals(2, icon.getIconHeight());
+    assertEquals(0xf03adc, ((BufferedImage) icon.getImage()).getRGB(0, 1) & 0xffffff);
+  }
+
+  // test raw P6 files keep every pixel, with 2 byte samples above a max value of 255
+  @Test
+  public void testRawPPM() throws IOException {
+    Image small = ImageUtil.readPPM("res/smallTest.ppm", "smallTest");
+    ImageUtil.savePPM("res/raw.ppm", small, true);
+    assertEquals(3 * 2 * 3 + "P6\n3 2\n255\n".length(), new File("res/raw.ppm").length());
+    Image raw = ImageUtil.readImage("res/raw.ppm", "raw");
+    assertArrayEquals(small.getImage(), raw.getImage());
+    assertEquals(255, raw.getMaxValue());
+
+    int[][][] pixels = {{{0, 300, 65535}, {1, 256, 40000}}};
+    ImageUtil.savePPM("res/raw16.ppm", new ImageImpl("deep", pixels, 65535), true);
+    assertEquals(2 * 3 * 2 + "P6\n2 1\n65535\n".length(), new File("res/raw16.ppm").length());
+    Image deep = ImageUtil.readPPM("res/raw16.ppm", "deep");
+    assertArrayEquals(pixels, deep.getImage());
+    assertEquals(65535, deep.getMaxValue());
+  }
+
+  // test operations on a 16-bit file keep its max value and save back to a raw file unchanged
+  @Test
+  public void testDeepOperationsRoundTrip() throws IOException {
+    int[][][] pixels = {{{0, 300, 65535}, {1, 256, 40000}, {50000, 20000, 9}},
+        {{65535, 65535, 65535}, {1000, 2000, 3000}, {30000, 1, 60000}}};
+    ImageUtil.savePPM("res/deep.ppm", new ImageImpl("deep", pixels, 65535), true);
+    ImageModel model = new ImageModelImpl("res/deep.ppm", "deep");
+    model.transform("deep", "sepia", new model.transform.Sepia());
+    model.filter("deep", "blur", new model.filter.Blur());
+    model.flip("deep", "vertical", true);
+    model.flip("deep", "horizontal", false);
+    int[] sepia = new model.transform.Sepia().edit(new int[]{1000, 2000, 3000});
+    assertArrayEquals(sepia, model.getPixel("sepia", 1, 1));
+    assertArrayEquals(pixels[0][2], model.getPixel("vertical", 0, 0));
+    assertArrayEquals(pixels[0][0], model.getPixel("horizontal", 1, 0));
+    for (String name : new String[]{"sepia", "blur", "vertical", "horizontal"}) {
+      assertEquals(65535, model.getMax(name));
+      ImageUtil.savePPM("res/deep.ppm", model.getObject(name), true);
+      Image saved = ImageUtil.readPPM("res/deep.ppm", name);
+      assertEquals(65535, saved.getMaxValue());
+      assertArrayEquals(model.getImage(name), saved.getImage());
+    }
+  }
+
+  // test raw P5 files save the luma of each pixel and read back as greyscale
+  @Test
+  public void testRawPGM() throws IOException {
+    int[][][] pixels = {{{10, 10, 10}, {0, 255, 0}}, {{200, 200, 200}, {255, 255, 255}}};
+    ImageUtil.saveImage("res/grey.pgm", new ImageImpl("grey", pixels));
+    Image grey = ImageUtil.readImage("res/grey.pgm", "grey");
+    assertArrayEquals(new int[][][]{{{10, 10, 10}, {182, 182, 182}},
+        {{200, 200, 200}, {255, 255, 255}}}, grey.getImage());
+
+    byte[] header = "P5 # deep\n1 2\n1023\n".getBytes();
+    byte[] file = Arrays.copyOf(header, header.length + 4);
+    file[header.length] = 3; // 1000 and 7, big-endian
+    file[header.length + 1] = (byte) 0xe8;
+    file[header.length + 3] = 7;
+    Files.write(new File("res/deep.pgm").toPath(), file);
+    Image deep = ImageUtil.readPPM("res/deep.pgm", "deep");
+    assertArrayEquals(new int[][][]{{{1000, 1000, 1000}}, {{7, 7, 7}}}, deep.getImage());
+    assertEquals(1023, deep.getMaxValue());
+  }
+
+  // test raw files with a sample above their max value
+  @Test
+  public void testExceptionRawSampleAboveMax() throws IOException {
+    byte[][] files = {rawFile("P6 1 1 100\n", 10, 200, 30), rawFile("P5 2 1 100\n", 5, 101),
+        rawFile("P6 1 1 1000\n", 0, 5, 7, 208, 0, 9)};
+    for (byte[] file : files) {
+      Files.write(new File("res/range.ppm").toPath(), file);
+      try {
+        ImageUtil.readPPM("res/range.ppm", "range");
+        fail("sample above max value accepted");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * Make the bytes of a raw file from its header and samples.
+   * @param header - the header of the file
+   * @param samples - the bytes after the header
+   * @return the file
+   */
+  private static byte[] rawFile(String header, int... samples) {
+    byte[] file = Arrays.copyOf(header.getBytes(), header.length() + samples.length);
+    for (int i = 0; i < samples.length; i++) {
+      file[header.length() + i] = (byte) samples[i];
+    }
+    return file;
+  }
+
+  // test a raw file that ends before all of its samples
+  @Test (expected = IllegalArgumentException.class)
+  public void testExceptionRawTruncated() throws IOException {
+    Files.write(new File("res/truncated.ppm").toPath(), "P6 2 1 255\n123".getBytes());
+    ImageUtil.readPPM("res/truncated.ppm", "truncated");
+  }
+
   // test exception file not found
   @Test (expected = IllegalArgumentException.class)
   public void testExceptionInvalid() {
@@ -1,7 +1,23 @@
 
 import java.util.Map;
+import model.AbstractRgbImage;
+import model.BandExecutor;
+import model.BufferedRgbImage;
 import model.Image;
+import model.ImageHistogram;
+import model.ImageStorage;
 import model.ImageUtil;
+import model.OffHeapImage;
+import model.OrientedImage;
+import model.PackedImage;
+import model.PointImage;
+import model.Progress;
+import model.RegionImage;
+import model.TiledImage;
+import model.filter.Border;
+import model.filter.Convolution;
+import model.filter.Filter;
+import model.filter.GaussianBlur;
 import model.filter.Sharpen;
 
 import model.transform.GreyscaleBlue;
@@ -12,18 +28,28 @@ import model.transform.Sepia;
 import model.transform.Transform;
 import model.transform.GreyscaleRed;
 import model.transform.GreyscaleValue;
+import model.transform.LookupTable;
+import model.transform.AbstractTransform;
 import model.ImageModel;
 import model.ImageModelImpl;
 import model.filter.Blur;
 
 import org.junit.Test;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.io.IOException;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -619,8 +645,991 @@ public class TestModel {
 
   }
 
+  // test every histogram is counted in one pass, the same serially and in bands
+  @Test
+  public void testImageHistogram() {
+    java.util.Random random = new java.util.Random(15);
+    int[][][] pixels = new int[40][30][];
+    int[][][] deep = new int[40][30][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[0].length; j++) {
+        pixels[i][j] = new int[]{random.nextInt(256), random.nextInt(256), random.nextInt(256)};
+        deep[i][j] = new int[]{pixels[i][j][0], pixels[i][j][1], 256 * pixels[i][j][2]};
+      }
+    }
+    int[][] expected = new int[ImageHistogram.CHANNELS][ImageHistogram.BINS];
+    for (int[][] row : pixels) {
+      for (int[] pixel : row) {
+        expected[ImageHistogram.RED][pixel[0]]++;
+        expected[ImageHistogram.GREEN][pixel[1]]++;
+        expected[ImageHistogram.BLUE][pixel[2]]++;
+        expected[ImageHistogram.INTENSITY][new GreyscaleIntensity().value(pixel)]++;
+        expected[ImageHistogram.LUMA][new GreyscaleLuma().edit(pixel)[0]]++;
+        expected[ImageHistogram.VALUE][new GreyscaleValue().edit(pixel)[0]]++;
+      }
+    }
+
+    for (BandExecutor executor : new BandExecutor[]{new BandExecutor(1), new BandExecutor(3, 0)}) {
+      ImageHistogram histogram = ImageHistogram.of(new PackedImage("img", pixels, 255), executor);
+      assertEquals(1200, histogram.getTotal());
+      for (int channel = 0; channel < ImageHistogram.CHANNELS; channel++) {
+        assertArrayEquals(expected[channel], histogram.getCounts(channel));
+        assertEquals(Arrays.stream(expected[channel]).max().getAsInt(),
+            histogram.getMax(channel));
+      }
+      // a deep image counts values above 255 as 255
+      ImageHistogram deepHistogram = ImageHistogram.of(new model.ImageImpl("deep", deep, 65535),
+          executor);
+      assertArrayEquals(expected[ImageHistogram.RED],
+          deepHistogram.getCounts(ImageHistogram.RED));
+      assertEquals(1200 - expected[ImageHistogram.BLUE][0],
+          deepHistogram.getCount(ImageHistogram.BLUE, 255));
+    }
+
+    ImageModel model = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    assertArrayEquals(expected[ImageHistogram.LUMA],
+        model.getHistogram("img").getCounts(ImageHistogram.LUMA));
+    assertEquals(expected[ImageHistogram.INTENSITY][100],
+        (int) model.getHistData("img", new GreyscaleIntensity()).get(100));
+    assertEquals(1200, (int) model.getHistData("img", new GreyscaleIntensity()).get(-1));
+  }
 
+  // test histograms are kept per image and dropped once its name is overwritten
+  @Test
+  public void testHistogramCache() {
+    int[][][] pixels = new int[][][]{{{10, 20, 30}, {50, 20, 0}}, {{10, 90, 30}, {250, 20, 60}}};
+    ImageModel model = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    ImageHistogram histogram = model.getHistogram("img");
+    assertTrue(histogram == model.getHistogram("img"));
+    assertEquals(80.0, histogram.getMean(ImageHistogram.RED), 1e-9);
+    assertEquals(10, histogram.getLowest(ImageHistogram.RED));
+    assertEquals(250, histogram.getHighest(ImageHistogram.RED));
+    assertEquals(10, histogram.getPercentile(ImageHistogram.RED, 0.5));
+    assertEquals(50, histogram.getPercentile(ImageHistogram.RED, 0.51));
+    assertEquals(250, histogram.getPercentile(ImageHistogram.RED, 1));
+    assertEquals(10, histogram.getPercentile(ImageHistogram.RED, 0));
+
+    // overwriting or removing a name counts the new image again
+    model.flip("img", "flipped", true);
+    model.flip("flipped", "img", true);
+    ImageHistogram flipped = model.getHistogram("flipped");
+    assertFalse(histogram == model.getHistogram("img"));
+    model.brightness("img", "flipped", 5);
+    assertFalse(flipped == model.getHistogram("flipped"));
+    assertEquals(15, model.getHistogram("flipped").getLowest(ImageHistogram.RED));
+    model.removeImage("flipped");
+    model.brightness("img", "flipped", 0);
+    assertEquals(10, model.getHistogram("flipped").getLowest(ImageHistogram.RED));
+  }
 
+  // test histograms estimated from a sample add up to the image and are close to the exact ones
+  @Test
+  public void testSampledHistogram() {
+    java.util.Random random = new java.util.Random(17);
+    int[][][] pixels = new int[200][300][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[0].length; j++) {
+        int v = Math.min(255, i + random.nextInt(56));
+        pixels[i][j] = new int[]{v, j % 256, random.nextInt(256)};
+      }
+    }
+    ImageModel model = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    ImageHistogram exact = model.getHistogram("img");
+    ImageHistogram sampled = ImageHistogram.sample(model.getObject("img"), 5000,
+        new BandExecutor(3, 0));
+    assertFalse(sampled.isExact());
+    assertTrue(sampled.getSamples() <= 5000 && sampled.getSamples() > 4000);
+    assertEquals(60000, sampled.getTotal());
+    int outside = 0;
+    for (int channel = 0; channel < ImageHistogram.CHANNELS; channel++) {
+      assertEquals(60000, Arrays.stream(sampled.getCounts(channel)).sum());
+      for (int v = 0; v < ImageHistogram.BINS; v++) {
+        double difference = Math.abs(sampled.getCount(channel, v) - exact.getCount(channel, v));
+        assertTrue(sampled.getError(channel, v) > 0);
+        assertTrue(difference <= 8 * sampled.getError(channel, v));
+        outside += difference > 2 * sampled.getError(channel, v) ? 1 : 0;
+        assertEquals(0, exact.getError(channel, v), 0);
+      }
+    }
+    // most estimates are within two standard errors
+    assertTrue(outside < ImageHistogram.CHANNELS * ImageHistogram.BINS / 10);
+    assertEquals(exact.getMean(ImageHistogram.RED), sampled.getMean(ImageHistogram.RED), 2);
+    assertArrayEquals(sampled.getCounts(ImageHistogram.LUMA), ImageHistogram.sample(
+        model.getObject("img"), 5000, new BandExecutor(1)).getCounts(ImageHistogram.LUMA));
+
+    // a budget larger than the image counts every pixel
+    assertTrue(ImageHistogram.sample(model.getObject("img"), 60000, new BandExecutor()).isExact());
+
+    // the model keeps an exact histogram for any budget, and a sample until more are asked for
+    assertTrue(exact == model.getHistogram("img", 5000));
+    model.brightness("img", "img", 1);
+    ImageHistogram estimate = model.getHistogram("img", 5000);
+    assertFalse(estimate.isExact());
+    assertTrue(estimate == model.getHistogram("img", 100));
+    assertTrue(model.getHistogram("img").isExact());
+    assertEquals(model.getHistData("img", new GreyscaleRed()),
+        model.getHistData("img", new GreyscaleRed(), 5000));
+  }
 
-}
+  // test a sample budget must be positive
+  @Test(expected = IllegalArgumentException.class)
+  public void testSampledHistogramInvalid() {
+    model32.getHistogram(threeByTwoFile, 0);
+  }
+
+  // test invalid histogram requests
+  @Test(expected = IllegalStateException.class)
+  public void testImageHistogramMissing() {
+    model32.getHistogram("missing");
+  }
+
+  // test equalize, auto-levels and contrast stretch map the values through their histograms
+  @Test
+  public void testHistogramOperations() {
+    ImageModel model = new ImageModelImpl(new model.ImageImpl("small", threeByTwoArray));
+    model.equalize("small", "equalized");
+    assertArrayEquals(new int[][][]{{{255, 204, 51}, {255, 153, 0}, {102, 51, 153}},
+        {{51, 0, 204}, {0, 255, 255}, {153, 153, 102}}}, model.getImage("equalized"));
+
+    model.autoLevels("small", "levels");
+    assertArrayEquals(new int[][][]{{{255, 64, 1}, {255, 51, 0}, {227, 13, 94}},
+        {{170, 0, 213}, {0, 255, 255}, {244, 51, 18}}}, model.getImage("levels"));
+
+    // the 20th and 80th percentiles of all 18 values are 62 and 251
+    model.contrastStretch("small", "stretched", 20, 80);
+    assertArrayEquals(new int[][][]{{{255, 1, 1}, {255, 0, 0}, {254, 0, 94}},
+        {{240, 0, 213}, {200, 22, 255}, {255, 0, 18}}}, model.getImage("stretched"));
+
+    // an image of one color is left as it is
+    model.brightness("small", "white", 255);
+    model.equalize("white", "same");
+    model.autoLevels("white", "same");
+    assertEquals(255, model.getPixel("same", 1, 2)[1]);
+
+    // a deep image keeps its max value
+    ImageModel deep = new ImageModelImpl(new model.ImageImpl("deep",
+        new int[][][]{{{10, 1000, 2000}, {3000, 4000, 60000}}}, 65535));
+    deep.autoLevels("deep", "levels");
+    assertArrayEquals(new int[][][]{{{0, 0, 0}, {65535, 65535, 65535}}},
+        deep.getImage("levels"));
+    assertEquals(65535, deep.getObject("levels").getMaxValue());
+  }
+
+  // test a contrast stretch needs a low percentage below the high one
+  @Test(expected = IllegalArgumentException.class)
+  public void testContrastStretchInvalid() {
+    model32.contrastStretch(threeByTwoFile, "stretched", 50, 50);
+  }
+
+  // test a histogram operation on an image that is not in the model
+  @Test(expected = IllegalStateException.class)
+  public void testEqualizeMissing() {
+    model32.equalize("missing", "equalized");
+  }
+
+
+
+
+
+  // test a single channel greyscale of a planar image shares the plane of that channel
+  @Test
+  public void testPlanarChannelGreyscale() {
+    model32.transform(threeByTwoFile, "red", new GreyscaleRed());
+    model32.transform("red", "red2", new GreyscaleGreen());
+
+    int[][][] threeByTwoArrayRedScale = {{{255, 255, 255}, {255, 255, 255}, {250, 250, 250}},
+        {{240, 240, 240}, {210, 210, 210}, {253, 253, 253}}};
+    assertArrayEquals(threeByTwoArrayRedScale, model32.getImage("red"));
+    assertArrayEquals(threeByTwoArrayRedScale, model32.getImage("red2"));
+    assertArrayEquals(threeByTwoArray, model32.getImage(threeByTwoFile));
+  }
+
+  // test operations on a packed image give the same pixels as on the planar image it came from
+  @Test
+  public void testPackedMatchesPlanar() {
+    ImageModel packed = new ImageModelImpl(new PackedImage("packed", threeByTwoArray, 255));
+    packed.transform("packed", "sepia", new Sepia());
+    model32.transform(threeByTwoFile, "sepia", new Sepia());
+    assertArrayEquals(model32.getImage("sepia"), packed.getImage("sepia"));
+    packed.filter("packed", "blur", new Blur());
+    assertTrue(packed.getObject("blur") instanceof PackedImage);
+
+    packed.brightness("packed", "bright", 20);
+    model32.brightness(threeByTwoFile, "bright", 20);
+    assertArrayEquals(model32.getImage("bright"), packed.getImage("bright"));
+  }
+
+  // test an off-heap model gives the same results as the default planar model
+  @Test
+  public void testOffHeapStorage() {
+    ImageModel offHeap = new ImageModelImpl(ImageStorage.OFF_HEAP);
+    offHeap.addImage("res/smallTest.ppm", threeByTwoFile);
+    assertTrue(offHeap.getObject(threeByTwoFile) instanceof OffHeapImage);
+    assertArrayEquals(threeByTwoArray, offHeap.getImage(threeByTwoFile));
+
+    offHeap.transform(threeByTwoFile, "sepia", new Sepia());
+    offHeap.brightness(threeByTwoFile, "bright", 10);
+    offHeap.flip(threeByTwoFile, "flip", true);
+    offHeap.filter(threeByTwoFile, "blur", new Blur());
+    model32.transform(threeByTwoFile, "sepia", new Sepia());
+    model32.brightness(threeByTwoFile, "bright", 10);
+    model32.flip(threeByTwoFile, "flip", true);
+    model32.filter(threeByTwoFile, "blur", new Blur());
+
+    for (String name : new String[]{"sepia", "bright", "blur"}) {
+      assertArrayEquals(model32.getImage(name), offHeap.getImage(name));
+    }
+    assertTrue(offHeap.getObject("blur") instanceof OffHeapImage);
+    assertArrayEquals(model32.getImage("flip"), offHeap.getImage("flip"));
+  }
+
+  // test a model of BufferedImages gives the same results and hands its images over uncopied
+  @Test
+  public void testBufferedStorage() {
+    ImageModel buffered = new ImageModelImpl("res/smallTest.ppm", threeByTwoFile,
+        ImageStorage.BUFFERED);
+    assertTrue(buffered.getObject(threeByTwoFile) instanceof BufferedRgbImage);
+    assertArrayEquals(threeByTwoArray, buffered.getImage(threeByTwoFile));
+
+    buffered.filter(threeByTwoFile, "blur", new Blur());
+    buffered.transform(threeByTwoFile, "sepia", new Sepia());
+    model32.filter(threeByTwoFile, "blur", new Blur());
+    model32.transform(threeByTwoFile, "sepia", new Sepia());
+    assertArrayEquals(model32.getImage("blur"), buffered.getImage("blur"));
+    assertArrayEquals(model32.getImage("sepia"), buffered.getImage("sepia"));
+
+    BufferedRgbImage blur = (BufferedRgbImage) buffered.getObject("blur");
+    assertTrue(ImageUtil.toBufferedImage(blur) == blur.getBufferedImage());
+    int[] pixel = blur.getPixel(1, 2);
+    assertEquals(AbstractRgbImage.pack(pixel[0], pixel[1], pixel[2]),
+        blur.getBufferedImage().getRGB(2, 1) & 0xffffff);
+
+    // views hand over the BufferedImage they are materialized into
+    buffered.brightness(threeByTwoFile, "bright", 10);
+    buffered.rotate(threeByTwoFile, "rotate", 90);
+    for (String name : new String[]{"bright", "rotate"}) {
+      Image view = buffered.getObject(name);
+      assertSame(ImageUtil.toBufferedImage(view), ImageUtil.toBufferedImage(view));
+      int[] viewPixel = view.getPixel(1, 1);
+      assertEquals(AbstractRgbImage.pack(viewPixel[0], viewPixel[1], viewPixel[2]),
+          ImageUtil.toBufferedImage(view).getRGB(1, 1) & 0xffffff);
+    }
+  }
+
+  // test off-heap images are freed when they are replaced or removed
+  @Test
+  public void testOffHeapFreed() {
+    ImageModel offHeap = new ImageModelImpl(ImageStorage.OFF_HEAP);
+    offHeap.addImage("res/smallTest.ppm", threeByTwoFile);
+    offHeap.filter(threeByTwoFile, "bright", new Blur());
+    OffHeapImage first = (OffHeapImage) offHeap.getObject("bright");
+
+    offHeap.filter(threeByTwoFile, "bright", new Sharpen());
+    assertTrue(first.isFreed());
+
+    OffHeapImage second = (OffHeapImage) offHeap.getObject("bright");
+    assertFalse(second.isFreed());
+    offHeap.removeImage("bright");
+    assertTrue(second.isFreed());
+    assertFalse(((OffHeapImage) offHeap.getObject(threeByTwoFile)).isFreed());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOffHeapUseAfterFree() {
+    OffHeapImage image = new OffHeapImage("freed", 3, 2, 255);
+    image.free();
+    image.getPixel(0, 0);
+  }
+
+  // test freeing an image another thread is reading only ever stops the reader with an exception
+  @Test
+  public void testOffHeapFreeWhileReading() throws InterruptedException {
+    for (int attempt = 0; attempt < 20; attempt++) {
+      OffHeapImage image = new OffHeapImage("racing", 1 << 16, 4, 255);
+      AtomicBoolean started = new AtomicBoolean();
+      Throwable[] stopped = new Throwable[1];
+      Thread reader = new Thread(() -> {
+        int[] row = new int[3 << 16];
+        try {
+          while (true) {
+            for (int i = 0; i < 4; i++) {
+              image.readRow(i, row);
+              started.set(true);
+            }
+          }
+        } catch (Throwable e) {
+          stopped[0] = e;
+        }
+      });
+      reader.start();
+      while (!started.get()) {
+        Thread.yield();
+      }
+      image.free();
+      reader.join();
+      assertTrue(stopped[0] instanceof IllegalStateException);
+    }
+  }
+
+  // test a tiled model gives the same results as the default planar model
+  @Test
+  public void testTiledStorage() {
+    ImageModel tiled = new ImageModelImpl(ImageStorage.TILED);
+    tiled.addImage("res/smallTest.ppm", threeByTwoFile);
+    assertTrue(tiled.getObject(threeByTwoFile) instanceof TiledImage);
+    assertArrayEquals(threeByTwoArray, tiled.getImage(threeByTwoFile));
+
+    tiled.transform(threeByTwoFile, "sepia", new Sepia());
+    tiled.flip(threeByTwoFile, "flip", false);
+    tiled.filter(threeByTwoFile, "blur", new Blur());
+    model32.transform(threeByTwoFile, "sepia", new Sepia());
+    model32.flip(threeByTwoFile, "flip", false);
+    model32.filter(threeByTwoFile, "blur", new Blur());
+
+    for (String name : new String[]{"sepia", "blur"}) {
+      assertArrayEquals(model32.getImage(name), tiled.getImage(name));
+    }
+    assertArrayEquals(model32.getImage("flip"), tiled.getImage("flip"));
+    TiledImage blur = (TiledImage) tiled.getObject("blur");
+    tiled.removeImage("blur");
+    assertTrue(blur.isReleased());
+  }
+
+  // test an image with more tiles than can be mapped at once keeps its pixels
+  @Test
+  public void testTiledImagePaging() {
+    int height = TiledImage.MAX_MAPPED_TILES * 2 + 1;
+    int[][][] pixels = new int[height][4][];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < 4; j++) {
+        pixels[i][j] = new int[]{i, j, (i + j) % 256};
+      }
+    }
+    TiledImage image = new TiledImage("tiled", new PackedImage("packed", pixels, 255), 1);
+    assertEquals(1, image.getTileRows());
+    assertArrayEquals(pixels, image.getImage());
+
+    ImageModel model = new ImageModelImpl(image);
+    model.transform("tiled", "copy", current -> current);
+    assertEquals(1, ((TiledImage) model.getObject("copy")).getTileRows());
+    assertArrayEquals(pixels, model.getImage("copy"));
+    model.rotate("copy", "rotate", 90);
+    model.filter("rotate", "blur", new Blur());
+    assertEquals(height, model.getWidth("blur"));
+    assertTrue(model.getObject("blur") instanceof TiledImage);
+  }
+
+  // test a crop is a view of its image and operations on it only see the region
+  @Test
+  public void testCrop() {
+    model32.crop(threeByTwoFile, "crop", 1, 0, 2, 2);
+    assertTrue(model32.getObject("crop") instanceof RegionImage);
+    assertArrayEquals(new int[][][]{{{255, 62, 62}, {250, 59, 132}},
+        {{210, 78, 251}, {253, 62, 75}}}, model32.getImage("crop"));
+
+    model32.crop("crop", "corner", 1, 1, 1, 1);
+    RegionImage corner = (RegionImage) model32.getObject("corner");
+    assertEquals(2, corner.getX());
+    assertEquals(1, corner.getY());
+    assertArrayEquals(new int[]{253, 62, 75}, model32.getPixel("corner", 0, 0));
+
+    model32.brightness("crop", "bright", 10);
+    model32.filter("crop", "blur", new Blur());
+    assertEquals(2, model32.getWidth("bright"));
+    assertArrayEquals(new int[]{255, 72, 72}, model32.getPixel("bright", 0, 0));
+    assertFalse(model32.getObject("blur") instanceof RegionImage);
+    assertEquals(2, model32.getHeight("blur"));
+  }
 
+  // test a crop that is not inside its image
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutside() {
+    model32.crop(threeByTwoFile, "crop", 2, 0, 2, 2);
+  }
+
+  // test an off-heap image is only freed once no crop of it is left in the model
+  @Test
+  public void testCropKeepsParent() {
+    ImageModel offHeap = new ImageModelImpl(ImageStorage.OFF_HEAP);
+    offHeap.addImage("res/smallTest.ppm", threeByTwoFile);
+    OffHeapImage parent = (OffHeapImage) offHeap.getObject(threeByTwoFile);
+    offHeap.crop(threeByTwoFile, "crop", 0, 1, 3, 1);
+
+    offHeap.removeImage(threeByTwoFile);
+    assertFalse(parent.isFreed());
+    assertArrayEquals(threeByTwoArray[1], offHeap.getImage("crop")[0]);
+    offHeap.removeImage("crop");
+    assertTrue(parent.isFreed());
+  }
+
+  // test flips and rotations are views that match copying the pixels
+  @Test
+  public void testOrientedViews() {
+    model32.flip(threeByTwoFile, "flip", true);
+    model32.flip("flip", "back", true);
+    assertTrue(model32.getObject("back") instanceof OrientedImage);
+    assertArrayEquals(threeByTwoArray, model32.getImage("back"));
+
+    model32.rotate(threeByTwoFile, "rotate", 90);
+    assertEquals(2, model32.getWidth("rotate"));
+    assertEquals(3, model32.getHeight("rotate"));
+    assertArrayEquals(new int[][][]{{{240, 58, 220}, {255, 63, 63}},
+        {{210, 78, 251}, {255, 62, 62}}, {{253, 62, 75}, {250, 59, 132}}},
+        model32.getImage("rotate"));
+
+    model32.rotate("rotate", "half", 90);
+    model32.flip(threeByTwoFile, "vertical", true);
+    model32.flip("vertical", "both", false);
+    assertArrayEquals(model32.getImage("both"), model32.getImage("half"));
+
+    model32.rotate("half", "left", 90);
+    model32.rotate(threeByTwoFile, "minus", -90);
+    assertArrayEquals(model32.getImage("minus"), model32.getImage("left"));
+    assertArrayEquals(new int[]{250, 59, 132}, model32.getPixel("minus", 0, 0));
+
+    model32.flip("rotate", "mirror", false);
+    model32.brightness("mirror", "bright", 0);
+    assertFalse(model32.getObject("bright") instanceof OrientedImage);
+    assertArrayEquals(model32.getImage("mirror"), model32.getImage("bright"));
+    assertArrayEquals(new int[]{253, 62, 75}, model32.getPixel("mirror", 0, 0));
+  }
+
+  // test rotated views larger than one band of rows materialize into every storage
+  @Test
+  public void testRotatedBands() throws IOException {
+    int[][][] pixels = new int[150][97][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{i % 256, j % 256, (i * 3 + j) % 256};
+      }
+    }
+    File file = File.createTempFile("rotate", ".ppm");
+    file.deleteOnExit();
+    ImageUtil.savePPM(file.getPath(), new PackedImage("img", pixels, 255));
+
+    int[][][] clockwise = new int[97][150][];
+    for (int i = 0; i < clockwise.length; i++) {
+      for (int j = 0; j < clockwise[i].length; j++) {
+        clockwise[i][j] = pixels[149 - j][i];
+      }
+    }
+    int[][][] mirrored = new int[97][150][];
+    int[][][] upsideDown = new int[97][150][];
+    int[][][] counter = new int[97][150][];
+    for (int i = 0; i < clockwise.length; i++) {
+      for (int j = 0; j < clockwise[i].length; j++) {
+        mirrored[i][j] = clockwise[i][149 - j];
+        upsideDown[i][j] = clockwise[96 - i][j];
+        counter[i][j] = clockwise[96 - i][149 - j];
+      }
+    }
+    for (ImageStorage storage : ImageStorage.values()) {
+      ImageModel model = new ImageModelImpl(storage);
+      model.addImage(file.getPath(), "img");
+      model.rotate("img", "clockwise", 90);
+      model.flip("clockwise", "mirrored", true);
+      model.flip("clockwise", "upsideDown", false);
+      model.rotate("img", "counter", 270);
+      assertArrayEquals(clockwise, model.getImage("clockwise"));
+      assertArrayEquals(mirrored, model.getImage("mirrored"));
+      assertArrayEquals(upsideDown, model.getImage("upsideDown"));
+      assertArrayEquals(counter, model.getImage("counter"));
+    }
+  }
+
+  // test rotations that are not a multiple of 90 degrees
+  @Test(expected = IllegalArgumentException.class)
+  public void testRotateInvalid() {
+    model32.rotate(threeByTwoFile, "rotate", 45);
+  }
+
+  // test rotating and cropping a copied image gives the same pixels as the views of 8-bit images
+  @Test
+  public void testRotateCropCopies() {
+    Image copy = new model.ImageImpl("copy", threeByTwoArray);
+    for (int degrees : new int[]{-90, 0, 90, 180, 270}) {
+      Image rotated = OrientedImage.rotated("rotated", copy, degrees);
+      assertFalse(rotated instanceof OrientedImage);
+      model32.rotate(threeByTwoFile, "view", degrees);
+      assertArrayEquals(model32.getImage("view"), rotated.getImage());
+    }
+    Image cropped = RegionImage.cropped("cropped", copy, 1, 0, 2, 2);
+    assertFalse(cropped instanceof RegionImage);
+    model32.crop(threeByTwoFile, "view", 1, 0, 2, 2);
+    assertArrayEquals(model32.getImage("view"), cropped.getImage());
+  }
+
+  // test running on bands of rows in parallel gives the same pixels as running serially
+  @Test
+  public void testParallelBands() throws IOException {
+    int[][][] pixels = new int[37][23][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{(i * 7) % 256, (j * 11) % 256, (i * j) % 256};
+      }
+    }
+    File file = File.createTempFile("bands", ".ppm");
+    file.deleteOnExit();
+    ImageUtil.savePPM(file.getPath(), new PackedImage("img", pixels, 255));
+
+    BandExecutor parallel = new BandExecutor(4, 0);
+    assertEquals(4, parallel.getParallelism());
+    for (ImageStorage storage : ImageStorage.values()) {
+      ImageModel serial = new ImageModelImpl(storage, new BandExecutor(1));
+      ImageModel banded = new ImageModelImpl(storage, parallel);
+      serial.addImage(file.getPath(), "img");
+      banded.addImage(file.getPath(), "img");
+      serial.transform("img", "sepia", new Sepia());
+      banded.transform("img", "sepia", new Sepia());
+      serial.brightness("img", "bright", 40);
+      banded.brightness("img", "bright", 40);
+      assertArrayEquals(serial.getImage("sepia"), banded.getImage("sepia"));
+      assertArrayEquals(serial.getImage("bright"), banded.getImage("bright"));
+    }
+    parallel.shutdown();
+  }
+
+  // test an executor needs at least one thread
+  @Test(expected = IllegalArgumentException.class)
+  public void testBandExecutorInvalid() {
+    new BandExecutor(0);
+  }
+
+  // test the progress of a thread is told every row, and stops the operation once cancelled
+  @Test
+  public void testBandExecutorProgress() {
+    int[][][] pixels = new int[300][400][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{(i * 3) % 256, (j * 5) % 256, (i + j) % 256};
+      }
+    }
+    ImageModel model = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    AtomicLong rows = new AtomicLong();
+    AtomicBoolean cancelled = new AtomicBoolean();
+    BandExecutor.setProgress(new Progress() {
+      @Override
+      public void update(long done, long total) {
+        assertEquals(300, total);
+        rows.accumulateAndGet(done, Math::max);
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return cancelled.get();
+      }
+    });
+    try {
+      model.filter("img", "blur", new Blur());
+      assertEquals(300, rows.get());
+      Image blurred = model.getObject("blur");
+      cancelled.set(true);
+      try {
+        model.filter("img", "blur", new Sharpen());
+        fail("Cancelled operation finished");
+      } catch (CancellationException e) {
+        // nothing is stored, the blur is still under its name
+        assertSame(blurred, model.getObject("blur"));
+      }
+    } finally {
+      BandExecutor.setProgress(null);
+    }
+    // other operations are no longer reported or cancelled
+    model.filter("img", "sharp", new Sharpen());
+    assertTrue(model.getObject("sharp") != null);
+  }
+
+  // test a lazy view is computed before it is stored by a thread with a progress, so a cancelled
+  // point operation or rotation does not replace the image under its name
+  @Test
+  public void testProgressMaterializesViews() {
+    int[][][] pixels = new int[200][300][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{(i * 3) % 256, (j * 5) % 256, (i + j) % 256};
+      }
+    }
+    ImageModel model = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    AtomicBoolean cancelled = new AtomicBoolean();
+    BandExecutor.setProgress(new Progress() {
+      @Override
+      public void update(long done, long total) {
+        // only cancellation is checked
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return cancelled.get();
+      }
+    });
+    try {
+      model.brightness("img", "bright", 20);
+      assertTrue(((PointImage) model.getObject("bright")).isMaterialized());
+      Image bright = model.getObject("bright");
+      cancelled.set(true);
+      try {
+        model.brightness("img", "bright", -20);
+        fail("Cancelled operation finished");
+      } catch (CancellationException e) {
+        assertSame(bright, model.getObject("bright"));
+      }
+      try {
+        model.rotate("bright", "bright", 90);
+        fail("Cancelled operation finished");
+      } catch (CancellationException e) {
+        assertSame(bright, model.getObject("bright"));
+      }
+    } finally {
+      BandExecutor.setProgress(null);
+    }
+    // without a progress the views stay lazy
+    model.brightness("img", "lazy", 20);
+    assertFalse(((PointImage) model.getObject("lazy")).isMaterialized());
+  }
+
+  // test convolving the whole image gives the same pixels as calling edit() for every pixel
+  @Test
+  public void testConvolutionMatchesEdit() {
+    int[][][] pixels = new int[19][13][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{(i * 37 + j) % 256, (j * 53) % 256, (i * j * 7) % 256};
+      }
+    }
+    Image source = new PackedImage("img", pixels, 255);
+    for (Filter filter : new Filter[]{new Blur(), new Sharpen()}) {
+      int[][][] expected = new int[pixels.length][pixels[0].length][];
+      for (int i = 0; i < pixels.length; i++) {
+        for (int j = 0; j < pixels[0].length; j++) {
+          int[] pixel = filter.edit(i, j, pixels);
+          for (int k = 0; k < 3; k++) {
+            pixel[k] = Math.max(0, Math.min(255, pixel[k]));
+          }
+          expected[i][j] = pixel;
+        }
+      }
+      Image target = new PackedImage("out", new int[19][13][3], 255);
+      filter.apply(source, target, new BandExecutor(3, 0));
+      assertArrayEquals(expected, target.getImage());
+    }
+  }
+
+  // test the borders a convolution can read past the edges of an image
+  @Test
+  public void testConvolutionBorders() {
+    int[][][] grey = new int[4][5][];
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        grey[i][j] = new int[]{100, 100, 100};
+      }
+    }
+    Image source = new PackedImage("grey", grey, 255);
+    Image target = new PackedImage("out", new int[4][5][3], 255);
+    double[][] box = new double[][]{{0, 0.25, 0}, {0.25, 0, 0.25}, {0, 0.25, 0}};
+
+    new Convolution(box, Border.EXTEND).apply(source, target, new BandExecutor(1));
+    assertArrayEquals(grey, target.getImage());
+    new Convolution(box, Border.REFLECT).apply(source, target, new BandExecutor(1));
+    assertArrayEquals(grey, target.getImage());
+    new Convolution(box, Border.ZERO).apply(source, target, new BandExecutor(1));
+    assertArrayEquals(new int[]{50, 50, 50}, target.getPixel(0, 0));
+    assertArrayEquals(new int[]{75, 75, 75}, target.getPixel(0, 2));
+    assertArrayEquals(new int[]{100, 100, 100}, target.getPixel(2, 2));
+    new Blur(Border.LEGACY).apply(source, target, new BandExecutor(1));
+    assertArrayEquals(new Blur().edit(1, 1, grey), target.getPixel(1, 1));
+  }
+
+  // test kernels that are not an odd sized square
+  @Test(expected = IllegalArgumentException.class)
+  public void testConvolutionInvalidKernel() {
+    new Convolution(new double[][]{{1, 0}, {0, 1}}, Border.ZERO);
+  }
+
+  // test separable kernels are found, and run as two passes close to the full kernel
+  @Test
+  public void testSeparableConvolution() {
+    double[][] vectors = Convolution.separate(new double[][]{{0.0625, 0.125, 0.0625},
+        {0.125, 0.25, 0.125}, {0.0625, 0.125, 0.0625}});
+    assertArrayEquals(new double[]{0.5, 1, 0.5}, vectors[0], 1e-12);
+    assertArrayEquals(new double[]{0.125, 0.25, 0.125}, vectors[1], 1e-12);
+    assertNull(Convolution.separate(new double[][]{{0, 1, 0}, {1, 1, 1}, {0, 1, 0}}));
+
+    int[][][] pixels = new int[11][9][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{(i * 29 + j * 3) % 256, 100, (i * j) % 256};
+      }
+    }
+    Image source = new PackedImage("img", pixels, 255);
+    Image exact = new PackedImage("exact", new int[11][9][3], 255);
+    Image fast = new PackedImage("fast", new int[11][9][3], 255);
+    new Blur(Border.EXTEND).apply(source, exact, new BandExecutor(1));
+    new Blur(Border.EXTEND, false).apply(source, fast, new BandExecutor(2, 0));
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        for (int k = 0; k < 3; k++) {
+          int difference = fast.getPixel(i, j)[k] - exact.getPixel(i, j)[k];
+          assertTrue(difference >= 0 && difference <= 9);
+        }
+        assertEquals(100, fast.getPixel(i, j)[1]);
+      }
+    }
+
+    Image blurred = new PackedImage("blurred", new int[11][9][3], 255);
+    GaussianBlur gaussian = new GaussianBlur(3);
+    assertFalse(gaussian.isExact());
+    gaussian.apply(source, blurred, new BandExecutor(1));
+    for (int i = 0; i < pixels.length; i++) {
+      assertEquals(100, blurred.getPixel(i, 4)[1]);
+    }
+  }
+
+  // test point operations compiled into tables give the clamped result of edit()
+  @Test
+  public void testLookupTable() {
+    assertEquals(null, LookupTable.of(new Sepia(), 255));
+    assertEquals(null, LookupTable.of(new GreyscaleLuma(), 255));
+    Transform[] points = new Transform[]{new GreyscaleRed(), new GreyscaleGreen(),
+        new GreyscaleBlue(), new GreyscaleValue()};
+    int[] packed = new int[256];
+    int[] interleaved = new int[3 * 256];
+    for (Transform point : points) {
+      LookupTable table = LookupTable.of(point, 255);
+      for (int v = 0; v < 256; v++) {
+        int[] pixel = new int[]{v, (v * 7) % 256, 255 - v};
+        packed[v] = (pixel[0] << 16) | (pixel[1] << 8) | pixel[2];
+        System.arraycopy(pixel, 0, interleaved, 3 * v, 3);
+      }
+      table.applyPacked(packed, 256);
+      table.applyInterleaved(interleaved, 256);
+      for (int v = 0; v < 256; v++) {
+        int[] expected = point.edit(new int[]{v, (v * 7) % 256, 255 - v});
+        assertEquals((expected[0] << 16) | (expected[1] << 8) | expected[2], packed[v]);
+        assertArrayEquals(expected, Arrays.copyOfRange(interleaved, 3 * v, 3 * v + 3));
+      }
+    }
+
+    // channels outside the table are run through the operation itself
+    LookupTable brighter = new LookupTable(100, v -> v + 10);
+    int[] row = new int[]{-20, 95, 300};
+    brighter.applyInterleaved(row, 1);
+    assertArrayEquals(new int[]{0, 100, 100}, row);
+  }
+
+  // test brightness and point transformations through tables on a 16-bit image
+  @Test
+  public void testLookupTableDeepImage() {
+    int[][][] pixels = new int[][][]{{{0, 1000, 65535}, {300, 40000, 5}}};
+    ImageModel deep = new ImageModelImpl(new model.ImageImpl("deep", pixels, 65535));
+    deep.brightness("deep", "bright", 30000);
+    deep.transform("deep", "red", new GreyscaleRed());
+    assertArrayEquals(new int[][][]{{{30000, 31000, 65535}, {30300, 65535, 30005}}},
+        deep.getImage("bright"));
+    assertArrayEquals(new int[][][]{{{0, 0, 0}, {300, 300, 300}}}, deep.getImage("red"));
+  }
+
+  // test a chain of point operations is fused and gives the same pixels as running each one
+  @Test
+  public void testFusedPointOperations() {
+    int[][][] pixels = new int[9][7][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{(i * 31) % 256, (j * 43) % 256, (i * j * 5) % 256};
+      }
+    }
+    ImageModel fused = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    fused.brightness("img", "bright", 40);
+    fused.brightness("bright", "dark", -70);
+    fused.transform("dark", "value", new GreyscaleValue());
+    fused.transform("value", "sepia", new Sepia());
+    fused.transform("sepia", "luma", new GreyscaleLuma());
+    fused.brightness("luma", "final", 15);
+
+    PointImage chain = (PointImage) fused.getObject("final");
+    assertEquals(4, chain.getStageCount()); // tables, sepia, luma, table
+    int[][][] expected = pixels;
+    Transform[] steps = new Transform[]{new LookupTable(255, v -> v + 40),
+        new LookupTable(255, v -> v - 70), new GreyscaleValue(), new Sepia(),
+        new GreyscaleLuma(), new LookupTable(255, v -> v + 15)};
+    for (Transform step : steps) {
+      int[][][] next = new int[9][7][];
+      for (int i = 0; i < 9; i++) {
+        for (int j = 0; j < 7; j++) {
+          next[i][j] = step.edit(expected[i][j]);
+          for (int k = 0; k < 3; k++) {
+            next[i][j][k] = Math.max(0, Math.min(255, next[i][j][k]));
+          }
+        }
+      }
+      expected = next;
+    }
+    assertArrayEquals(expected[4][3], fused.getPixel("final", 4, 3));
+    assertFalse(chain.isMaterialized());
+    assertArrayEquals(expected, fused.getImage("final"));
+    assertTrue(chain.isMaterialized());
+    assertFalse(((PointImage) fused.getObject("sepia")).isMaterialized());
+  }
+
+  // test a long chain of fused tables gives the same pixels as running each step, in linear time
+  @Test
+  public void testLongFusedChain() {
+    java.util.List<LookupTable> steps = new java.util.ArrayList<>();
+    steps.add(LookupTable.of(new GreyscaleRed(), 255));
+    for (int i = 0; i < 40; i++) {
+      steps.add(LookupTable.of(new GreyscaleValue(), 255));
+    }
+    for (int i = 0; i < 3000; i++) {
+      int adjustment = i % 3 == 0 ? -1 : 1;
+      steps.add(new LookupTable(255, v -> v + adjustment));
+    }
+    LookupTable fused = steps.get(0);
+    for (int i = 1; i < steps.size(); i++) {
+      fused = fused.then(steps.get(i));
+    }
+    for (int v = 0; v < 256; v++) {
+      int[] expected = new int[]{v, (v * 7) % 256, 255 - v};
+      for (LookupTable step : steps) {
+        expected = step.edit(expected);
+      }
+      assertArrayEquals(expected, fused.edit(new int[]{v, (v * 7) % 256, 255 - v}));
+    }
+
+    int[][][] pixels = new int[4][4][];
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 4; j++) {
+        pixels[i][j] = new int[]{i * 60, j * 70, (i + j) * 30};
+      }
+    }
+    ImageModel model = new ImageModelImpl(new PackedImage("img", pixels, 255));
+    model.transform("img", "step0", new GreyscaleRed());
+    for (int i = 1; i <= 14; i++) {
+      model.transform("step" + (i - 1), "step" + i, new GreyscaleValue());
+    }
+    model.brightness("step14", "final", 20);
+    assertEquals(1, ((PointImage) model.getObject("final")).getStageCount());
+    int[][][] expected = new int[4][4][];
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 4; j++) {
+        int red = Math.min(255, pixels[i][j][0] + 20);
+        expected[i][j] = new int[]{red, red, red};
+      }
+    }
+    assertArrayEquals(expected, model.getImage("final"));
+  }
+
+  // test the fixed point path of matrix transformations truncates exactly like the double sums
+  @Test
+  public void testFixedPointTransform() {
+    double[][][] matrices = new double[][][]{
+        {{.393, .769, .189}, {.349, .686, .168}, {.272, .534, .131}},
+        {{0.2126, 0.7152, 0.0722}, {0.2126, 0.7152, 0.0722}, {0.2126, 0.7152, 0.0722}}};
+    AbstractTransform[] transforms = new AbstractTransform[]{new Sepia(), new GreyscaleLuma()};
+    int[] pixel = new int[3];
+    int[] result = new int[3];
+    for (int t = 0; t < transforms.length; t++) {
+      for (int r = 0; r < 256; r++) {
+        for (int g = 0; g < 256; g++) {
+          for (int b = 0; b < 256; b++) {
+            pixel[0] = r;
+            pixel[1] = g;
+            pixel[2] = b;
+            transforms[t].edit(pixel, result);
+            for (int k = 0; k < 3; k++) {
+              double[] vector = matrices[t][k];
+              if (result[k] != (int) ((r * vector[0]) + (g * vector[1]) + (b * vector[2]))) {
+                assertEquals(k + " of " + r + " " + g + " " + b,
+                    (int) ((r * vector[0]) + (g * vector[1]) + (b * vector[2])), result[k]);
+              }
+            }
+          }
+        }
+      }
+    }
+
+    int[] row = new int[]{0xff8040, 0x010203, 0xffffff};
+    new GreyscaleIntensity().applyPacked(row, 3, 255);
+    assertArrayEquals(new int[]{0x959595, 0x020202, 0xffffff}, row);
+    int[] white = new int[]{0xffffff};
+    new Sepia().applyPacked(white, 1, 255);
+    assertArrayEquals(new int[]{0xffffee}, white);
+  }
+
+  // test the int kernels of convolutions and transformations give the same result as edit()
+  @Test
+  public void testLaneKernels() {
+    java.util.Random random = new java.util.Random(14);
+    int[][][] pixels = new int[23][300][];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < pixels[i].length; j++) {
+        pixels[i][j] = new int[]{random.nextInt(65536), random.nextInt(65536), 65535};
+      }
+    }
+    Image source = new model.ImageImpl("deep", pixels, 65535);
+    for (Filter filter : new Filter[]{new Blur(), new Sharpen()}) {
+      Image target = new model.ImageImpl("out", new int[23][300][3], 65535);
+      filter.apply(source, target, new BandExecutor(2, 0));
+      for (int i = 0; i < pixels.length; i++) {
+        for (int j = 0; j < pixels[0].length; j++) {
+          int[] pixel = filter.edit(i, j, pixels);
+          for (int k = 0; k < 3; k++) {
+            assertEquals(Math.max(0, Math.min(65535, pixel[k])), target.getPixel(i, j)[k]);
+          }
+        }
+      }
+    }
+    double[][] dyadic = new double[][]{{-0.125, 1, 0}, {0, 0.25, 0}, {3, 0.5, 0}};
+    assertTrue(new Convolution(dyadic, Border.ZERO).isDyadic());
+    assertFalse(new Convolution(new double[][]{{1.0 / 3}}, Border.ZERO).isDyadic());
+
+    AbstractTransform mixed = new AbstractTransform() {
+      {
+        matrix = new double[][]{{-0.7, 1.3, 0.45}, {2.5, -1.1, 0.01}, {0.1, 0.2, 0.3}};
+      }
+    };
+    int[] row = new int[1000];
+    for (AbstractTransform transform : new AbstractTransform[]{new Sepia(), new GreyscaleLuma(),
+        new GreyscaleIntensity(), mixed}) {
+      for (int j = 0; j < row.length; j++) {
+        row[j] = j % 3 == 0 ? (j % 256) * 0x010101 : random.nextInt(1 << 24);
+      }
+      int[] expected = new int[row.length];
+      for (int j = 0; j < row.length; j++) {
+        int[] pixel = transform.edit(new int[]{row[j] >> 16, (row[j] >> 8) & 0xff, row[j] & 0xff});
+        expected[j] = (Math.max(0, Math.min(200, pixel[0])) << 16)
+            | (Math.max(0, Math.min(200, pixel[1])) << 8) | Math.max(0, Math.min(200, pixel[2]));
+      }
+      transform.applyPacked(row, row.length, 200);
+      assertArrayEquals(expected, row);
+    }
+  }
+
+  // test a transformation that overrides edit() is used by every fast path instead of its matrix
+  @Test
+  public void testOverriddenEdit() {
+    AbstractTransform invert = new AbstractTransform() {
+      @Override
+      public int[] edit(int[] pixel) {
+        return new int[]{255 - pixel[0], 255 - pixel[1], 255 - pixel[2]};
+      }
+    };
+    assertEquals(null, LookupTable.of(invert, 255));
+    assertEquals(-1, invert.getChannel());
+    assertArrayEquals(new int[]{245, 235, 225}, invert.edit(new int[]{10, 20, 30}, new int[3]));
+    int[] row = new int[]{0xff8040, 0x010203};
+    invert.applyPacked(row, 2, 255);
+    assertArrayEquals(new int[]{0x007fbf, 0xfefdfc}, row);
+
+    for (ImageStorage storage : new ImageStorage[]{ImageStorage.PACKED, ImageStorage.PLANAR}) {
+      ImageModel model = new ImageModelImpl(storage);
+      model.addImage("res/smallTest.ppm", "small");
+      model.transform("small", "inverted", invert);
+      int[][][] pixels = model.getImage("small");
+      int[][][] inverted = model.getImage("inverted");
+      for (int i = 0; i < pixels.length; i++) {
+        for (int j = 0; j < pixels[0].length; j++) {
+          assertArrayEquals(invert.edit(pixels[i][j]), inverted[i][j]);
+        }
+      }
+    }
+  }
+}